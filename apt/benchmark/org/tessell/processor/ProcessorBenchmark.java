@@ -0,0 +1,110 @@
+package org.tessell.processor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Measures how long the processor takes on the apt-examples specs, for a full build
+ * versus an incremental build that only reprocesses one spec.
+ *
+ * An isolating processor only sees the changed specs in an incremental build, so the
+ * incremental cases process just one spec file, either with nothing cached (the spec's
+ * signature changed) or with its previous output cached (only a method body changed).
+ *
+ * Runs javac in-process with {@code -proc:only}, so we only time processing, and not
+ * compiling the output, which means the examples' GWT dependencies aren't needed.
+ *
+ * Usage: {@code ProcessorBenchmark [examplesSrcDir] [changedSpec] [iterations]}, see the
+ * {@code benchmark} target in {@code build.xml}.
+ */
+public class ProcessorBenchmark {
+
+	private final JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+	private final StandardJavaFileManager files = javac.getStandardFileManager(null, null, null);
+	private final File sourceDir;
+	private final File outputDir;
+
+	public static void main(String[] args) throws Exception {
+		File sourceDir = new File(args.length > 0 ? args[0] : "../apt-examples/src");
+		File changed = new File(sourceDir, args.length > 1 ? args[1] : "com/foo/client/dispatch/FooSpec.java");
+		int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+		new ProcessorBenchmark(sourceDir).run(changed, iterations);
+	}
+
+	public ProcessorBenchmark(File sourceDir) {
+		this.sourceDir = sourceDir;
+		this.outputDir = new File(System.getProperty("java.io.tmpdir"), "tessell-apt-benchmark");
+		this.outputDir.mkdirs();
+	}
+
+	public void run(File changed, int iterations) {
+		List<File> all = new ArrayList<File>();
+		findSources(sourceDir, all);
+		List<File> one = Arrays.asList(changed);
+		System.out.println("Processing " + all.size() + " files, " + iterations + " iterations, changing " + changed.getName());
+
+		// warm up the compiler and the JIT, so we're measuring steady state like a build daemon would
+		for (int i = 0; i < iterations; i++) {
+			SpecCache.clear();
+			process(all);
+		}
+
+		long full = 0;
+		long changedSignature = 0;
+		long unchangedSignature = 0;
+		for (int i = 0; i < iterations; i++) {
+			SpecCache.clear();
+			full += process(all);
+			SpecCache.clear();
+			changedSignature += process(one);
+			unchangedSignature += process(one);
+		}
+		report("full", full, iterations);
+		report("incremental, signature changed", changedSignature, iterations);
+		report("incremental, signature unchanged", unchangedSignature, iterations);
+	}
+
+	/** @return the nanos it took to process {@code sources} */
+	private long process(List<File> sources) {
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		List<String> options = Arrays.asList(
+			"-proc:only",
+			"-sourcepath",
+			sourceDir.getPath(),
+			"-s",
+			outputDir.getPath(),
+			"-implicit:none");
+		JavaCompiler.CompilationTask task = javac.getTask(null, files, diagnostics, options, null, files.getJavaFileObjectsFromFiles(sources));
+		task.setProcessors(Arrays.asList(new Processor()));
+		long start = System.nanoTime();
+		task.call();
+		return System.nanoTime() - start;
+	}
+
+	private static void report(String name, long nanos, int iterations) {
+		System.out.println(String.format("%-34s %8.2fms", name, nanos / 1000000.0 / iterations));
+	}
+
+	private static void findSources(File dir, List<File> sources) {
+		File[] children = dir.listFiles();
+		if (children == null) {
+			return;
+		}
+		for (File child : children) {
+			if (child.isDirectory()) {
+				findSources(child, sources);
+			} else if (child.getName().endsWith(".java")) {
+				sources.add(child);
+			}
+		}
+	}
+
+}
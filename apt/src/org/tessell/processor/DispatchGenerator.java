@@ -2,12 +2,14 @@ package org.tessell.processor;
 
 import static joist.sourcegen.Argument.arg;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
@@ -31,6 +33,13 @@ import org.tessell.Out;
 
 public class DispatchGenerator {
 
+	/** The {@code Action} interfaces we look for to detect the dispatch package, in order. */
+	static final String[] dispatchActions = {
+		"org.tessell.dispatch.shared.Action",
+		"net.customware.gwt.dispatch.shared.Action",
+		"com.gwtplatform.dispatch.shared.Action" };
+	static final String uiCommand = "org.tessell.model.commands.DispatchUiCommand";
+
 	private final ProcessingEnvironment env;
 	private final TypeElement element;
 	private final GClass actionClass;
@@ -40,6 +49,8 @@ public class DispatchGenerator {
 	private final Map<Integer, VariableElement> outParams = new TreeMap<Integer, VariableElement>();
 	private final String simpleName;
 	private final String dispatchPackageName;
+	private final List<GClass> generated = new ArrayList<GClass>();
+	private boolean hasErrors;
 
 	public DispatchGenerator(ProcessingEnvironment env, TypeElement element) throws InvalidTypeElementException {
 		if (!element.toString().endsWith("Spec")) {
@@ -66,8 +77,18 @@ public class DispatchGenerator {
 		makeUiCommandIfOnClasspath();
 	}
 
+	/** @return the classes we generated, for {@link SpecCache} */
+	public List<GClass> getGenerated() {
+		return generated;
+	}
+
+	/** @return whether the spec had errors, in which case the output shouldn't be reused */
+	public boolean hasErrors() {
+		return hasErrors;
+	}
+
 	private void makeUiCommandIfOnClasspath() {
-		if (env.getElementUtils().getTypeElement("org.tessell.model.commands.DispatchUiCommand") == null) {
+		if (env.getElementUtils().getTypeElement(uiCommand) == null) {
 			return;
 		}
 		if (!dispatchPackageName.contains("org.tessell")) {
@@ -100,7 +121,7 @@ public class DispatchGenerator {
 		}
 
 		PropUtil.addGenerated(command, DispatchGenerator.class);
-		Util.saveCode(env, command, element);
+		save(command);
 	}
 
 	private void addAnnotatedInAndOutParams() {
@@ -112,14 +133,14 @@ public class DispatchGenerator {
 			} else if (out != null) {
 				addOutParam(field, out);
 			} else {
-				env.getMessager().printMessage(Kind.ERROR, field.getSimpleName().toString() + " must be annotated with @In or @Out", field);
+				error(field.getSimpleName().toString() + " must be annotated with @In or @Out", field);
 			}
 		}
 	}
 
 	private void addInParam(VariableElement field, In in) {
 		if (inParams.containsKey(in.value())) {
-			env.getMessager().printMessage(Kind.ERROR, field.getSimpleName().toString() + " reuses an order value", field);
+			error(field.getSimpleName().toString() + " reuses an order value", field);
 		} else {
 			inParams.put(in.value(), field);
 		}
@@ -127,7 +148,7 @@ public class DispatchGenerator {
 
 	private void addOutParam(VariableElement field, Out out) {
 		if (outParams.containsKey(out.value())) {
-			env.getMessager().printMessage(Kind.ERROR, field.getSimpleName().toString() + " reuses an order value", field);
+			error(field.getSimpleName().toString() + " reuses an order value", field);
 		} else {
 			outParams.put(out.value(), field);
 		}
@@ -165,7 +186,17 @@ public class DispatchGenerator {
 		PropUtil.addHashCode(gclass, properties);
 		PropUtil.addEquals(gclass, generics, properties);
 		PropUtil.addToString(gclass, properties);
-		Util.saveCode(env, gclass);
+		save(gclass);
+	}
+
+	private void save(GClass gclass) {
+		generated.add(gclass);
+		Util.saveCode(env, gclass, element);
+	}
+
+	private void error(String message, Element on) {
+		hasErrors = true;
+		env.getMessager().printMessage(Kind.ERROR, message, on);
 	}
 
 	private String detectDispatchBasePackage(ProcessingEnvironment env) {
@@ -173,10 +204,7 @@ public class DispatchGenerator {
 		if (dispatchBasePackage != null) {
 			return dispatchBasePackage;
 		}
-		for (String option : new String[] {
-			"org.tessell.dispatch.shared.Action",
-			"net.customware.gwt.dispatch.shared.Action",
-			"com.gwtplatform.dispatch.shared.Action" }) {
+		for (String option : dispatchActions) {
 			TypeElement t = env.getElementUtils().getTypeElement(option);
 			if (t != null) {
 				return ((PackageElement) t.getEnclosingElement()).getQualifiedName().toString();
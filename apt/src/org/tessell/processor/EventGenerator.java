@@ -9,6 +9,7 @@ import java.util.Map;
 import java.util.TreeMap;
 
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.util.ElementFilter;
@@ -16,7 +17,6 @@ import javax.tools.Diagnostic.Kind;
 
 import joist.sourcegen.GClass;
 import joist.sourcegen.GMethod;
-import joist.util.Copy;
 import joist.util.Join;
 
 import org.exigencecorp.aptutil.GenericSuffix;
@@ -28,6 +28,14 @@ import org.tessell.Param;
 
 public class EventGenerator {
 
+	/** The event buses we add {@code fire} methods for, if they're on the classpath. */
+	static final String[] gwtEventBuses = {
+		"com.google.gwt.event.shared.HandlerManager",
+		"com.google.gwt.event.shared.EventBus",
+		"net.customware.gwt.presenter.client.EventBus",
+		"com.gwtplatform.mvp.client.EventBus" };
+	static final String[] eventBuses = { "com.google.web.bindery.event.shared.EventBus" };
+
 	private final ProcessingEnvironment env;
 	private final TypeElement element;
 	private final GClass eventClass;
@@ -36,6 +44,8 @@ public class EventGenerator {
 	private final String handlerName;
 	private final GenericSuffix generics;
 	private final List<Prop> properties;
+	private final List<GClass> generated = new ArrayList<GClass>();
+	private boolean hasErrors;
 
 	public EventGenerator(ProcessingEnvironment env, TypeElement element, GenEvent eventSpec) throws InvalidTypeElementException {
 		if (!element.toString().endsWith("EventSpec")) {
@@ -68,8 +78,28 @@ public class EventGenerator {
 		PropUtil.addHashCode(eventClass, properties);
 		PropUtil.addToString(eventClass, properties);
 		PropUtil.addGenerated(eventClass, DispatchGenerator.class);
-		Util.saveCode(env, eventClass, element);
-		Util.saveCode(env, handlerClass, element);
+		save(eventClass);
+		save(handlerClass);
+	}
+
+	/** @return the classes we generated, for {@link SpecCache} */
+	public List<GClass> getGenerated() {
+		return generated;
+	}
+
+	/** @return whether the spec had errors, in which case the output shouldn't be reused */
+	public boolean hasErrors() {
+		return hasErrors;
+	}
+
+	private void save(GClass gclass) {
+		generated.add(gclass);
+		Util.saveCode(env, gclass, element);
+	}
+
+	private void error(String message, Element on) {
+		hasErrors = true;
+		env.getMessager().printMessage(Kind.ERROR, message, on);
 	}
 
 	private void generateHandlerClass() {
@@ -142,13 +172,7 @@ public class EventGenerator {
 
 	private List<String> detectEventBuses(ProcessingEnvironment env) {
 		List<String> available = new ArrayList<String>();
-		List<String> options = eventSpec.gwtEvent() ? Copy.list(
-			"com.google.gwt.event.shared.HandlerManager",
-			"com.google.gwt.event.shared.EventBus",
-			"net.customware.gwt.presenter.client.EventBus",
-			"com.gwtplatform.mvp.client.EventBus") : //
-			Copy.list("com.google.web.bindery.event.shared.EventBus");
-		for (String option : options) {
+		for (String option : eventSpec.gwtEvent() ? gwtEventBuses : eventBuses) {
 			TypeElement t = env.getElementUtils().getTypeElement(option);
 			if (t != null) {
 				available.add(option);
@@ -163,13 +187,13 @@ public class EventGenerator {
 			Param param = field.getAnnotation(Param.class);
 			if (param != null) {
 				if (params.containsKey(param.value())) {
-					env.getMessager().printMessage(Kind.ERROR, field.getSimpleName().toString() + " reuses an order value", field);
+					error(field.getSimpleName().toString() + " reuses an order value", field);
 				} else {
 					params.put(param.value(), field);
 				}
 				continue;
 			}
-			env.getMessager().printMessage(Kind.ERROR, field.getSimpleName().toString() + " must be annotated with @Param", field);
+			error(field.getSimpleName().toString() + " must be annotated with @Param", field);
 		}
 		return params.values();
 	}
@@ -48,6 +48,7 @@ public class PlaceGenerator {
 	private final GenPlace place;
 	private final GClass placeClass;
 	private final GClass placeRequestClass;
+	private final List<GClass> generated = new ArrayList<GClass>();
 
 	public PlaceGenerator(ProcessingEnvironment env, ExecutableElement element, GenPlace place) throws InvalidTypeElementException {
 		if (!element.getModifiers().contains(Modifier.STATIC)) {
@@ -74,13 +75,28 @@ public class PlaceGenerator {
 		} else {
 			addSyncHandleRequest();
 		}
-		Util.saveCode(env, placeClass, element);
+		save(placeClass);
 		// PlaceRequestClass
 		addPlaceRequestCstrOne();
 		addPlaceRequestCstrTwo();
 		addPlaceRequestCstrThree();
 		addPlaceRequestParameters();
-		Util.saveCode(env, placeRequestClass, element);
+		save(placeRequestClass);
+	}
+
+	/** @return the classes we generated, for {@link SpecCache} */
+	public List<GClass> getGenerated() {
+		return generated;
+	}
+
+	/** @return the presenter, which we use as the originating element, as incremental builds track outputs per type */
+	public TypeElement getPresenter() {
+		return (TypeElement) element.getEnclosingElement();
+	}
+
+	private void save(GClass gclass) {
+		generated.add(gclass);
+		Util.saveCode(env, gclass, getPresenter());
 	}
 
 	private void addStaticPlaceName() {
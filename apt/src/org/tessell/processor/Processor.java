@@ -4,10 +4,12 @@ import static javax.lang.model.util.ElementFilter.methodsIn;
 import static javax.lang.model.util.ElementFilter.typesIn;
 
 import java.util.Set;
+import java.util.TreeMap;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
@@ -16,30 +18,69 @@ import org.tessell.GenDispatch;
 import org.tessell.GenEvent;
 import org.tessell.GenPlace;
 
+/**
+ * Generates dispatch, event and place classes from their specs.
+ *
+ * Each generated class is derived from just its one spec (and which dispatch/event
+ * libraries are on the classpath), and is saved with the spec as its originating
+ * element, so this is an isolating processor for incremental builds, which we declare
+ * in {@code META-INF/gradle/incremental.annotation.processors}.
+ *
+ * Specs whose signature hasn't changed since we last saw them reuse their previously
+ * generated classes, see {@link SpecCache}.
+ */
 @SupportedAnnotationTypes({ "org.tessell.GenDispatch", "org.tessell.GenEvent", "org.tessell.GenPlace" })
+@SupportedOptions({ "dispatchBasePackage" })
 public class Processor extends AbstractProcessor {
 
 	@Override
 	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		String environment = environmentSignature();
+
 		for (TypeElement element : typesIn(roundEnv.getElementsAnnotatedWith(GenDispatch.class))) {
+			String key = SpecCache.keyFor(element);
+			String signature = SpecCache.signature(element, environment);
+			if (SpecCache.saveIfUnchanged(this.processingEnv, key, signature, element)) {
+				continue;
+			}
 			try {
-				new DispatchGenerator(this.processingEnv, element).generate();
+				DispatchGenerator g = new DispatchGenerator(this.processingEnv, element);
+				g.generate();
+				if (!g.hasErrors()) {
+					SpecCache.put(key, signature, g.getGenerated());
+				}
 			} catch (InvalidTypeElementException itee) {
 				// continue
 			}
 		}
 
 		for (TypeElement element : typesIn(roundEnv.getElementsAnnotatedWith(GenEvent.class))) {
+			String key = SpecCache.keyFor(element);
+			String signature = SpecCache.signature(element, environment);
+			if (SpecCache.saveIfUnchanged(this.processingEnv, key, signature, element)) {
+				continue;
+			}
 			try {
-				new EventGenerator(this.processingEnv, element, element.getAnnotation(GenEvent.class)).generate();
+				EventGenerator g = new EventGenerator(this.processingEnv, element, element.getAnnotation(GenEvent.class));
+				g.generate();
+				if (!g.hasErrors()) {
+					SpecCache.put(key, signature, g.getGenerated());
+				}
 			} catch (InvalidTypeElementException itee) {
 				// continue
 			}
 		}
 
 		for (ExecutableElement element : methodsIn(roundEnv.getElementsAnnotatedWith(GenPlace.class))) {
+			String key = SpecCache.keyFor(element);
+			String signature = SpecCache.signature(element, environment);
+			if (SpecCache.saveIfUnchanged(this.processingEnv, key, signature, (TypeElement) element.getEnclosingElement())) {
+				continue;
+			}
 			try {
-				new PlaceGenerator(this.processingEnv, element, element.getAnnotation(GenPlace.class)).generate();
+				PlaceGenerator g = new PlaceGenerator(this.processingEnv, element, element.getAnnotation(GenPlace.class));
+				g.generate();
+				SpecCache.put(key, signature, g.getGenerated());
 			} catch (InvalidTypeElementException itee) {
 				// continue
 			}
@@ -53,4 +94,21 @@ public class Processor extends AbstractProcessor {
 		return SourceVersion.latest();
 	}
 
+	/** @return the options and classpath types the generators look at, as they change the output of otherwise unchanged specs */
+	private String environmentSignature() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(new TreeMap<String, String>(processingEnv.getOptions()));
+		appendAvailable(sb, DispatchGenerator.dispatchActions);
+		appendAvailable(sb, new String[] { DispatchGenerator.uiCommand });
+		appendAvailable(sb, EventGenerator.gwtEventBuses);
+		appendAvailable(sb, EventGenerator.eventBuses);
+		return sb.toString();
+	}
+
+	private void appendAvailable(StringBuilder sb, String[] typeNames) {
+		for (String typeName : typeNames) {
+			sb.append(processingEnv.getElementUtils().getTypeElement(typeName) != null ? '1' : '0');
+		}
+	}
+
 }
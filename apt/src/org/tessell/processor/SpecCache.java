@@ -0,0 +1,154 @@
+package org.tessell.processor;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+
+import joist.sourcegen.GClass;
+
+import org.exigencecorp.aptutil.Util;
+
+/**
+ * Remembers the classes generated for each spec, keyed by a hash of the spec's signature.
+ *
+ * The signature is everything the generators look at, i.e. the spec's name, type parameters,
+ * supertypes, annotations, and its members' names, types and annotations, but not method
+ * bodies. So if a spec's file is recompiled (e.g. by an incremental build or the IDE) but
+ * only a method body changed, we save the classes we already generated instead of
+ * regenerating them.
+ *
+ * The processor still has to save each output for every spec it's given, because javac and
+ * Eclipse consider anything not re-saved as deleted, so this only saves the generating.
+ *
+ * This is static so that it lives as long as the processor's class loader, e.g. across
+ * builds in a Gradle daemon or an Eclipse workspace.
+ */
+class SpecCache {
+
+	private static final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+	/** @return the signature hash of {@code spec}, given the classpath/options {@code environment} */
+	static String signature(Element spec, String environment) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(environment).append('\n');
+		if (spec instanceof ExecutableElement) {
+			// places are generated per method, from the method and its enclosing type's name
+			sb.append(spec.getEnclosingElement()).append('\n');
+			appendMember(sb, spec);
+		} else {
+			TypeElement type = (TypeElement) spec;
+			sb.append(type.getQualifiedName()).append(' ').append(type.getModifiers()).append('\n');
+			for (TypeParameterElement p : type.getTypeParameters()) {
+				sb.append(p).append(' ').append(p.getBounds()).append('\n');
+			}
+			sb.append(type.getSuperclass()).append(' ').append(type.getInterfaces()).append('\n');
+			appendAnnotations(sb, type);
+			for (Element member : type.getEnclosedElements()) {
+				appendMember(sb, member);
+			}
+		}
+		return hash(sb.toString());
+	}
+
+	/**
+	 * Saves the classes previously generated for {@code spec}, if its signature is unchanged.
+	 *
+	 * @return whether the classes were saved, otherwise the caller should generate them
+	 */
+	static boolean saveIfUnchanged(ProcessingEnvironment env, String key, String signature, TypeElement originating) {
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+		}
+		if (entry == null || !entry.signature.equals(signature)) {
+			return false;
+		}
+		for (GClass gclass : entry.generated) {
+			Util.saveCode(env, gclass, originating);
+		}
+		return true;
+	}
+
+	/** Remembers the classes {@code generated} for {@code spec}, which should have had no errors. */
+	static void put(String key, String signature, List<GClass> generated) {
+		synchronized (entries) {
+			entries.put(key, new Entry(signature, new ArrayList<GClass>(generated)));
+		}
+	}
+
+	/** Forgets everything, e.g. for benchmarking. */
+	static void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/** @return the key for {@code spec}, which for places includes the method signature */
+	static String keyFor(Element spec) {
+		if (spec instanceof ExecutableElement) {
+			return spec.getEnclosingElement() + "#" + spec;
+		}
+		return ((TypeElement) spec).getQualifiedName().toString();
+	}
+
+	private static void appendMember(StringBuilder sb, Element member) {
+		sb.append(member.getKind()).append(' ').append(member.getModifiers()).append(' ').append(member.getSimpleName());
+		sb.append(' ').append(member.asType()).append('\n');
+		appendAnnotations(sb, member);
+		if (member instanceof ExecutableElement) {
+			ExecutableElement method = (ExecutableElement) member;
+			for (VariableElement param : method.getParameters()) {
+				sb.append(param.getSimpleName()).append(' ').append(param.asType()).append('\n');
+				appendAnnotations(sb, param);
+			}
+			for (TypeMirror thrown : method.getThrownTypes()) {
+				sb.append(thrown).append('\n');
+			}
+		}
+	}
+
+	private static void appendAnnotations(StringBuilder sb, Element element) {
+		for (AnnotationMirror a : element.getAnnotationMirrors()) {
+			sb.append(a.getAnnotationType()).append(' ').append(a.getElementValues()).append('\n');
+		}
+	}
+
+	private static String hash(String s) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(s.getBytes("UTF-8"));
+			StringBuilder hex = new StringBuilder();
+			for (byte b : digest) {
+				hex.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException nsae) {
+			throw new RuntimeException(nsae);
+		} catch (UnsupportedEncodingException uee) {
+			throw new RuntimeException(uee);
+		}
+	}
+
+	private static class Entry {
+		private final String signature;
+		private final List<GClass> generated;
+
+		private Entry(String signature, List<GClass> generated) {
+			this.signature = signature;
+			this.generated = generated;
+		}
+	}
+
+}
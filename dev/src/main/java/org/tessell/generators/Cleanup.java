@@ -8,6 +8,7 @@ import joist.sourcegen.GClass;
 
 import org.apache.commons.io.FileUtils;
 
+/** Tracks which generated files are still needed, and deletes the rest; thread-safe so generators can run in parallel. */
 public class Cleanup {
 
   private final File outputDirectory;
@@ -17,7 +18,7 @@ public class Cleanup {
     this.outputDirectory = outputDirectory;
   }
 
-  public void watchPackage(String packageName) {
+  public synchronized void watchPackage(String packageName) {
     File packageDirectory = new File(outputDirectory, packageName.replace(".", File.separator));
     if (packageDirectory.exists()) {
       for (File file : FileUtils.listFiles(packageDirectory, null, true)) {
@@ -26,23 +27,25 @@ public class Cleanup {
     }
   }
 
-  public void markTypeOkay(String className) {
+  public synchronized void markTypeOkay(String className) {
     filesAssumedBad.remove(new File(outputDirectory, className.replace(".", File.separator) + ".java").getAbsolutePath());
   }
 
-  public void markOkay(File file) {
+  public synchronized void markOkay(File file) {
     filesAssumedBad.remove(file.getAbsolutePath());
   }
 
-  public void markOkay(GClass gc) {
+  public synchronized void markOkay(GClass gc) {
     filesAssumedBad.remove(new File(outputDirectory, gc.getFileName()).getAbsolutePath());
   }
 
-  public void deleteLeftOvers() {
+  public synchronized void deleteLeftOvers() {
     for (String bad : filesAssumedBad) {
       System.out.println("deleting " + bad);
       new File(bad).delete();
     }
+    // so we can be reused for the next run, e.g. in watch mode
+    filesAssumedBad.clear();
   }
 
 }
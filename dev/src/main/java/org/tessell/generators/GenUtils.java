@@ -2,6 +2,9 @@ package org.tessell.generators;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -12,6 +15,9 @@ import org.apache.commons.io.FileUtils;
 
 public class GenUtils {
 
+  // set by useDigests, so saveIfChanged can skip re-reading files
+  private static volatile OutputDigests digests;
+
   /** Hacky way of doing command args -> map. */
   public static Map<String, String> parseArgs(final String[] args) {
     final Map<String, String> settings = new HashMap<String, String>();
@@ -49,23 +55,78 @@ public class GenUtils {
     return Inflector.uncapitalize(Inflector.camelize(sb.toString()));
   }
 
+  /** @return a hex SHA-1 of {@code content}, for caches that need to be the same across machines (unlike mtimes) */
+  public static String hash(final String content) {
+    return hash(content.getBytes(Charset.forName("UTF-8")));
+  }
+
+  /** @return a hex SHA-1 of {@code file}'s content */
+  public static String hash(final File file) {
+    try {
+      return hash(FileUtils.readFileToByteArray(file));
+    } catch (IOException io) {
+      throw new RuntimeException(io);
+    }
+  }
+
+  private static String hash(final byte[] bytes) {
+    try {
+      final StringBuilder sb = new StringBuilder();
+      for (final byte b : MessageDigest.getInstance("SHA-1").digest(bytes)) {
+        sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Uses the digests stored in {@code outputDirectory} for {@link #saveIfChanged(File, String)},
+   * until {@link #saveDigests()}.
+   */
+  public static void useDigests(final File outputDirectory) {
+    digests = OutputDigests.loadOrCreate(outputDirectory);
+  }
+
+  /** Saves the digests of the files we've written, for the next run. */
+  public static void saveDigests() {
+    if (digests != null) {
+      digests.save();
+    }
+  }
+
   /** Saves {@code gc} to {@code outputDirectory} if needed. */
   public static void saveIfChanged(File outputDirectory, GClass gc) {
     File outputFile = new File(outputDirectory, gc.getFileName());
     saveIfChanged(outputFile, gc.toCode());
   }
 
-  /** Saves {@code newContent} to {@code outputFile} if needed. */
+  /**
+   * Saves {@code newContent} to {@code outputFile} if needed.
+   *
+   * Unchanged files aren't touched, so incremental javac/GWT builds don't recompile them.
+   * If we have a digest for the old file, we don't have to read it to compare.
+   */
   public static void saveIfChanged(File outputFile, String newContent) {
+    final OutputDigests d = digests;
+    final String newHash = hash(newContent);
+    String oldHash = d == null ? null : d.get(outputFile);
     try {
-      String oldContent = outputFile.exists() ? FileUtils.readFileToString(outputFile) : "";
-      if (!oldContent.equals(newContent)) {
+      if (oldHash == null && outputFile.exists()) {
+        // read with the same encoding we write with
+        oldHash = hash(FileUtils.readFileToString(outputFile));
+      }
+      if (!newHash.equals(oldHash)) {
         System.out.println(outputFile);
         FileUtils.writeStringToFile(outputFile, newContent);
       }
     } catch (IOException io) {
       throw new RuntimeException(io);
     }
+    if (d != null) {
+      d.put(outputFile, newHash);
+    }
   }
 
 }
@@ -1,8 +1,27 @@
 package org.tessell.generators;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 
+import org.tessell.generators.css.CssParseCache;
 import org.tessell.generators.resources.ResourcesGenerator;
 import org.tessell.generators.views.ViewGenerator;
 
@@ -12,10 +31,30 @@ import com.google.gwt.junit.GWTMockUtilities;
  * Front-end for resources and views generators.
  *
  * Both run quickly enough now that we can fire them off together.
+ *
+ * With {@code --watch true}, after the first run we stay running and regenerate as files
+ * are saved, which skips the JVM startup, reloading {@code viewgen.properties}, and rescanning
+ * the input directory each time. Only the changed {@code ui.xml} files are regenerated, and
+ * the resources package only if one of its files changed. Changes to {@code viewgen.properties}
+ * still need a restart.
  */
 public class Generator {
 
-  /** Args: {@code --inputDirectory src/main/java --viewsPackage com.app.views --resourcesPackage com.app.resources --outputDirectory target/gen}. */
+  private static final String[] resourceExtensions = { ".css", ".png", ".gif", ".jpg", ".bmp", ".htc", ".html", ".js" };
+  private final File input;
+  private final File output;
+  private final String viewsPackage;
+  private final String resourcesPackage;
+  private final Cleanup cleanup;
+  private final ViewGenerator views;
+  // the directories we're watching, so we can tell when one is deleted
+  private final Set<Path> watchedDirs = new HashSet<Path>();
+
+  /**
+   * Args: {@code --inputDirectory src/main/java --viewsPackage com.app.views --resourcesPackage com.app.resources --outputDirectory target/gen}.
+   *
+   * Optionally {@code --parallelism 4} to generate that many views at once, and {@code --watch true} to keep running.
+   */
   public static void main(final String[] args) throws Exception {
     // We use reflection to get at annotations of our widget subclasses,
     // but that wanders into UIObject, which has a static clinit call
@@ -25,27 +64,182 @@ public class Generator {
     long start = System.currentTimeMillis();
 
     final Map<String, String> settings = GenUtils.parseArgs(args);
-    final File input = new File(settings.get("inputDirectory"));
-    final File output = new File(settings.get("outputDirectory"));
+    final Generator g = new Generator(settings);
+    g.generate();
 
-    final Cleanup cleanup = new Cleanup(output);
+    long end = System.currentTimeMillis();
+    System.out.println("Done " + (end - start) + "ms");
 
-    final String viewsPackage = settings.get("viewsPackageName");
+    if ("true".equals(settings.get("watch"))) {
+      g.watch();
+    }
+  }
+
+  public Generator(final Map<String, String> settings) {
+    input = new File(settings.get("inputDirectory")).getAbsoluteFile();
+    output = new File(settings.get("outputDirectory")).getAbsoluteFile();
+    viewsPackage = settings.get("viewsPackageName");
+    resourcesPackage = settings.get("resourcesPackageName");
+    cleanup = new Cleanup(output);
+    GenUtils.useDigests(output);
     if (viewsPackage != null) {
-      cleanup.watchPackage(viewsPackage);
-      new ViewGenerator(input, viewsPackage, output, cleanup).generate();
+      views = new ViewGenerator(input, viewsPackage, output, cleanup);
+      if (settings.get("parallelism") != null) {
+        views.setParallelism(Integer.parseInt(settings.get("parallelism")));
+      }
+    } else {
+      views = null;
     }
+  }
 
-    final String resourcesPackage = settings.get("resourcesPackageName");
+  /** Generates everything. */
+  public void generate() throws Exception {
+    if (views != null) {
+      cleanup.watchPackage(viewsPackage);
+      views.generate();
+    }
     if (resourcesPackage != null) {
-      cleanup.watchPackage(resourcesPackage);
-      new ResourcesGenerator(input, cleanup, resourcesPackage, output).run();
+      generateResources();
     }
+    cleanup.deleteLeftOvers();
+    GenUtils.saveDigests();
+    CssParseCache.saveAll();
+  }
 
+  /** Regenerates whatever depends on the {@code changed} files, which may have been added, modified, or deleted. */
+  public void generate(final Set<File> changed) throws Exception {
+    final List<File> uiXmls = new ArrayList<File>();
+    boolean resourcesChanged = false;
+    for (final File file : changed) {
+      if (file.getName().endsWith(".ui.xml")) {
+        uiXmls.add(file);
+      } else if (isResource(file)) {
+        System.out.println(file);
+        resourcesChanged = true;
+      }
+    }
+    if (views != null && !uiXmls.isEmpty()) {
+      cleanup.watchPackage(viewsPackage);
+      views.generate(uiXmls);
+    }
+    if (resourcesChanged) {
+      generateResources();
+    }
     cleanup.deleteLeftOvers();
+    GenUtils.saveDigests();
+    CssParseCache.saveAll();
+  }
 
-    long end = System.currentTimeMillis();
-    System.out.println("Done " + (end - start) + "ms");
+  /** Watches the input directory, and regenerates as files change, until we're killed. */
+  public void watch() throws Exception {
+    final WatchService watcher = FileSystems.getDefault().newWatchService();
+    register(watcher, input.toPath());
+    System.out.println("Watching " + input);
+    while (true) {
+      WatchKey key = watcher.take();
+      final Set<File> changed = new TreeSet<File>();
+      boolean overflowed = false;
+      // editors often save as several events (e.g. write + rename), so wait for them to settle
+      while (key != null) {
+        overflowed |= drain(watcher, key, changed);
+        key = watcher.poll(50, TimeUnit.MILLISECONDS);
+      }
+      if (changed.isEmpty() && !overflowed) {
+        continue;
+      }
+      final long start = System.currentTimeMillis();
+      try {
+        if (overflowed) {
+          generate();
+        } else {
+          generate(changed);
+        }
+        System.out.println("Done " + (System.currentTimeMillis() - start) + "ms");
+      } catch (Exception e) {
+        // keep watching, so the user can fix whatever was wrong with the file
+        e.printStackTrace();
+      }
+    }
+  }
+
+  private void generateResources() throws Exception {
+    final long start = System.currentTimeMillis();
+    cleanup.watchPackage(resourcesPackage);
+    new ResourcesGenerator(input, cleanup, resourcesPackage, output).run();
+    System.out.println(resourcesPackage + " " + (System.currentTimeMillis() - start) + "ms");
+  }
+
+  /** Adds the files from {@code key}'s events to {@code changed}, and starts watching new directories. */
+  private boolean drain(final WatchService watcher, final WatchKey key, final Set<File> changed) throws IOException {
+    boolean overflowed = false;
+    final Path dir = (Path) key.watchable();
+    for (final WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        overflowed = true;
+        continue;
+      }
+      final Path path = dir.resolve((Path) event.context());
+      if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+        register(watcher, path);
+        // files may have been added before we started watching the new directory
+        overflowed = true;
+      } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && unregister(path)) {
+        // we don't get events for the files that were in the directory, so we can't tell which views went away
+        overflowed = true;
+      } else {
+        changed.add(path.toFile());
+      }
+    }
+    key.reset();
+    return overflowed;
+  }
+
+  /** Forgets {@code path} and its subdirectories, if it was a directory we were watching. */
+  private boolean unregister(final Path path) {
+    boolean wasWatched = false;
+    for (final Iterator<Path> i = watchedDirs.iterator(); i.hasNext();) {
+      if (i.next().startsWith(path)) {
+        i.remove();
+        wasWatched = true;
+      }
+    }
+    return wasWatched;
+  }
+
+  /** Watches {@code root} and its subdirectories, except for our output, so we don't react to our own files. */
+  private void register(final WatchService watcher, final Path root) throws IOException {
+    final Path outputPath = output.toPath();
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+        if (dir.startsWith(outputPath)) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        dir.register(
+          watcher,
+          StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_MODIFY,
+          StandardWatchEventKinds.ENTRY_DELETE);
+        watchedDirs.add(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private boolean isResource(final File file) {
+    if (resourcesPackage == null) {
+      return false;
+    }
+    final File packageDirectory = new File(input, resourcesPackage.replace(".", File.separator));
+    if (!file.getAbsolutePath().startsWith(packageDirectory.getAbsolutePath() + File.separator)) {
+      return false;
+    }
+    for (final String extension : resourceExtensions) {
+      if (file.getName().endsWith(extension)) {
+        return true;
+      }
+    }
+    return false;
   }
 
 }
@@ -0,0 +1,97 @@
+package org.tessell.generators;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Remembers the hash of each file we generate, so {@link GenUtils#saveIfChanged(File, String)}
+ * can tell if new output is unchanged without re-reading the old file.
+ *
+ * A digest is only trusted if the file still has the length and mtime we wrote it with;
+ * otherwise (e.g. it was edited by hand, or the digests came from another machine) we
+ * fall back on hashing the file itself.
+ *
+ * Thread-safe, so files can be generated in parallel.
+ */
+public class OutputDigests {
+
+  private static final String fileName = ".outputDigests";
+  private final File directory;
+  private final Map<String, Digest> digests = new TreeMap<String, Digest>();
+
+  public static OutputDigests loadOrCreate(final File directory) {
+    final OutputDigests d = new OutputDigests(directory);
+    final File file = new File(directory, fileName);
+    if (file.exists()) {
+      try {
+        for (final String line : FileUtils.readLines(file)) {
+          // hash length lastModified path, with the path last since it could have spaces
+          final String[] parts = line.split(" ", 4);
+          d.digests.put(parts[3], new Digest(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return d;
+  }
+
+  private OutputDigests(final File directory) {
+    this.directory = directory.getAbsoluteFile();
+  }
+
+  /** @return the hash {@code file} was written with, or {@code null} if we don't know or it's changed since */
+  public synchronized String get(final File file) {
+    final Digest d = digests.get(key(file));
+    if (d == null || file.length() != d.length || file.lastModified() != d.lastModified) {
+      return null;
+    }
+    return d.hash;
+  }
+
+  /** Records that {@code file} now has the content for {@code hash}. */
+  public synchronized void put(final File file, final String hash) {
+    digests.put(key(file), new Digest(hash, file.length(), file.lastModified()));
+  }
+
+  /** Saves the digests, dropping files that have since been deleted. */
+  public synchronized void save() {
+    final List<String> lines = new ArrayList<String>();
+    for (final Map.Entry<String, Digest> e : digests.entrySet()) {
+      if (new File(directory, e.getKey()).exists()) {
+        final Digest d = e.getValue();
+        lines.add(d.hash + " " + d.length + " " + d.lastModified + " " + e.getKey());
+      }
+    }
+    try {
+      FileUtils.writeLines(new File(directory, fileName), lines);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private String key(final File file) {
+    final String path = file.getAbsolutePath();
+    final String prefix = directory.getPath() + File.separator;
+    return path.startsWith(prefix) ? path.substring(prefix.length()) : path;
+  }
+
+  private static class Digest {
+    private final String hash;
+    private final long length;
+    private final long lastModified;
+
+    private Digest(final String hash, final long length, final long lastModified) {
+      this.hash = hash;
+      this.length = length;
+      this.lastModified = lastModified;
+    }
+  }
+
+}
@@ -37,7 +37,6 @@ import com.google.gwt.resources.css.GenerateCssAst;
 import com.google.gwt.resources.css.InterfaceGenerator;
 import com.google.gwt.resources.css.ast.Context;
 import com.google.gwt.resources.css.ast.CssDef;
-import com.google.gwt.resources.css.ast.CssProperty.Value;
 import com.google.gwt.resources.css.ast.CssStylesheet;
 import com.google.gwt.resources.css.ast.CssVisitor;
 
@@ -54,16 +53,25 @@ public class AbstractCssGenerator {
   private final File outputDirectory;
   private final Cleanup cleanup;
   private final Map<String, String> classToMethod = new TreeMap<String, String>(CSS_CLASS_COMPARATOR);
-  private final Map<String, Value> defs = new TreeMap<String, Value>();
+  private final Map<String, String> defs = new TreeMap<String, String>();
 
   protected AbstractCssGenerator(File inputFile, final File outputDirectory, final Cleanup cleanup) {
     this.inputFile = inputFile;
     this.outputDirectory = outputDirectory;
     this.cleanup = cleanup;
-    lazyInitStaticLogWriter();
-    CssStylesheet sheet = parseFile();
-    extractClassNames(sheet);
-    extractDefs(sheet);
+    final CssParseCache cache = CssParseCache.forDirectory(outputDirectory);
+    final String hash = GenUtils.hash(inputFile);
+    final Map<String, String> cachedClassToMethod = cache.getClassNameToMethodName(hash);
+    if (cachedClassToMethod != null) {
+      classToMethod.putAll(cachedClassToMethod);
+      defs.putAll(cache.getDefs(hash));
+    } else {
+      lazyInitStaticLogWriter(outputDirectory);
+      CssStylesheet sheet = parseFile();
+      extractClassNames(sheet);
+      extractDefs(sheet);
+      cache.put(hash, classToMethod, defs);
+    }
   }
 
   /** @return a sorted map of class name -> method name for {@code inputFile} */
@@ -71,12 +79,12 @@ public class AbstractCssGenerator {
     return classToMethod;
   }
 
-  /** @return a sorted list of defs. */
-  protected Map<String, Value> getDefs() {
+  /** @return a sorted map of def name -> the def's first value. */
+  protected Map<String, String> getDefs() {
     return defs;
   }
 
-  private void lazyInitStaticLogWriter() {
+  private static synchronized void lazyInitStaticLogWriter(final File outputDirectory) {
     if (logWriter == null) {
       try {
         logWriter = new PrintWriter(new File(outputDirectory, ".cssGenerator.log"));
@@ -108,7 +116,7 @@ public class AbstractCssGenerator {
       @Override
       public void endVisit(CssDef x, Context ctx) {
         if (x.getValues().size() > 0) {
-          defs.put(x.getKey(), x.getValues().get(0));
+          defs.put(x.getKey(), x.getValues().get(0).toString());
         }
       }
     }.accept(sheet);
@@ -11,7 +11,6 @@ import org.tessell.generators.Cleanup;
 
 import com.google.gwt.core.ext.Generator;
 import com.google.gwt.resources.client.CssResource;
-import com.google.gwt.resources.css.ast.CssProperty.Value;
 
 /** A utility class for creating a Java interface declaration for a given CSS file. */
 public class CssGenerator extends AbstractCssGenerator {
@@ -40,9 +39,9 @@ public class CssGenerator extends AbstractCssGenerator {
         m.addAnnotation("@ClassName(\"{}\")", Generator.escape(className));
       }
     }
-    for (final Map.Entry<String, Value> def : getDefs().entrySet()) {
+    for (final Map.Entry<String, String> def : getDefs().entrySet()) {
       // need stricter matching
-      if (def.getValue().toString().endsWith("px")) {
+      if (def.getValue().endsWith("px")) {
         cssInterface.getMethod(def.getKey()).returnType(int.class);
       }
     }
@@ -0,0 +1,140 @@
+package org.tessell.generators.css;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Caches what {@link AbstractCssGenerator} extracts from each stylesheet, keyed by the
+ * stylesheet's content hash.
+ *
+ * Parsing css with GWT's {@code GenerateCssAst} is the slow part of generating css
+ * interfaces, and every stylesheet is used by both a {@link CssGenerator} and a
+ * {@link CssStubGenerator}, so this way each stylesheet is parsed at most once per run,
+ * and not at all if it hasn't changed since the last run.
+ *
+ * Thread-safe, so files can be generated in parallel.
+ */
+public class CssParseCache {
+
+  private static final int cacheVersion = 1;
+  private static final Map<File, CssParseCache> caches = new HashMap<File, CssParseCache>();
+  private final File file;
+  private final Map<String, Parsed> entries = new LinkedHashMap<String, Parsed>();
+  // the stylesheets we've seen since loading, so we can drop ones that have since changed or been deleted
+  private final Set<String> used = new HashSet<String>();
+  private boolean dirty;
+
+  /** @return the cache stored in {@code outputDirectory}, loading it on first use */
+  public static synchronized CssParseCache forDirectory(final File outputDirectory) {
+    final File file = new File(outputDirectory.getAbsoluteFile(), ".cssGenerator." + cacheVersion + ".cache");
+    CssParseCache cache = caches.get(file);
+    if (cache == null) {
+      cache = new CssParseCache(file);
+      caches.put(file, cache);
+    }
+    return cache;
+  }
+
+  /** Saves any caches that have changed, for the next run. */
+  public static synchronized void saveAll() {
+    for (final CssParseCache cache : caches.values()) {
+      cache.save();
+    }
+  }
+
+  private CssParseCache(final File file) {
+    this.file = file;
+    if (file.exists()) {
+      try {
+        // each line is "hash c className methodName" or "hash d defName value", or "hash -" for an empty stylesheet
+        for (final String line : FileUtils.readLines(file)) {
+          final String[] parts = line.split(" ", 4);
+          final Parsed p = getOrCreate(parts[0]);
+          if (parts[1].equals("c")) {
+            p.classToMethod.put(parts[2], parts[3]);
+          } else if (parts[1].equals("d")) {
+            p.defs.put(parts[2], parts[3]);
+          }
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  /** @return the class name -> method name map for the stylesheet with {@code hash}, or {@code null} */
+  public synchronized Map<String, String> getClassNameToMethodName(final String hash) {
+    final Parsed p = entries.get(hash);
+    if (p != null) {
+      used.add(hash);
+    }
+    return p == null ? null : p.classToMethod;
+  }
+
+  /** @return the def name -> value map for the stylesheet with {@code hash}, or {@code null} */
+  public synchronized Map<String, String> getDefs(final String hash) {
+    final Parsed p = entries.get(hash);
+    return p == null ? null : p.defs;
+  }
+
+  public synchronized void put(final String hash, final Map<String, String> classToMethod, final Map<String, String> defs) {
+    used.add(hash);
+    // if another thread parsed the same stylesheet first, leave its maps alone, since they may be being read
+    if (entries.containsKey(hash)) {
+      return;
+    }
+    final Parsed p = getOrCreate(hash);
+    p.classToMethod.putAll(classToMethod);
+    p.defs.putAll(defs);
+    dirty = true;
+  }
+
+  private Parsed getOrCreate(final String hash) {
+    Parsed p = entries.get(hash);
+    if (p == null) {
+      p = new Parsed();
+      entries.put(hash, p);
+    }
+    return p;
+  }
+
+  private synchronized void save() {
+    if (!dirty && used.size() == entries.size()) {
+      return;
+    }
+    entries.keySet().retainAll(used);
+    final List<String> lines = new ArrayList<String>();
+    for (final Map.Entry<String, Parsed> e : entries.entrySet()) {
+      final String hash = e.getKey();
+      lines.add(hash + " -");
+      for (final Map.Entry<String, String> c : e.getValue().classToMethod.entrySet()) {
+        lines.add(hash + " c " + c.getKey() + " " + c.getValue());
+      }
+      for (final Map.Entry<String, String> d : e.getValue().defs.entrySet()) {
+        lines.add(hash + " d " + d.getKey() + " " + d.getValue());
+      }
+    }
+    try {
+      FileUtils.writeLines(file, lines);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    dirty = false;
+  }
+
+  /** What we extracted from one stylesheet. */
+  private static class Parsed {
+    private final Map<String, String> classToMethod = new LinkedHashMap<String, String>();
+    private final Map<String, String> defs = new LinkedHashMap<String, String>();
+  }
+
+}
@@ -11,7 +11,6 @@ import joist.sourcegen.GClass;
 
 import org.tessell.generators.Cleanup;
 
-import com.google.gwt.resources.css.ast.CssProperty.Value;
 
 /** A utility class for creating a Java stub class for a given CSS file. */
 public class CssStubGenerator extends AbstractCssGenerator {
@@ -45,10 +44,10 @@ public class CssStubGenerator extends AbstractCssGenerator {
       }
       cssStub.getMethod(methodName).returnType(String.class).body.line("return \"{}\";", methodName);
     }
-    for (final Map.Entry<String, Value> def : getDefs().entrySet()) {
+    for (final Map.Entry<String, String> def : getDefs().entrySet()) {
       // need stricter matching
-      if (def.getValue().toString().endsWith("px")) {
-        cssStub.getMethod(def.getKey()).returnType(int.class).body.line("return {};", def.getValue().toString().replace("px", ""));
+      if (def.getValue().endsWith("px")) {
+        cssStub.getMethod(def.getKey()).returnType(int.class).body.line("return {};", def.getValue().replace("px", ""));
       }
     }
 
@@ -10,6 +10,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -17,8 +18,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.TreeSet;
 
 import org.apache.commons.io.IOUtils;
+import org.tessell.generators.GenUtils;
 import org.tessell.gwt.dom.client.IsElement;
 import org.tessell.gwt.dom.client.StubElement;
 
@@ -64,8 +67,18 @@ public class Config {
     return t;
   }
 
-  public String getViewgenTimestamp() {
-    return Integer.toString(typeToInterface.hashCode() + typeToStub.hashCode() + stubToCstrParams.hashCode());
+  /**
+   * @return a hash of just the mappings for {@code types}, so a view is only regenerated
+   * when {@code viewgen.properties} changes for a type it actually uses
+   */
+  public String hashFor(final Collection<String> types) {
+    final StringBuilder sb = new StringBuilder();
+    for (final String type : new TreeSet<String>(types)) {
+      final String stub = typeToStub.get(type);
+      sb.append(type).append("=").append(typeToInterface.get(type)).append(",").append(stub);
+      sb.append(stubToCstrParams.get(stub)).append("\n");
+    }
+    return GenUtils.hash(sb.toString());
   }
 
   private void loadViewGenDotProperties() {
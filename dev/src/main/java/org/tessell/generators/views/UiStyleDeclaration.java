@@ -7,6 +7,7 @@ import java.io.File;
 import java.io.IOException;
 
 import org.apache.commons.io.FileUtils;
+import org.tessell.generators.GenUtils;
 
 /** A DTO for {@code ui:style} declarations. */
 class UiStyleDeclaration {
@@ -35,6 +36,11 @@ class UiStyleDeclaration {
     return cssFile;
   }
 
+  /** @return a hash of our css, to tell if the css classes need regenerating */
+  String getCssHash() {
+    return GenUtils.hash(css);
+  }
+
   public String getStubClassName() {
     final String packageName = substringBeforeLast(type, ".");
     final String simpleName = substringAfterLast(type, ".");
@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import joist.util.Join;
 
@@ -18,25 +19,31 @@ import org.apache.commons.io.FileUtils;
 /**
  * Caches the "ui:with" types of {@code ui.xml} files between {@code ViewGenerator}
  * runs so that we don't have to re-parse each file every time.
+ *
+ * Each entry also has the content hashes that its output depends on:
+ *
+ * - the {@code ui.xml} file itself,
+ * - each {@code ui:style}'s css, so an unchanged style isn't re-parsed, and
+ * - the {@code viewgen.properties} mappings for the types of its {@code ui:field}s,
+ *   so changing one mapping only regenerates the views that use it.
+ *
+ * Since entries are keyed by the path relative to the input directory, and don't use
+ * mtimes, the cache can be shared across machines, e.g. restored on a fresh CI checkout.
+ *
+ * Thread-safe, so files can be generated in parallel.
  */
 public class UiXmlCache {
 
-  private static final int cacheVersion = 10;
-  private static final String viewgenTimestampKey = "viewgenTimestamp";
+  private static final int cacheVersion = 11;
   private final Map<String, Entry> entries = new HashMap<String, Entry>();
-  private String viewgenTimestamp;
 
   public static UiXmlCache loadOrCreate(final File outputDirectory) {
     UiXmlCache c = new UiXmlCache();
     if (cache(outputDirectory).exists()) {
       try {
         for (String line : FileUtils.readLines(cache(outputDirectory))) {
-          if (line.startsWith(viewgenTimestampKey)) {
-            c.viewgenTimestamp = line.split("=")[1];
-          } else {
-            Entry e = new Entry(line);
-            c.entries.put(e.uiXmlFileName, e);
-          }
+          Entry e = new Entry(line);
+          c.entries.put(e.uiXmlFileName, e);
         }
       } catch (IOException e) {
         throw new RuntimeException(e);
@@ -52,54 +59,62 @@ public class UiXmlCache {
   private UiXmlCache() {
   }
 
-  /** @return whether we have an entry for {@code uiXmlFile} */
-  public boolean has(UiXmlFile uiXml) {
-    return entries.keySet().contains(uiXml.getPath());
+  /** @return whether {@code uiXml}'s output was generated from its current content and config, and is still there */
+  public synchronized boolean isUpToDate(UiXmlFile uiXml, Config config) {
+    final Entry e = entries.get(uiXml.getCacheKey());
+    return e != null
+      && e.hash.equals(uiXml.getHash())
+      && e.configHash.equals(config.hashFor(e.fieldTypes))
+      && uiXml.hasOutputs(e.styles);
   }
 
   /** Updates the {@code uiXmlFile} entry with {@code withTypes}. */
-  public void update(UiXmlFile uiXml) {
-    entries.put(uiXml.getPath(), new Entry(//
-      uiXml.getPath(),
+  public synchronized void update(UiXmlFile uiXml, Config config) {
+    final List<String> fieldTypes = uiXml.getFieldTypes();
+    entries.put(uiXml.getCacheKey(), new Entry(//
+      uiXml.getCacheKey(),
+      uiXml.getHash(),
       uiXml.getFreshWiths(),
       uiXml.getFreshStyles(),
-      uiXml.getStubDependencies()));
+      uiXml.getStubDependencies(),
+      fieldTypes,
+      config.hashFor(fieldTypes)));
   }
 
   /** @return the {@code ui:with} declarations for {@code uiXml}. */
-  public List<UiWithDeclaration> getCachedWiths(UiXmlFile uiXml) {
-    return entries.get(uiXml.getPath()).withs;
+  public synchronized List<UiWithDeclaration> getCachedWiths(UiXmlFile uiXml) {
+    return entries.get(uiXml.getCacheKey()).withs;
   }
 
   /** @return the {@code ui:style} declarations for {@code uiXml}. */
-  public List<UiStyleDeclaration> getCachedStyles(UiXmlFile uiXml) {
-    return entries.get(uiXml.getPath()).styles;
+  public synchronized List<UiStyleDeclaration> getCachedStyles(UiXmlFile uiXml) {
+    return entries.get(uiXml.getCacheKey()).styles;
   }
 
   /** @return the stub dependencies for {@code uiXml}. */
-  public List<String> getCachedStubDependencies(UiXmlFile uiXml) {
-    return entries.get(uiXml.getPath()).stubDependencies;
+  public synchronized List<String> getCachedStubDependencies(UiXmlFile uiXml) {
+    return entries.get(uiXml.getCacheKey()).stubDependencies;
+  }
+
+  /** @return the hash of the css that {@code style}'s output was last generated from, or {@code null} */
+  public synchronized String getCachedCssHash(UiXmlFile uiXml, UiStyleDeclaration style) {
+    final Entry e = entries.get(uiXml.getCacheKey());
+    return e == null ? null : e.cssHashes.get(style.type);
   }
 
   /** Saves the cache to the file system for loading next time. */
-  public void save(File outputDirectory, String viewgenTimestamp) {
+  public synchronized void save(File outputDirectory) {
     try {
-      List<String> lines = entriesToLines();
-      lines.add(viewgenTimestampKey + "=" + viewgenTimestamp);
-      FileUtils.writeLines(cache(outputDirectory), lines);
+      FileUtils.writeLines(cache(outputDirectory), entriesToLines());
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
-  public String getViewgenTimestamp() {
-    return viewgenTimestamp;
-  }
-
-  /** @return the cache entries as a list of lines. */
+  /** @return the cache entries as a list of lines, sorted so the file is the same regardless of generation order. */
   private List<String> entriesToLines() {
     List<String> lines = new ArrayList<String>();
-    for (Entry e : entries.values()) {
+    for (Entry e : new TreeMap<String, Entry>(entries).values()) {
       lines.add(e.toLine());
     }
     return lines;
@@ -109,40 +124,64 @@ public class UiXmlCache {
   private static class Entry {
     // each entry is serialized to 1 line in the cache file, comma separated into a String[]
     private final String uiXmlFileName;
+    private final String hash;
     private final ArrayList<UiWithDeclaration> withs = new ArrayList<UiWithDeclaration>();
     private final ArrayList<UiStyleDeclaration> styles = new ArrayList<UiStyleDeclaration>();
+    private final Map<String, String> cssHashes = new HashMap<String, String>();
     private final ArrayList<String> stubDependencies = new ArrayList<String>();
+    private final ArrayList<String> fieldTypes = new ArrayList<String>();
+    private final String configHash;
 
     /** Make a new entry from the cached line. */
     private Entry(String line) {
       final String[] parts = splitPreserveAllTokens(line, ";");
       uiXmlFileName = parts[0];
+      hash = parts[1];
       // parse out ui:withs
-      if (parts[1].length() > 0) {
-        for (String with : parts[1].split(",")) {
+      if (parts[2].length() > 0) {
+        for (String with : parts[2].split(",")) {
           String[] wp = with.split(" ");
           withs.add(new UiWithDeclaration(wp[0], wp[1]));
         }
       }
-      // parse out ui:styles
-      if (parts[2].length() > 0) {
-        for (String style : parts[2].split(",")) {
+      // parse out ui:styles, with their css hashes
+      if (parts[3].length() > 0) {
+        for (String style : parts[3].split(",")) {
           String[] sp = style.split(" ");
           styles.add(new UiStyleDeclaration(sp[0], sp[1]));
+          cssHashes.put(sp[0], sp[2]);
         }
       }
       // parse out stub dependencies
-      if (parts[3].length() > 0) {
-        stubDependencies.addAll(Arrays.asList(parts[3]));
+      if (parts[4].length() > 0) {
+        stubDependencies.addAll(Arrays.asList(parts[4].split(",")));
       }
+      // parse out the ui:field types, which are our dependencies on viewgen.properties
+      if (parts[5].length() > 0) {
+        fieldTypes.addAll(Arrays.asList(parts[5].split(",")));
+      }
+      configHash = parts[6];
     }
 
-    /** Make a new entry from a new {@code ui.xml} file with its {@code ui:with} types. */
-    private Entry(String uiXmlFileName, List<UiWithDeclaration> withs, List<UiStyleDeclaration> styles, List<String> stubDependencies) {
+    /** Make a new entry from a newly-parsed {@code ui.xml} file. */
+    private Entry(
+      String uiXmlFileName,
+      String hash,
+      List<UiWithDeclaration> withs,
+      List<UiStyleDeclaration> styles,
+      List<String> stubDependencies,
+      List<String> fieldTypes,
+      String configHash) {
       this.uiXmlFileName = uiXmlFileName;
+      this.hash = hash;
       this.withs.addAll(withs);
       this.styles.addAll(styles);
+      for (UiStyleDeclaration style : styles) {
+        cssHashes.put(style.type, style.getCssHash());
+      }
       this.stubDependencies.addAll(stubDependencies);
+      this.fieldTypes.addAll(fieldTypes);
+      this.configHash = configHash;
     }
 
     private String toLine() {
@@ -152,13 +191,16 @@ public class UiXmlCache {
       }
       final List<String> styleStrings = new ArrayList<String>();
       for (final UiStyleDeclaration style : styles) {
-        styleStrings.add(style.type + " " + style.name);
+        styleStrings.add(style.type + " " + style.name + " " + cssHashes.get(style.type));
       }
       final String p0 = uiXmlFileName;
-      final String p1 = Join.comma(withStrings);
-      final String p2 = Join.comma(styleStrings);
-      final String p3 = Join.comma(stubDependencies);
-      return join(new String[] { p0, p1, p2, p3 }, ";");
+      final String p1 = hash;
+      final String p2 = Join.comma(withStrings);
+      final String p3 = Join.comma(styleStrings);
+      final String p4 = Join.comma(stubDependencies);
+      final String p5 = Join.comma(fieldTypes);
+      final String p6 = configHash;
+      return join(new String[] { p0, p1, p2, p3, p4, p5, p6 }, ";");
     }
   }
 
@@ -49,6 +49,7 @@ class UiXmlFile {
 
   // the handler is only created if we have to parser the ui.xml file
   private UiXmlHandler handler;
+  private String hash;
 
   UiXmlFile(ViewGenerator viewGenerator, final File uiXml) {
     this.viewGenerator = viewGenerator;
@@ -63,19 +64,40 @@ class UiXmlFile {
     stubView = new GClass(packageName + ".Stub" + baseName);
   }
 
-  /** @return whether the {@code ui.xml} file is newer than the last {@code IsXxx} output. */
-  public boolean hasChanged() {
-    File isFile = new File(viewGenerator.output, isView.getFileName());
-    if (!isFile.exists()) {
-      return true;
+  /** @return the path relative to the input directory, so the cache works across machines */
+  String getCacheKey() {
+    return uiXml.getAbsolutePath().replace(viewGenerator.input.getPath() + File.separator, "").replace(File.separatorChar, '/');
+  }
+
+  /** @return the hash of the {@code ui.xml} file's content */
+  String getHash() {
+    if (hash == null) {
+      hash = GenUtils.hash(uiXml);
     }
-    return uiXml.lastModified() > isFile.lastModified();
+    return hash;
+  }
+
+  /** @return whether all of our output files, including for {@code styles}, exist */
+  boolean hasOutputs(final List<UiStyleDeclaration> styles) {
+    final List<String> files = new ArrayList<String>();
+    files.add(isView.getFileName());
+    files.add(gwtView.getFileName());
+    files.add(stubView.getFileName());
+    for (final UiStyleDeclaration style : styles) {
+      files.add(style.type.replace('.', '/') + ".java");
+      files.add(style.getStubClassName().replace('.', '/') + ".java");
+    }
+    for (final String file : files) {
+      if (!new File(viewGenerator.output, file).exists()) {
+        return false;
+      }
+    }
+    return uiXmlCopy.exists();
   }
 
   public void generate() throws Exception {
-    System.out.println(uiXml);
     handler = new UiXmlHandler();
-    viewGenerator.parser.parse(uiXml, handler);
+    viewGenerator.parser().parse(uiXml, handler);
 
     generateIsView();
     generateGwtView();
@@ -103,7 +125,7 @@ class UiXmlFile {
     // extra ensureDebugIdSuffix
     isView.getMethod("ensureDebugIdSuffix", arg("String", "suffix"));
 
-    viewGenerator.markAndSave(isView);
+    viewGenerator.markAndSaveIfChanged(isView);
   }
 
   private void generateGwtView() throws Exception {
@@ -148,7 +170,9 @@ class UiXmlFile {
       gwtView.getField(style.name).type(style.type).setAccess(Access.PACKAGE).addAnnotation("@UiField");
       gwtView.getMethod(style.name).returnType(style.type).body.line("return {};", style.name);
       gwtView.addImports(UiField.class);
-      new CssGenerator(style.getCssInFile(), viewGenerator.cleanup, style.type, viewGenerator.output).run();
+      if (hasCssChanged(style)) {
+        new CssGenerator(style.getCssInFile(), viewGenerator.cleanup, style.type, viewGenerator.output).run();
+      }
     }
 
     // for each ui:field, make @UiField (usually provided=true) and getter methods
@@ -196,7 +220,7 @@ class UiXmlFile {
     GMethod getIsParent = gwtView.getMethod("getIsParent").returnType(IsWidget.class).addAnnotation("@Override");
     getIsParent.body.line("return (IsWidget) getParent();");
 
-    viewGenerator.markAndSave(gwtView);
+    viewGenerator.markAndSaveIfChanged(gwtView);
   }
 
   private void generateStubView() throws Exception {
@@ -259,9 +283,10 @@ class UiXmlFile {
 
     // for each ui:style, make @UiField fields, getter method, plus StubCss class
     for (final UiStyleDeclaration style : handler.styleFields) {
-      CssStubGenerator g = new CssStubGenerator(style.getCssInFile(), viewGenerator.cleanup, style.type, viewGenerator.output);
-      g.run();
-      stubView.getField(style.name).type(style.type).setFinal().initialValue("new {}()", g.getCssStubClassName());
+      if (hasCssChanged(style)) {
+        new CssStubGenerator(style.getCssInFile(), viewGenerator.cleanup, style.type, viewGenerator.output).run();
+      }
+      stubView.getField(style.name).type(style.type).setFinal().initialValue("new {}()", style.getStubClassName());
       stubView.getMethod(style.name).returnType(style.type).body.line("return {};", style.name);
     }
 
@@ -270,11 +295,30 @@ class UiXmlFile {
     stubView.getMethod("ensureDebugIdSuffix", arg("String", "suffix")).addAnnotation("@Override").body //
       .line("ensureDebugId(\"{}-\" + suffix);", viewDebugId);
 
-    viewGenerator.markAndSave(stubView);
+    viewGenerator.markAndSaveIfChanged(stubView);
+  }
+
+  File getFile() {
+    return uiXml;
   }
 
-  String getPath() {
-    return uiXml.getPath();
+  /** @return the types of our ui:fields, which are what we use from {@code viewgen.properties} */
+  List<String> getFieldTypes() {
+    final Set<String> types = new TreeSet<String>();
+    for (final UiFieldDeclaration field : handler.uiFields) {
+      types.add(field.type);
+    }
+    return new ArrayList<String>(types);
+  }
+
+  /** @return whether {@code style}'s css is different than when we last generated its classes, which aren't cheap to parse */
+  private boolean hasCssChanged(final UiStyleDeclaration style) {
+    if (!style.getCssHash().equals(viewGenerator.cache.getCachedCssHash(this, style))) {
+      return true;
+    }
+    final File cssInterface = new File(viewGenerator.output, style.type.replace('.', '/') + ".java");
+    final File cssStub = new File(viewGenerator.output, style.getStubClassName().replace('.', '/') + ".java");
+    return !cssInterface.exists() || !cssStub.exists();
   }
 
   /** @return the ui:with fields, if we parsed the file. */
@@ -3,12 +3,18 @@ package org.tessell.generators.views;
 import static joist.sourcegen.Argument.arg;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -30,12 +36,24 @@ public class ViewGenerator {
 
   private final String packageName;
   private final List<UiXmlFile> uiXmlFiles = new ArrayList<UiXmlFile>();
-  private final UiXmlCache cache;
+  final UiXmlCache cache;
   final File input;
   final File output;
   final Cleanup cleanup;
   final Config config = new Config();
-  final SAXParser parser;
+  // SAXParsers aren't thread-safe, so each worker gets its own
+  private final ThreadLocal<SAXParser> parsers = new ThreadLocal<SAXParser>() {
+    protected SAXParser initialValue() {
+      return makeNewParser();
+    }
+  };
+  private int parallelism = 1;
+  // sort by path, so the aggregate classes don't depend on the file system's order, or on which files were added later
+  private static final Comparator<UiXmlFile> byPath = new Comparator<UiXmlFile>() {
+    public int compare(final UiXmlFile a, final UiXmlFile b) {
+      return a.getCacheKey().compareTo(b.getCacheKey());
+    }
+  };
 
   public ViewGenerator(final File inputDirectory, final String packageName, final File outputDirectory, final Cleanup cleanup) {
     input = inputDirectory.getAbsoluteFile();
@@ -43,24 +61,67 @@ public class ViewGenerator {
     cache = UiXmlCache.loadOrCreate(output);
     this.packageName = packageName;
     this.cleanup = cleanup;
-    parser = makeNewParser();
   }
 
+  /**
+   * Generates up to {@code parallelism} {@code ui.xml} files at once, e.g. the number of cores.
+   *
+   * The output is the same as generating them one at a time (the default), since each file's
+   * views are independent, and the aggregate {@code AppViews} classes are still generated
+   * afterwards in path order.
+   */
+  public void setParallelism(final int parallelism) {
+    this.parallelism = Math.max(parallelism, 1);
+  }
+
+  /** Generates the views for every {@code ui.xml} file under the input directory. */
   public void generate() throws Exception {
+    uiXmlFiles.clear();
     for (final File uiXml : findUiXmlFiles()) {
       if (uiXml.getName().contains("-nogen.")) {
         continue;
       }
       uiXmlFiles.add(new UiXmlFile(this, uiXml));
     }
+    Collections.sort(uiXmlFiles, byPath);
+    generate(uiXmlFiles);
+  }
+
+  /**
+   * Regenerates the views for just the {@code changed} {@code ui.xml} files, e.g. from a file watcher.
+   *
+   * New and deleted files are added/removed, and the other files aren't re-read, so
+   * this must follow a call to {@link #generate()}.
+   */
+  public void generate(final Collection<File> changed) throws Exception {
+    final List<UiXmlFile> updated = new ArrayList<UiXmlFile>();
+    for (final File file : changed) {
+      final UiXmlFile uiXml = new UiXmlFile(this, file.getAbsoluteFile());
+      for (final Iterator<UiXmlFile> i = uiXmlFiles.iterator(); i.hasNext();) {
+        if (i.next().getCacheKey().equals(uiXml.getCacheKey())) {
+          i.remove();
+        }
+      }
+      if (file.exists() && !file.getName().contains("-nogen.")) {
+        uiXmlFiles.add(uiXml);
+        updated.add(uiXml);
+      }
+    }
+    Collections.sort(uiXmlFiles, byPath);
+    generate(updated);
+  }
 
-    boolean viewgenChanged = !config.getViewgenTimestamp().equals(cache.getViewgenTimestamp());
+  /** Regenerates any of {@code candidates} that are out of date, and then the aggregate classes for all files. */
+  private void generate(final List<UiXmlFile> candidates) throws Exception {
+    final List<UiXmlFile> stale = new ArrayList<UiXmlFile>();
+    for (final UiXmlFile uiXml : candidates) {
+      if (!cache.isUpToDate(uiXml, config)) {
+        stale.add(uiXml);
+      }
+    }
+    generateStale(stale);
 
     for (final UiXmlFile uiXml : uiXmlFiles) {
-      if (uiXml.hasChanged() || !cache.has(uiXml) || viewgenChanged) {
-        uiXml.generate();
-        cache.update(uiXml);
-      }
       cleanup.markOkay(uiXml.isView);
       cleanup.markOkay(uiXml.gwtView);
       cleanup.markOkay(uiXml.stubView);
@@ -76,7 +137,49 @@ public class ViewGenerator {
     generateGwtViews();
     generateStubViews();
 
-    cache.save(output, config.getViewgenTimestamp());
+    cache.save(output);
+  }
+
+  /** Generates each of {@code stale}, in parallel if configured, and updates the cache. */
+  private void generateStale(final List<UiXmlFile> stale) throws Exception {
+    if (parallelism == 1 || stale.size() < 2) {
+      for (final UiXmlFile uiXml : stale) {
+        generateAndTime(uiXml);
+      }
+      return;
+    }
+    final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(stale.size());
+    for (final UiXmlFile uiXml : stale) {
+      tasks.add(new Callable<Void>() {
+        public Void call() throws Exception {
+          generateAndTime(uiXml);
+          return null;
+        }
+      });
+    }
+    final ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      // check the results in file order, so a failure is reported the same as a sequential run
+      for (final Future<Void> future : pool.invokeAll(tasks)) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Exception) {
+            throw (Exception) e.getCause();
+          }
+          throw e;
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private void generateAndTime(final UiXmlFile uiXml) throws Exception {
+    final long start = System.currentTimeMillis();
+    uiXml.generate();
+    cache.update(uiXml, config);
+    System.out.println(uiXml.getFile() + " " + (System.currentTimeMillis() - start) + "ms");
   }
 
   private void generateAppViews() {
@@ -197,14 +300,8 @@ public class ViewGenerator {
     cleanup.markOkay(gclass);
   }
 
-  /** If the ui.xml files have had their time stamp changed, we always save the new ones. */
-  void markAndSave(final GClass gclass) {
-    cleanup.markOkay(gclass);
-    try {
-      FileUtils.writeStringToFile(new File(output, gclass.getFileName()), gclass.toCode());
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
+  SAXParser parser() {
+    return parsers.get();
   }
 
   private Collection<File> findUiXmlFiles() {
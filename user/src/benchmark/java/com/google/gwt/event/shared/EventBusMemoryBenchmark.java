@@ -0,0 +1,138 @@
+package com.google.gwt.event.shared;
+
+import com.google.gwt.event.shared.GwtEvent.Type;
+
+/**
+ * Measures the retained size of a {@link CompactEventBus} vs. a {@link SimplerEventBus}, with
+ * the few handlers a property or rule usually has.
+ *
+ * Each case retains {@code count} buses and compares the used heap, after GCs, before and after,
+ * so the sizes are per bus, including its handler registrations, but not the handlers themselves,
+ * which are shared. The numbers depend on the JVM (e.g. compressed oops), so compare the two
+ * buses on the same run rather than against absolute numbers.
+ *
+ * Usage: {@code EventBusMemoryBenchmark [count]}, see the {@code eventBusBenchmark} task
+ * in {@code build.gradle}.
+ */
+public class EventBusMemoryBenchmark {
+
+  private static final Type<NoopHandler> FOO = new Type<NoopHandler>();
+  private static final Type<NoopHandler> BAR = new Type<NoopHandler>();
+  private static final Type<NoopHandler> ZAZ = new Type<NoopHandler>();
+  private static final NoopHandler handler = new NoopHandler() {
+  };
+  private static final Object source = new Object();
+
+  public static void main(final String[] args) throws Exception {
+    final int count = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+    System.out.println("Retaining " + count + " buses per case");
+    for (final Case c : Case.values()) {
+      // the first pass warms up class loading and the JIT, so isn't reported
+      retained(new SimplerBuses(), c, count / 10);
+      retained(new CompactBuses(), c, count / 10);
+      final long simpler = retained(new SimplerBuses(), c, count);
+      final long compact = retained(new CompactBuses(), c, count);
+      System.out.println(String.format("%-28s %6d -> %6d bytes/bus", c.name, simpler, compact));
+    }
+  }
+
+  /** @return the bytes retained per bus after creating {@code count} buses set up for {@code c} */
+  private static long retained(final Buses buses, final Case c, final int count) throws Exception {
+    final EventBus[] kept = new EventBus[count];
+    final long before = usedAfterGc();
+    for (int i = 0; i < count; i++) {
+      kept[i] = buses.create();
+      c.setup(kept[i]);
+    }
+    final long after = usedAfterGc();
+    // make sure the buses are still reachable when we measured
+    if (kept[count - 1] == null) {
+      throw new IllegalStateException();
+    }
+    return Math.round((after - before) / (double) count);
+  }
+
+  private static long usedAfterGc() throws Exception {
+    final Runtime r = Runtime.getRuntime();
+    for (int i = 0; i < 4; i++) {
+      System.gc();
+      Thread.sleep(50);
+    }
+    return r.totalMemory() - r.freeMemory();
+  }
+
+  private enum Case {
+    NO_HANDLERS("no handlers") {
+      void setup(final EventBus bus) {
+      }
+    },
+    ONE_HANDLER("one handler") {
+      void setup(final EventBus bus) {
+        bus.addHandler(FOO, handler);
+      }
+    },
+    ONE_SOURCED_HANDLER("one sourced handler") {
+      void setup(final EventBus bus) {
+        bus.addHandlerToSource(FOO, source, handler);
+      }
+    },
+    TWO_HANDLERS_ONE_TYPE("two handlers, one type") {
+      void setup(final EventBus bus) {
+        bus.addHandler(FOO, handler);
+        bus.addHandler(FOO, handler);
+      }
+    },
+    THREE_TYPES("one handler each, 3 types") {
+      void setup(final EventBus bus) {
+        bus.addHandler(FOO, handler);
+        bus.addHandler(BAR, handler);
+        bus.addHandler(ZAZ, handler);
+      }
+    },
+    AFTER_FIRING("one handler, after firing") {
+      void setup(final EventBus bus) {
+        bus.addHandler(FOO, handler);
+        bus.fireEvent(new NoopEvent());
+      }
+    };
+
+    private final String name;
+
+    private Case(final String name) {
+      this.name = name;
+    }
+
+    abstract void setup(EventBus bus);
+  }
+
+  private interface Buses {
+    EventBus create();
+  }
+
+  private static class SimplerBuses implements Buses {
+    public EventBus create() {
+      return new SimplerEventBus();
+    }
+  }
+
+  private static class CompactBuses implements Buses {
+    public EventBus create() {
+      return new CompactEventBus();
+    }
+  }
+
+  private interface NoopHandler extends EventHandler {
+  }
+
+  private static class NoopEvent extends GwtEvent<NoopHandler> {
+    @Override
+    public Type<NoopHandler> getAssociatedType() {
+      return FOO;
+    }
+
+    @Override
+    protected void dispatch(final NoopHandler handler) {
+    }
+  }
+
+}
@@ -0,0 +1,191 @@
+package org.tessell.dispatch.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.tessell.dispatch.server.handlers.ActionHandler;
+import org.tessell.dispatch.shared.Action;
+import org.tessell.dispatch.shared.Result;
+
+/**
+ * Measures the overhead of {@link DefaultActionDispatch} looking up handlers, with and
+ * without {@link SessionValidatorDispatch}'s CSRF check, on one thread and on several
+ * threads dispatching at once.
+ *
+ * As a baseline, {@link BaselineDispatch} dispatches the way we used to, i.e. with a
+ * plain map and one handler lookup for the CSRF check and another for executing.
+ *
+ * The handler does nothing, so the times are just the dispatch overhead per action.
+ *
+ * Usage: {@code DispatchBenchmark [threads] [iterations]}, see the {@code benchmark} task
+ * in {@code build.gradle}.
+ */
+public class DispatchBenchmark {
+
+  private static final ExecutionContext context = new ExecutionContext(null, null, "token");
+  private static final SessionIdValidator validator = new SessionIdValidator() {
+    public String getToken(final ExecutionContext context) {
+      return "token";
+    }
+
+    public void setTokenIfNeeded(final ExecutionContext context) {
+    }
+  };
+  private final DefaultActionDispatch dispatch = new DefaultActionDispatch();
+  private final SessionValidatorDispatch validated = new SessionValidatorDispatch(validator, dispatch);
+  private final BaselineDispatch baseline = new BaselineDispatch();
+  private final ActionDispatch baselineValidated = new BaselineValidatorDispatch(baseline);
+
+  public static void main(final String[] args) throws Exception {
+    final int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+    final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+    new DispatchBenchmark().run(threads, iterations);
+  }
+
+  public DispatchBenchmark() {
+    dispatch.addHandler(new NoopHandler());
+    baseline.addHandler(new NoopHandler());
+  }
+
+  public void run(final int threads, final int iterations) throws Exception {
+    System.out.println("Dispatching " + iterations + " actions per thread, 1 and " + threads + " threads");
+    // warm up the JIT, so we're measuring steady state like a long-running server would
+    time(baselineValidated, 1, iterations);
+    time(validated, 1, iterations);
+
+    report("baseline execute, 1 thread", time(baseline, 1, iterations), iterations);
+    report("execute, 1 thread", time(dispatch, 1, iterations), iterations);
+    report("baseline validated, 1 thread", time(baselineValidated, 1, iterations), iterations);
+    report("validated execute, 1 thread", time(validated, 1, iterations), iterations);
+    report("baseline execute, " + threads + " threads", time(baseline, threads, iterations), iterations);
+    report("execute, " + threads + " threads", time(dispatch, threads, iterations), iterations);
+    report("baseline validated, " + threads + " threads", time(baselineValidated, threads, iterations), iterations);
+    report("validated execute, " + threads + " threads", time(validated, threads, iterations), iterations);
+  }
+
+  /** @return the nanos it took for {@code threads} threads to each execute {@code iterations} actions */
+  private static long time(final ActionDispatch target, final int threads, final int iterations) throws Exception {
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Thread> running = new ArrayList<Thread>();
+    for (int i = 0; i < threads; i++) {
+      final Thread t = new Thread() {
+        public void run() {
+          try {
+            start.await();
+          } catch (final InterruptedException ie) {
+            return;
+          }
+          final NoopAction action = new NoopAction();
+          for (int j = 0; j < iterations; j++) {
+            target.execute(action, context);
+          }
+        }
+      };
+      t.start();
+      running.add(t);
+    }
+    final long began = System.nanoTime();
+    start.countDown();
+    for (final Thread t : running) {
+      t.join();
+    }
+    return System.nanoTime() - began;
+  }
+
+  private static void report(final String name, final long nanos, final int iterations) {
+    System.out.println(String.format("%-36s %8.2fns/action", name, nanos / (double) iterations));
+  }
+
+  /** Dispatches like {@code DefaultActionDispatch} used to, looking up the handler on each call. */
+  private static class BaselineDispatch implements ActionDispatch {
+    private final Map<Class<?>, ActionHandler<?, ?>> handlers = new HashMap<Class<?>, ActionHandler<?, ?>>(100);
+
+    private void addHandler(final ActionHandler<?, ?> handler) {
+      handlers.put(handler.getActionType(), handler);
+    }
+
+    public <A extends Action<R>, R extends Result> R execute(final A action, final ExecutionContext context) {
+      return findHandler(action).execute(action, context);
+    }
+
+    public <A extends Action<R>, R extends Result> R execute(final Route route, final A action, final ExecutionContext context) {
+      return execute(action, context);
+    }
+
+    public Route route(final Action<?> action) {
+      final ActionHandler<?, ?> handler = findHandler(action);
+      return new Route(handler, handler.skipCSRFCheck());
+    }
+
+    public boolean skipCSRFCheck(final Action<?> action) {
+      return findHandler(action).skipCSRFCheck();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <A extends Action<R>, R extends Result> ActionHandler<A, R> findHandler(final A action) {
+      final ActionHandler<A, R> handler = (ActionHandler<A, R>) handlers.get(action.getClass());
+      if (handler == null) {
+        throw new IllegalStateException("No handler for " + action);
+      }
+      return handler;
+    }
+  }
+
+  /** Validates like {@code SessionValidatorDispatch} used to, asking the delegate for the CSRF flag and then executing. */
+  private static class BaselineValidatorDispatch implements ActionDispatch {
+    private final ActionDispatch delegate;
+
+    private BaselineValidatorDispatch(final ActionDispatch delegate) {
+      this.delegate = delegate;
+    }
+
+    public <A extends Action<R>, R extends Result> R execute(final A action, final ExecutionContext context) {
+      validator.setTokenIfNeeded(context);
+      if (!delegate.skipCSRFCheck(action)) {
+        final String secureSessionId = validator.getToken(context);
+        if (secureSessionId == null || !secureSessionId.equals(context.getSessionId())) {
+          throw new IllegalStateException("Invalid session");
+        }
+      }
+      return delegate.execute(action, context);
+    }
+
+    public <A extends Action<R>, R extends Result> R execute(final Route route, final A action, final ExecutionContext context) {
+      return execute(action, context);
+    }
+
+    public Route route(final Action<?> action) {
+      return delegate.route(action);
+    }
+
+    public boolean skipCSRFCheck(final Action<?> action) {
+      return delegate.skipCSRFCheck(action);
+    }
+  }
+
+  public static class NoopAction implements Action<NoopResult> {
+  }
+
+  public static class NoopResult implements Result {
+  }
+
+  private static class NoopHandler implements ActionHandler<NoopAction, NoopResult> {
+    private static final NoopResult result = new NoopResult();
+
+    public Class<NoopAction> getActionType() {
+      return NoopAction.class;
+    }
+
+    public NoopResult execute(final NoopAction action, final ExecutionContext context) {
+      return result;
+    }
+
+    public boolean skipCSRFCheck() {
+      return false;
+    }
+  }
+
+}
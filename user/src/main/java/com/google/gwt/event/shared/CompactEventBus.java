@@ -0,0 +1,326 @@
+package com.google.gwt.event.shared;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.google.gwt.event.shared.GwtEvent.Type;
+import com.google.web.bindery.event.shared.EventQueue;
+
+/**
+ * A {@link SimplerEventBus} for objects that usually have just a few handlers, e.g. properties and rules.
+ *
+ * Instead of a map of maps of lists per bus, the handlers are kept in one flat array of
+ * (type, source, handler) slots, where each slot holds its first handler inline, and only
+ * grows to a list if a second handler is added. So a bus with no handlers is just a few
+ * empty fields, and a bus with one handler per type is a single small array.
+ *
+ * The dispatch semantics are the same as {@link SimplerEventBus}: adds/removes take effect
+ * immediately, even while firing, and events fired while firing are queued until the
+ * current event is done, optionally up to a {@link #setQueueLimit(int)}.
+ */
+public class CompactEventBus extends EventBus {
+
+  private static final int SLOT = 3;
+  // (type, source, handler or Handlers) triples, null until the first handler is added
+  private Object[] slots;
+  private int used;
+  private boolean isFiring;
+  // whether any handlers were removed while firing, so left null markers in slots
+  private boolean needsCleaning;
+  // events fired while we were firing, null until first needed, as most buses never queue anything
+  private EventQueue queue;
+  // whether the outermost doFire is draining the queue, so queued events don't drain it recursively
+  private boolean isDraining;
+
+  @Override
+  public <H extends EventHandler> HandlerRegistration addHandler(Type<H> type, H handler) {
+    checkNotNull(type, "Cannot add a handler with a null type");
+    checkNotNull(handler, "Cannot add a null handler");
+    return doAdd(type, null, handler);
+  }
+
+  @Override
+  public <H extends EventHandler> HandlerRegistration addHandlerToSource(final Type<H> type, final Object source, final H handler) {
+    checkNotNull(type, "Cannot add a handler with a null type");
+    checkNotNull(source, "Cannot add a handler with a null source");
+    checkNotNull(handler, "Cannot add a null handler");
+    return doAdd(type, source, handler);
+  }
+
+  @Override
+  public void fireEvent(GwtEvent<?> event) {
+    checkNotNull(event, "Cannot fire null event");
+    doFire(event, null);
+  }
+
+  @Override
+  public void fireEventFromSource(GwtEvent<?> event, Object source) {
+    checkNotNull(event, "Cannot fire null event");
+    checkNotNull(source, "Cannot fire from a null source");
+    doFire(event, source);
+  }
+
+  /** Limits how many events can be queued, to catch runaway cascades, see {@link EventQueue#setLimit(int)}. */
+  public void setQueueLimit(int queueLimit) {
+    queue().setLimit(queueLimit);
+  }
+
+  /** @return the total number of events that have been queued because they were fired while firing */
+  public int getQueuedCount() {
+    return queue == null ? 0 : queue.getQueuedCount();
+  }
+
+  /** @return the most events that have been queued at once */
+  public int getMaxQueueSize() {
+    return queue == null ? 0 : queue.getMaxSize();
+  }
+
+  /** @return whether any handlers, for any source, are listening for {@code type}, so callers can skip creating unwanted events. */
+  public boolean isEventHandled(Type<?> type) {
+    for (int i = 0; i < used; i += SLOT) {
+      if (slots[i] == type) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private <H> HandlerRegistration doAdd(final Type<H> type, final Object source, final H handler) {
+    final int i = indexOf(type, source);
+    if (i == -1) {
+      ensureCapacity(used + SLOT);
+      slots[used] = type;
+      slots[used + 1] = source;
+      slots[used + 2] = handler;
+      used += SLOT;
+    } else if (slots[i + 2] instanceof Handlers) {
+      ((Handlers) slots[i + 2]).add(handler);
+    } else {
+      // grow from inline to a list, even if the inline handler is a null marker, so an
+      // in-progress dispatch of this slot sees the new handler at the same index it would
+      // have in SimplerEventBus
+      final Handlers l = new Handlers();
+      l.add(slots[i + 2]);
+      l.add(handler);
+      slots[i + 2] = l;
+    }
+    return new HandlerRegistration() {
+      public void removeHandler() {
+        doRemove(type, source, handler);
+      }
+    };
+  }
+
+  private void doRemove(final Type<?> type, final Object source, final Object handler) {
+    final int i = indexOf(type, source);
+    if (i == -1) {
+      return;
+    }
+    final Object h = slots[i + 2];
+    if (h instanceof Handlers) {
+      final Handlers l = (Handlers) h;
+      final int j = l.indexOf(handler);
+      if (j == -1) {
+        return;
+      }
+      if (isFiring) {
+        l.set(j, null);
+        needsCleaning = true;
+      } else {
+        l.remove(j);
+        compact(i);
+      }
+    } else if (h != null && h.equals(handler)) {
+      if (isFiring) {
+        slots[i + 2] = null;
+        needsCleaning = true;
+      } else {
+        removeSlot(i);
+      }
+    }
+  }
+
+  private <H extends EventHandler> void doFire(GwtEvent<H> event, Object source) {
+    if (isFiring) {
+      queue().add(event, source);
+      return;
+    }
+    try {
+      isFiring = true;
+
+      if (source != null) {
+        setSourceOfEvent(event, source);
+      }
+
+      Set<Throwable> causes = null;
+      if (source != null) {
+        causes = dispatch(event, source, causes);
+      }
+      causes = dispatch(event, null, causes);
+
+      if (queue != null && !queue.isEmpty() && !isDraining) {
+        isFiring = false;
+        try {
+          fireQueuedEvents();
+        } catch (UmbrellaException e) {
+          if (causes == null) {
+            causes = new HashSet<Throwable>();
+          }
+          causes.addAll(e.getCauses());
+        }
+      }
+
+      if (causes != null) {
+        throw new UmbrellaException(causes);
+      }
+    } finally {
+      isFiring = false;
+      if (needsCleaning) {
+        executeCleaning();
+      }
+    }
+  }
+
+  /** Dispatches {@code event} to the handlers for {@code source}, including any added while firing. */
+  @SuppressWarnings("unchecked")
+  private <H extends EventHandler> Set<Throwable> dispatch(GwtEvent<H> event, Object source, Set<Throwable> causes) {
+    final int i = indexOf(event.getAssociatedType(), source);
+    if (i == -1) {
+      return causes;
+    }
+    // slots are never removed or moved while firing, so i stays valid even if slots is reallocated
+    for (int j = 0;; j++) {
+      final Object h = slots[i + 2];
+      final Object handler;
+      if (h instanceof Handlers) {
+        final Handlers l = (Handlers) h;
+        if (j >= l.size()) {
+          break;
+        }
+        handler = l.get(j);
+      } else {
+        if (j > 0) {
+          break;
+        }
+        handler = h;
+      }
+      // was the handler unregistered during our iteration?
+      if (handler == null) {
+        continue;
+      }
+      try {
+        event.dispatch((H) handler);
+      } catch (Throwable e) {
+        if (causes == null) {
+          causes = new HashSet<Throwable>();
+        }
+        causes.add(e);
+      }
+    }
+    return causes;
+  }
+
+  private EventQueue queue() {
+    if (queue == null) {
+      queue = new EventQueue();
+    }
+    return queue;
+  }
+
+  private void fireQueuedEvents() {
+    Set<Throwable> causes = null;
+    try {
+      isDraining = true;
+      while (!queue.isEmpty()) {
+        final Object source = queue.peekSource();
+        final GwtEvent<?> event = (GwtEvent<?>) queue.poll();
+        try {
+          doFire(event, source);
+        } catch (UmbrellaException e) {
+          if (causes == null) {
+            causes = new HashSet<Throwable>();
+          }
+          causes.addAll(e.getCauses());
+        }
+      }
+    } finally {
+      isDraining = false;
+    }
+    if (causes != null) {
+      throw new UmbrellaException(causes);
+    }
+  }
+
+  /** @return the index of the slot for {@code type}/{@code source}, or -1 */
+  private int indexOf(Type<?> type, Object source) {
+    for (int i = 0; i < used; i += SLOT) {
+      if (slots[i] == type && (slots[i + 1] == source || (source != null && source.equals(slots[i + 1])))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Removes the null markers left by removing handlers while firing. */
+  private void executeCleaning() {
+    needsCleaning = false;
+    for (int i = used - SLOT; i >= 0; i -= SLOT) {
+      final Object h = slots[i + 2];
+      if (h == null) {
+        removeSlot(i);
+      } else if (h instanceof Handlers) {
+        final Handlers l = (Handlers) h;
+        for (int j = l.size() - 1; j >= 0; j--) {
+          if (l.get(j) == null) {
+            l.remove(j);
+          }
+        }
+        compact(i);
+      }
+    }
+  }
+
+  /** Shrinks the list in slot {@code i} back to inline, or removes the slot, if possible. */
+  private void compact(int i) {
+    final Handlers l = (Handlers) slots[i + 2];
+    if (l.isEmpty()) {
+      removeSlot(i);
+    } else if (l.size() == 1) {
+      slots[i + 2] = l.get(0);
+    }
+  }
+
+  private void removeSlot(int i) {
+    System.arraycopy(slots, i + SLOT, slots, i, used - i - SLOT);
+    used -= SLOT;
+    slots[used] = null;
+    slots[used + 1] = null;
+    slots[used + 2] = null;
+    if (used == 0) {
+      slots = null;
+    }
+  }
+
+  private void ensureCapacity(int minimum) {
+    if (slots == null) {
+      slots = new Object[minimum];
+    } else if (slots.length < minimum) {
+      final Object[] copy = new Object[Math.max(minimum, slots.length * 2)];
+      System.arraycopy(slots, 0, copy, 0, used);
+      slots = copy;
+    }
+  }
+
+  private void checkNotNull(Object arg, String message) {
+    if (arg == null) {
+      throw new NullPointerException(message);
+    }
+  }
+
+  /** The handlers for a slot with more than one, as its own type so we can't confuse it with a handler. */
+  private static class Handlers extends ArrayList<Object> {
+    private static final long serialVersionUID = 1L;
+  }
+
+}
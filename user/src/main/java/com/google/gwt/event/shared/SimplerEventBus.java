@@ -19,6 +19,7 @@ package com.google.gwt.event.shared;
 import java.util.*;
 
 import com.google.gwt.event.shared.GwtEvent.Type;
+import com.google.web.bindery.event.shared.EventQueue;
 
 /** Simpler implementation of {@link EventBus}.
  *
@@ -43,8 +44,10 @@ public class SimplerEventBus extends EventBus {
   /** Map of event type to map of event source to list of their handlers. */
   private final Map<GwtEvent.Type<?>, Map<Object, List<?>>> map = new HashMap<GwtEvent.Type<?>, Map<Object, List<?>>>();
 
-  /** Queued events. */
-  private final List<ToFire> queuedEvents = new ArrayList<ToFire>();
+  /** Events fired while we were firing. */
+  private final EventQueue queue = new EventQueue();
+  // whether the outermost doFire is draining the queue, so queued events don't drain it recursively
+  private boolean isDraining;
 
   @Override
   public <H extends EventHandler> HandlerRegistration addHandler(Type<H> type, H handler) {
@@ -74,6 +77,26 @@ public class SimplerEventBus extends EventBus {
     doFire(event, source);
   }
 
+  /** @return whether any handlers, for any source, are listening for {@code type}, so callers can skip creating unwanted events. */
+  public boolean isEventHandled(GwtEvent.Type<?> type) {
+    return map.containsKey(type);
+  }
+
+  /** Limits how many events can be queued, to catch runaway cascades, see {@link EventQueue#setLimit(int)}. */
+  public void setQueueLimit(int queueLimit) {
+    queue.setLimit(queueLimit);
+  }
+
+  /** @return the total number of events that have been queued because they were fired while firing */
+  public int getQueuedCount() {
+    return queue.getQueuedCount();
+  }
+
+  /** @return the most events that have been queued at once */
+  public int getMaxQueueSize() {
+    return queue.getMaxSize();
+  }
+
   /** Creates new map entries for {@code type}/{@code source} and adds {@code handler}. */
   private <H> HandlerRegistration doAdd(final GwtEvent.Type<H> type, final Object source, final H handler) {
     ensureHandlerList(type, source).add(handler);
@@ -90,7 +113,7 @@ public class SimplerEventBus extends EventBus {
 
   private <H extends EventHandler> void doFire(GwtEvent<H> event, Object source) {
     if (isFiring) {
-      queuedEvents.add(new ToFire(event, source));
+      queue.add(event, source);
       return;
     }
     try {
@@ -100,26 +123,15 @@ public class SimplerEventBus extends EventBus {
         setSourceOfEvent(event, source);
       }
 
+      // iterate the handler lists in place, so firing doesn't allocate; they can only grow
+      // (adds) or get null markers (removes) while we're firing, and not shrink until cleaning
       Set<Throwable> causes = null;
-
-      List<H> handlers = getDispatchList(event.getAssociatedType(), source);
-      for (int i = 0; i < handlers.size(); i++) {
-        H handler = handlers.get(i);
-        // was the handler unregistered during our iteration? 
-        if (handler == null) {
-          continue;
-        }
-        try {
-          event.dispatch(handler);
-        } catch (Throwable e) {
-          if (causes == null) {
-            causes = new HashSet<Throwable>();
-          }
-          causes.add(e);
-        }
+      if (source != null) {
+        causes = dispatch(event, getHandlerList(event.getAssociatedType(), source), causes);
       }
+      causes = dispatch(event, getHandlerList(event.getAssociatedType(), null), causes);
 
-      if (!queuedEvents.isEmpty()) {
+      if (!queue.isEmpty() && !isDraining) {
         isFiring = false;
         try {
           fireQueuedEvents();
@@ -164,15 +176,24 @@ public class SimplerEventBus extends EventBus {
     }
   }
 
-  private <H> List<H> getDispatchList(GwtEvent.Type<H> type, Object source) {
-    if (source == null) {
-      return getHandlerList(type, null);
-    } else {
-      List<H> all = new ArrayList<H>();
-      all.addAll(getHandlerList(type, source));
-      all.addAll(getHandlerList(type, null));
-      return all;
+  /** Dispatches {@code event} to each of {@code handlers}, including any added while firing, collecting exceptions into {@code causes}. */
+  private <H extends EventHandler> Set<Throwable> dispatch(GwtEvent<H> event, List<H> handlers, Set<Throwable> causes) {
+    for (int i = 0; i < handlers.size(); i++) {
+      H handler = handlers.get(i);
+      // was the handler unregistered during our iteration?
+      if (handler == null) {
+        continue;
+      }
+      try {
+        event.dispatch(handler);
+      } catch (Throwable e) {
+        if (causes == null) {
+          causes = new HashSet<Throwable>();
+        }
+        causes.add(e);
+      }
     }
+    return causes;
   }
 
   /** @return handlers for {@code type}/{@code source}, has no side-effects if none are registered yet. */
@@ -208,16 +229,33 @@ public class SimplerEventBus extends EventBus {
   }
 
   private void executeCleaning() {
-    for (ToClean<?> h : needsCleaning) {
-      clean(h);
+    for (int i = 0; i < needsCleaning.size(); i++) {
+      clean(needsCleaning.get(i));
     }
     needsCleaning.clear();
   }
 
   private void fireQueuedEvents() {
-    while (!queuedEvents.isEmpty()) {
-      ToFire f = queuedEvents.remove(0);
-      doFire(f.event, f.source);
+    Set<Throwable> causes = null;
+    try {
+      isDraining = true;
+      while (!queue.isEmpty()) {
+        final Object source = queue.peekSource();
+        final GwtEvent<?> event = (GwtEvent<?>) queue.poll();
+        try {
+          doFire(event, source);
+        } catch (UmbrellaException e) {
+          if (causes == null) {
+            causes = new HashSet<Throwable>();
+          }
+          causes.addAll(e.getCauses());
+        }
+      }
+    } finally {
+      isDraining = false;
+    }
+    if (causes != null) {
+      throw new UmbrellaException(causes);
     }
   }
 
@@ -237,16 +275,6 @@ public class SimplerEventBus extends EventBus {
     }
   }
 
-  private static class ToFire {
-    private final GwtEvent<?> event;
-    private final Object source;
-
-    private ToFire(GwtEvent<?> event, Object source) {
-      this.event = event;
-      this.source = source;
-    }
-  }
-
   private static class ToClean<H> {
     private final GwtEvent.Type<H> type;
     private final Object source;
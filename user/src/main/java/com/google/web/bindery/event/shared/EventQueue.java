@@ -0,0 +1,92 @@
+package com.google.web.bindery.event.shared;
+
+import java.util.Arrays;
+
+/**
+ * The events a bus queues because they were fired while it was already firing.
+ *
+ * Events are kept as a ring buffer of (event, source) pairs, so draining is O(1) per event,
+ * and the buffer isn't allocated until the first event is queued. Used by each of the
+ * {@code SimplerEventBus}es and {@code CompactEventBus}.
+ */
+public class EventQueue {
+
+  private Object[] pairs;
+  private int head;
+  private int size;
+  /** If positive, the most events we'll queue before assuming a runaway cascade. */
+  private int limit;
+  private int queuedCount;
+  private int maxSize;
+
+  /**
+   * Limits how many events can be queued (fired while another event is firing), to catch runaway cascades.
+   *
+   * Once the limit is hit, the queued events are dropped, and firing the event throws an
+   * {@link IllegalStateException}, which is reported in an {@link UmbrellaException}
+   * unless the handler that fired it catches it.
+   *
+   * @param limit the limit, or 0 for no limit (the default)
+   */
+  public void setLimit(final int limit) {
+    this.limit = limit;
+  }
+
+  /** @return the total number of events that have been queued because they were fired while firing */
+  public int getQueuedCount() {
+    return queuedCount;
+  }
+
+  /** @return the most events that have been queued at once */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Queues {@code event}, or drops every queued event and throws if we're at our limit. */
+  public void add(final Object event, final Object source) {
+    if (limit > 0 && size >= limit) {
+      // drop everything, otherwise the cascade would just keep refilling the queue
+      Arrays.fill(pairs, null);
+      head = 0;
+      size = 0;
+      throw new IllegalStateException("More than " + limit + " events queued, probably a runaway cascade, dropped them and " + event);
+    }
+    if (pairs == null) {
+      pairs = new Object[16];
+    } else if (size * 2 == pairs.length) {
+      // full, so unwrap the ring into a bigger array
+      final Object[] bigger = new Object[pairs.length * 2];
+      final int firstPart = pairs.length - head;
+      System.arraycopy(pairs, head, bigger, 0, firstPart);
+      System.arraycopy(pairs, 0, bigger, firstPart, head);
+      pairs = bigger;
+      head = 0;
+    }
+    final int tail = (head + size * 2) % pairs.length;
+    pairs[tail] = event;
+    pairs[tail + 1] = source;
+    size++;
+    queuedCount++;
+    maxSize = Math.max(maxSize, size);
+  }
+
+  /** @return the source of the oldest queued event, i.e. the one {@link #poll()} will return */
+  public Object peekSource() {
+    return pairs[head + 1];
+  }
+
+  /** @return the oldest queued event, which is removed */
+  public Object poll() {
+    final Object event = pairs[head];
+    pairs[head] = null;
+    pairs[head + 1] = null;
+    head = (head + 2) % pairs.length;
+    size--;
+    return event;
+  }
+
+}
@@ -44,8 +44,10 @@ public class SimplerEventBus extends EventBus {
   /** Map of event type to map of event source to list of their handlers. */
   private final Map<Event.Type<?>, Map<Object, List<?>>> map = new HashMap<Event.Type<?>, Map<Object, List<?>>>();
 
-  /** Queued events. */
-  private final List<ToFire> queuedEvents = new ArrayList<ToFire>();
+  /** Events fired while we were firing. */
+  private final EventQueue queue = new EventQueue();
+  // whether the outermost doFire is draining the queue, so queued events don't drain it recursively
+  private boolean isDraining;
 
   @Override
   public <H> HandlerRegistration addHandler(Type<H> type, H handler) {
@@ -75,6 +77,21 @@ public class SimplerEventBus extends EventBus {
     doFire(event, source);
   }
 
+  /** Limits how many events can be queued, to catch runaway cascades, see {@link EventQueue#setLimit(int)}. */
+  public void setQueueLimit(int queueLimit) {
+    queue.setLimit(queueLimit);
+  }
+
+  /** @return the total number of events that have been queued because they were fired while firing */
+  public int getQueuedCount() {
+    return queue.getQueuedCount();
+  }
+
+  /** @return the most events that have been queued at once */
+  public int getMaxQueueSize() {
+    return queue.getMaxSize();
+  }
+
   /** Creates new map entries for {@code type}/{@code source} and adds {@code handler}. */
   private <H> HandlerRegistration doAdd(final Event.Type<H> type, final Object source, final H handler) {
     ensureHandlerList(type, source).add(handler);
@@ -91,7 +108,7 @@ public class SimplerEventBus extends EventBus {
 
   private <H> void doFire(Event<H> event, Object source) {
     if (isFiring) {
-      queuedEvents.add(new ToFire(event, source));
+      queue.add(event, source);
       return;
     }
     try {
@@ -101,26 +118,15 @@ public class SimplerEventBus extends EventBus {
         event.setSource(source);
       }
 
+      // iterate the handler lists in place, so firing doesn't allocate; they can only grow
+      // (adds) or get null markers (removes) while we're firing, and not shrink until cleaning
       Set<Throwable> causes = null;
-
-      List<H> handlers = getDispatchList(event.getAssociatedType(), source);
-      for (int i = 0; i < handlers.size(); i++) {
-        H handler = handlers.get(i);
-        // was the handler unregistered during our iteration? 
-        if (handler == null) {
-          continue;
-        }
-        try {
-          event.dispatch(handler);
-        } catch (Throwable e) {
-          if (causes == null) {
-            causes = new HashSet<Throwable>();
-          }
-          causes.add(e);
-        }
+      if (source != null) {
+        causes = dispatch(event, getHandlerList(event.getAssociatedType(), source), causes);
       }
+      causes = dispatch(event, getHandlerList(event.getAssociatedType(), null), causes);
 
-      if (!queuedEvents.isEmpty()) {
+      if (!queue.isEmpty() && !isDraining) {
         isFiring = false;
         try {
           fireQueuedEvents();
@@ -165,15 +171,24 @@ public class SimplerEventBus extends EventBus {
     }
   }
 
-  private <H> List<H> getDispatchList(Event.Type<H> type, Object source) {
-    if (source == null) {
-      return getHandlerList(type, null);
-    } else {
-      List<H> all = new ArrayList<H>();
-      all.addAll(getHandlerList(type, source));
-      all.addAll(getHandlerList(type, null));
-      return all;
+  /** Dispatches {@code event} to each of {@code handlers}, including any added while firing, collecting exceptions into {@code causes}. */
+  private <H> Set<Throwable> dispatch(Event<H> event, List<H> handlers, Set<Throwable> causes) {
+    for (int i = 0; i < handlers.size(); i++) {
+      H handler = handlers.get(i);
+      // was the handler unregistered during our iteration?
+      if (handler == null) {
+        continue;
+      }
+      try {
+        event.dispatch(handler);
+      } catch (Throwable e) {
+        if (causes == null) {
+          causes = new HashSet<Throwable>();
+        }
+        causes.add(e);
+      }
     }
+    return causes;
   }
 
   /** @return handlers for {@code type}/{@code source}, has no side-effects if none are registered yet. */
@@ -209,16 +224,33 @@ public class SimplerEventBus extends EventBus {
   }
 
   private void executeCleaning() {
-    for (ToClean<?> h : needsCleaning) {
-      clean(h);
+    for (int i = 0; i < needsCleaning.size(); i++) {
+      clean(needsCleaning.get(i));
     }
     needsCleaning.clear();
   }
 
   private void fireQueuedEvents() {
-    while (!queuedEvents.isEmpty()) {
-      ToFire f = queuedEvents.remove(0);
-      doFire(f.event, f.source);
+    Set<Throwable> causes = null;
+    try {
+      isDraining = true;
+      while (!queue.isEmpty()) {
+        final Object source = queue.peekSource();
+        final Event<?> event = (Event<?>) queue.poll();
+        try {
+          doFire(event, source);
+        } catch (UmbrellaException e) {
+          if (causes == null) {
+            causes = new HashSet<Throwable>();
+          }
+          causes.addAll(e.getCauses());
+        }
+      }
+    } finally {
+      isDraining = false;
+    }
+    if (causes != null) {
+      throw new UmbrellaException(causes);
     }
   }
 
@@ -238,16 +270,6 @@ public class SimplerEventBus extends EventBus {
     }
   }
 
-  private static class ToFire {
-    private final Event<?> event;
-    private final Object source;
-
-    private ToFire(Event<?> event, Object source) {
-      this.event = event;
-      this.source = source;
-    }
-  }
-
   private static class ToClean<H> {
     private final Event.Type<H> type;
     private final Object source;
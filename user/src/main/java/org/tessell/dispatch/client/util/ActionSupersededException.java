@@ -0,0 +1,15 @@
+package org.tessell.dispatch.client.util;
+
+import org.tessell.dispatch.client.events.DispatchFailureEvent;
+import org.tessell.dispatch.shared.Action;
+
+/** Passed to the callback, and in the {@link DispatchFailureEvent}, of a queued action that was dropped before it was sent, because a newer action superseded it. */
+public class ActionSupersededException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public ActionSupersededException(final Action<?> action) {
+    super(action + " was superseded before it was sent");
+  }
+
+}
@@ -0,0 +1,84 @@
+package org.tessell.dispatch.client.util;
+
+import java.util.Random;
+
+import org.tessell.dispatch.shared.Action;
+import org.tessell.dispatch.shared.ActionException;
+
+import com.google.gwt.user.client.rpc.InvocationException;
+import com.google.gwt.user.client.rpc.StatusCodeException;
+
+/**
+ * Retries transient failures with exponential backoff and jitter.
+ *
+ * Transient failures are network errors and the HTTP statuses that mean the server was
+ * busy or restarting (408, 429, 502, 503, 504). An {@link ActionException} is the handler's
+ * answer, so sending the action again won't change it, and other status codes (e.g. a 500
+ * from a bug) would likely just fail again.
+ *
+ * The delay doubles after each attempt, up to {@code maxDelayMillis}, and then a random half
+ * of it is taken off, so clients that all failed at once (e.g. when the server restarted)
+ * don't all retry at once.
+ */
+public class BackoffRetryPolicy implements RetryPolicy {
+
+  private final int maxAttempts;
+  private final int baseDelayMillis;
+  private final int maxDelayMillis;
+  private final Random random = new Random();
+
+  /** Makes at most 3 attempts, waiting about 250ms and then 500ms between them. */
+  public BackoffRetryPolicy() {
+    this(3, 250, 5000);
+  }
+
+  /**
+   * @param maxAttempts the most times to send an action, including the first
+   * @param baseDelayMillis the delay before the first retry
+   * @param maxDelayMillis the longest delay before any retry
+   */
+  public BackoffRetryPolicy(final int maxAttempts, final int baseDelayMillis, final int maxDelayMillis) {
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("maxAttempts must be at least 1");
+    }
+    this.maxAttempts = maxAttempts;
+    this.baseDelayMillis = baseDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  @Override
+  public boolean shouldRetry(final Action<?> action, final Throwable caught, final int attempt) {
+    return attempt < maxAttempts && isTransient(caught);
+  }
+
+  @Override
+  public int getDelayMillis(final int attempt) {
+    // shift by at most 30 so we don't overflow before capping
+    final long delay = Math.min((long) baseDelayMillis << Math.min(attempt - 1, 30), maxDelayMillis);
+    return (int) (delay - (long) (delay / 2 * nextRandom()));
+  }
+
+  /** @return whether {@code caught} is likely to go away if we try again */
+  protected boolean isTransient(final Throwable caught) {
+    if (caught instanceof StatusCodeException) {
+      switch (((StatusCodeException) caught).getStatusCode()) {
+        case 0: // the request never completed, e.g. the connection dropped
+        case 408:
+        case 429:
+        case 502:
+        case 503:
+        case 504:
+          return true;
+        default:
+          return false;
+      }
+    }
+    return caught instanceof InvocationException;
+  }
+
+  /** @return a random number in [0, 1), overridable for tests */
+  protected double nextRandom() {
+    return random.nextDouble();
+  }
+
+}
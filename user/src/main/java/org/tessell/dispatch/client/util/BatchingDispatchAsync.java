@@ -0,0 +1,130 @@
+package org.tessell.dispatch.client.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.tessell.dispatch.client.DispatchAsync;
+import org.tessell.dispatch.server.DefaultActionDispatch;
+import org.tessell.dispatch.shared.Action;
+import org.tessell.dispatch.shared.ActionException;
+import org.tessell.dispatch.shared.BatchAction;
+import org.tessell.dispatch.shared.BatchResult;
+import org.tessell.dispatch.shared.Result;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.event.shared.UmbrellaException;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * Coalesces all of the actions executed within one event loop into a single request.
+ *
+ * E.g. a place change that loads 10 independent actions would otherwise make 10 round
+ * trips; instead we queue the actions until the browser's current event is done (via
+ * {@link Scheduler#scheduleFinally(ScheduledCommand)}), then send them all in one
+ * {@link BatchAction}, which {@link DefaultActionDispatch} executes on the server, and
+ * fan the results back out to each action's callback.
+ *
+ * If only one action was executed, it's sent by itself. If an action throws an
+ * {@link ActionException} on the server, only its callback fails, but if the batch
+ * itself fails (e.g. a network error), every callback fails. If any callbacks throw, the
+ * rest are still called, and then the exceptions are rethrown in an {@link UmbrellaException}.
+ *
+ * This should wrap the {@link DispatchAsync} that actually talks to the server, e.g.
+ * {@code new OutstandingDispatchAsync(eventBus, new BatchingDispatchAsync(new DefaultDispatchAsync(...)))},
+ * so that the outer decorators still see the individual actions.
+ */
+public class BatchingDispatchAsync implements DispatchAsync {
+
+  private final DispatchAsync delegate;
+  private final List<Queued<?, ?>> queued = new ArrayList<Queued<?, ?>>();
+
+  public BatchingDispatchAsync(final DispatchAsync delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public <A extends Action<R>, R extends Result> void execute(final A action, final AsyncCallback<R> callback) {
+    queued.add(new Queued<A, R>(action, callback));
+    if (queued.size() == 1) {
+      Scheduler.get().scheduleFinally(new ScheduledCommand() {
+        public void execute() {
+          flush();
+        }
+      });
+    }
+  }
+
+  /** Sends any queued actions now, instead of waiting for the end of the event loop. */
+  public void flush() {
+    if (queued.isEmpty()) {
+      return;
+    }
+    final List<Queued<?, ?>> batch = new ArrayList<Queued<?, ?>>(queued);
+    queued.clear();
+    if (batch.size() == 1) {
+      batch.get(0).send(delegate);
+      return;
+    }
+    final List<Action<?>> actions = new ArrayList<Action<?>>(batch.size());
+    for (final Queued<?, ?> q : batch) {
+      actions.add(q.action);
+    }
+    delegate.execute(new BatchAction(actions), new AsyncCallback<BatchResult>() {
+      public void onSuccess(final BatchResult result) {
+        final CallbackExceptions causes = new CallbackExceptions();
+        for (int i = 0; i < batch.size(); i++) {
+          try {
+            final ActionException failure = result.getFailure(i);
+            if (failure != null) {
+              batch.get(i).callback.onFailure(failure);
+            } else {
+              batch.get(i).succeed(result.getResult(i));
+            }
+          } catch (final Throwable t) {
+            causes.add(t);
+          }
+        }
+        causes.throwIfAny();
+      }
+
+      public void onFailure(final Throwable caught) {
+        final CallbackExceptions causes = new CallbackExceptions();
+        for (final Queued<?, ?> q : batch) {
+          try {
+            q.callback.onFailure(caught);
+          } catch (final Throwable t) {
+            causes.add(t);
+          }
+        }
+        causes.throwIfAny();
+      }
+    });
+  }
+
+  /** @return the number of actions waiting to be sent, for tests */
+  public int getQueuedCount() {
+    return queued.size();
+  }
+
+  /** An action and its callback, waiting to be sent. */
+  private static class Queued<A extends Action<R>, R extends Result> {
+    private final A action;
+    private final AsyncCallback<R> callback;
+
+    private Queued(final A action, final AsyncCallback<R> callback) {
+      this.action = action;
+      this.callback = callback;
+    }
+
+    private void send(final DispatchAsync delegate) {
+      delegate.execute(action, callback);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void succeed(final Result result) {
+      callback.onSuccess((R) result);
+    }
+  }
+
+}
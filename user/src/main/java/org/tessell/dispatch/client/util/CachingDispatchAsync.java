@@ -0,0 +1,238 @@
+package org.tessell.dispatch.client.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.tessell.dispatch.client.DispatchAsync;
+import org.tessell.dispatch.shared.Action;
+import org.tessell.dispatch.shared.Result;
+
+import com.google.gwt.event.shared.UmbrellaException;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * Caches the results of read-only actions, e.g. reference data lookups.
+ *
+ * Only action types registered with {@link #cache(Class, int, int)} are cached; everything
+ * else goes straight to the delegate. For cached types:
+ *
+ * - Actions are keyed by {@code equals}/{@code hashCode}, which {@code @GenDispatch} actions implement.
+ * - If an equal action is already in flight, the new callback waits for its result
+ *   instead of making another call.
+ * - Each type keeps at most {@code maxEntries} results, evicting the least recently used,
+ *   and each result expires after {@code ttlMillis}.
+ * - A failure is passed to every waiting callback, and nothing is cached, so the next
+ *   call tries again.
+ * - If a waiting callback throws, the rest are still called, and then the exceptions are
+ *   rethrown in an {@link UmbrellaException}.
+ *
+ * Cached results are shared, so callers must not mutate them.
+ */
+public class CachingDispatchAsync implements DispatchAsync {
+
+  private final DispatchAsync delegate;
+  private final Map<Class<?>, Cache> caches = new HashMap<Class<?>, Cache>();
+  private final Map<Action<?>, InFlight> inFlight = new HashMap<Action<?>, InFlight>();
+  private int hits;
+  private int misses;
+  private int deduped;
+
+  public CachingDispatchAsync(final DispatchAsync delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Caches results for {@code actionType}.
+   *
+   * @param maxEntries the most results to keep for this type, evicting the least recently used
+   * @param ttlMillis how long results are kept, or 0 to keep them until evicted or invalidated
+   */
+  public <A extends Action<?>> void cache(final Class<A> actionType, final int maxEntries, final int ttlMillis) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("maxEntries must be at least 1");
+    }
+    caches.put(actionType, new Cache(maxEntries, ttlMillis));
+  }
+
+  @Override
+  public <A extends Action<R>, R extends Result> void execute(final A action, final AsyncCallback<R> callback) {
+    final Cache cache = caches.get(action.getClass());
+    if (cache == null) {
+      delegate.execute(action, callback);
+      return;
+    }
+
+    final Cached cached = cache.get(action, now());
+    if (cached != null) {
+      hits++;
+      callback.onSuccess(cached.<R> result());
+      return;
+    }
+
+    InFlight waiting = inFlight.get(action);
+    if (waiting != null) {
+      deduped++;
+      waiting.callbacks.add(callback);
+      return;
+    }
+
+    misses++;
+    waiting = new InFlight();
+    waiting.callbacks.add(callback);
+    inFlight.put(action, waiting);
+    final InFlight thisCall = waiting;
+    delegate.execute(action, new AsyncCallback<R>() {
+      public void onSuccess(final R result) {
+        // if the action was invalidated while in flight, the result may already be stale
+        if (inFlight.get(action) == thisCall) {
+          inFlight.remove(action);
+          cache.put(action, new Cached(result, now()));
+        }
+        final CallbackExceptions causes = new CallbackExceptions();
+        for (final AsyncCallback<?> c : thisCall.callbacks) {
+          try {
+            succeed(c, result);
+          } catch (final Throwable t) {
+            causes.add(t);
+          }
+        }
+        causes.throwIfAny();
+      }
+
+      public void onFailure(final Throwable caught) {
+        // if a newer call has started since, leave its entry (and anything it cached) alone
+        if (inFlight.get(action) == thisCall) {
+          inFlight.remove(action);
+          cache.remove(action);
+        }
+        final CallbackExceptions causes = new CallbackExceptions();
+        for (final AsyncCallback<?> c : thisCall.callbacks) {
+          try {
+            c.onFailure(caught);
+          } catch (final Throwable t) {
+            causes.add(t);
+          }
+        }
+        causes.throwIfAny();
+      }
+    });
+  }
+
+  /** Forgets the result for {@code action}, so the next call goes to the server. */
+  public void invalidate(final Action<?> action) {
+    final Cache cache = caches.get(action.getClass());
+    if (cache != null) {
+      cache.remove(action);
+    }
+    inFlight.remove(action);
+  }
+
+  /** Forgets all of the results for {@code actionType}. */
+  public void invalidateAll(final Class<?> actionType) {
+    final Cache cache = caches.get(actionType);
+    if (cache != null) {
+      cache.clear();
+    }
+    for (final Action<?> action : new ArrayList<Action<?>>(inFlight.keySet())) {
+      if (action.getClass() == actionType) {
+        inFlight.remove(action);
+      }
+    }
+  }
+
+  /** Forgets all cached results. */
+  public void invalidateAll() {
+    for (final Cache cache : caches.values()) {
+      cache.clear();
+    }
+    inFlight.clear();
+  }
+
+  /** @return the number of calls answered from the cache */
+  public int getHits() {
+    return hits;
+  }
+
+  /** @return the number of calls for cached types that went to the server */
+  public int getMisses() {
+    return misses;
+  }
+
+  /** @return the number of calls that waited on an equal in-flight call instead of going to the server */
+  public int getDeduped() {
+    return deduped;
+  }
+
+  /** @return the current time, overridable for tests */
+  protected long now() {
+    return System.currentTimeMillis();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <R> void succeed(final AsyncCallback<R> callback, final Object result) {
+    callback.onSuccess((R) result);
+  }
+
+  /** The results for one action type, in least-recently-used order. */
+  private static class Cache {
+    private final int ttlMillis;
+    private final LinkedHashMap<Action<?>, Cached> entries;
+
+    private Cache(final int maxEntries, final int ttlMillis) {
+      this.ttlMillis = ttlMillis;
+      entries = new LinkedHashMap<Action<?>, Cached>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Action<?>, Cached> eldest) {
+          return size() > maxEntries;
+        }
+      };
+    }
+
+    private Cached get(final Action<?> action, final long now) {
+      final Cached cached = entries.get(action);
+      if (cached != null && ttlMillis > 0 && now - cached.created >= ttlMillis) {
+        entries.remove(action);
+        return null;
+      }
+      return cached;
+    }
+
+    private void put(final Action<?> action, final Cached cached) {
+      entries.put(action, cached);
+    }
+
+    private void remove(final Action<?> action) {
+      entries.remove(action);
+    }
+
+    private void clear() {
+      entries.clear();
+    }
+  }
+
+  private static class Cached {
+    private final Object result;
+    private final long created;
+
+    private Cached(final Object result, final long created) {
+      this.result = result;
+      this.created = created;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> R result() {
+      return (R) result;
+    }
+  }
+
+  /** The callbacks waiting on an in-flight action. */
+  private static class InFlight {
+    private final List<AsyncCallback<?>> callbacks = new ArrayList<AsyncCallback<?>>();
+  }
+
+}
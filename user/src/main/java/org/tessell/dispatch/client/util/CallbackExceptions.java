@@ -0,0 +1,31 @@
+package org.tessell.dispatch.client.util;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import com.google.gwt.event.shared.UmbrellaException;
+
+/**
+ * Collects the exceptions thrown by callbacks while fanning a result out to several of them,
+ * so one throwing callback doesn't leave the rest outstanding.
+ */
+class CallbackExceptions {
+
+  private Set<Throwable> causes;
+
+  /** Remembers {@code t}, to rethrow once every callback has been called. */
+  void add(final Throwable t) {
+    if (causes == null) {
+      causes = new HashSet<Throwable>();
+    }
+    causes.add(t);
+  }
+
+  /** Rethrows the exceptions from callbacks, if there were any, as an {@link UmbrellaException}. */
+  void throwIfAny() {
+    if (causes != null) {
+      throw new UmbrellaException(causes);
+    }
+  }
+
+}
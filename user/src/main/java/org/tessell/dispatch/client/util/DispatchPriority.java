@@ -0,0 +1,11 @@
+package org.tessell.dispatch.client.util;
+
+/** The order {@link OutstandingDispatchAsync} sends queued actions in, once it's at its concurrent limit. */
+public enum DispatchPriority {
+  /** User-initiated actions, e.g. saves. */
+  HIGH,
+  /** The default. */
+  NORMAL,
+  /** Background actions, e.g. prefetches. */
+  LOW
+}
@@ -1,6 +1,10 @@
 package org.tessell.dispatch.client.util;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 import org.tessell.dispatch.client.DefaultDispatchAsync;
 import org.tessell.dispatch.client.DispatchAsync;
@@ -22,12 +26,26 @@ import com.google.web.bindery.event.shared.EventBus;
  * {@link DispatchResultEvent} is fired on success.
  * {@link DispatchFailureEvent} is fired on every failure.
  * {@link DispatchUnhandledFailureEvent} is fired on failures when a SuccessCallback was used.
+ *
+ * With {@link #setMaxConcurrent(int)}, actions over the limit are queued and sent
+ * by {@link DispatchPriority} as earlier ones return, so low priority prefetches
+ * can't starve a user-initiated save. Queued actions are still outstanding, i.e.
+ * they fire their {@link DispatchActionEvent} right away.
+ *
+ * With {@link #executeLatest}, a newer action supersedes any older one for the same
+ * key: if the older one is still queued it's never sent, and its callback's {@code onFailure} is
+ * called (and a {@link DispatchFailureEvent} fired) with an {@link ActionSupersededException},
+ * and if it's in flight its callback is skipped.
  */
 public class OutstandingDispatchAsync implements DispatchAsync {
 
   protected final EventBus eventBus;
   protected final DispatchAsync delegate;
   protected final ArrayList<Action<?>> outstanding = new ArrayList<Action<?>>();
+  private final List<LinkedList<Request<?, ?>>> queued = new ArrayList<LinkedList<Request<?, ?>>>();
+  private final Map<Object, Request<?, ?>> latest = new HashMap<Object, Request<?, ?>>();
+  private int maxConcurrent;
+  private int running;
 
   /** Fires events on {@code eventBus} with a {@link DefaultDispatchAsync}. */
   public OutstandingDispatchAsync(EventBus eventBus) {
@@ -38,6 +56,15 @@ public class OutstandingDispatchAsync implements DispatchAsync {
   public OutstandingDispatchAsync(final EventBus eventBus, final DispatchAsync delegate) {
     this.eventBus = eventBus;
     this.delegate = delegate;
+    for (int i = 0; i < DispatchPriority.values().length; i++) {
+      queued.add(new LinkedList<Request<?, ?>>());
+    }
+  }
+
+  /** Limits how many actions are sent to the server at once, queueing the rest; 0, the default, is no limit. */
+  public void setMaxConcurrent(final int maxConcurrent) {
+    this.maxConcurrent = maxConcurrent;
+    sendQueued();
   }
 
   @Override
@@ -90,25 +117,55 @@ public class OutstandingDispatchAsync implements DispatchAsync {
    *          the in-progress message to include in the {@link DispatchActionEvent}/{@link DispatchResultEvent} events
    */
   public <A extends Action<R>, R extends Result> void execute(final A action, final AsyncCallback<R> callback, final String message) {
-    outstanding.add(action);
-    eventBus.fireEvent(new DispatchActionEvent(action, message));
-    delegate.execute(action, new AsyncCallback<R>() {
-      public void onSuccess(final R result) {
-        outstanding.remove(action);
-        eventBus.fireEvent(new DispatchResultEvent(action, result, message));
-        callback.onSuccess(result);
-      }
+    execute(action, callback, message, DispatchPriority.NORMAL);
+  }
 
-      public void onFailure(final Throwable caught) {
-        outstanding.remove(action);
-        eventBus.fireEvent(new DispatchFailureEvent(action, caught, message));
-        callback.onFailure(caught);
-      }
-    });
+  /**
+   * Executes {@code action} with an in-progress {@code message} and {@code priority}.
+   *
+   * @param priority
+   *          the order to send {@code action} in, if it's queued by {@link #setMaxConcurrent(int)}
+   */
+  public <A extends Action<R>, R extends Result> void execute(final A action, final AsyncCallback<R> callback, final String message, final DispatchPriority priority) {
+    schedule(new Request<A, R>(action, callback, message, priority, null));
+  }
+
+  /**
+   * Executes {@code action}, superseding any outstanding action previously executed with {@code key}.
+   *
+   * E.g. for type-ahead searches, where only the latest result matters.
+   *
+   * If the superseded action is still queued, its {@code callback} gets an {@link ActionSupersededException};
+   * if it's already been sent, its {@code callback} is never called.
+   *
+   * @param key
+   *          identifies the stream of actions, e.g. the command or presenter executing them
+   */
+  public <A extends Action<R>, R extends Result> void executeLatest(final Object key, final A action, final AsyncCallback<R> callback, final String message, final DispatchPriority priority) {
+    final Request<A, R> request = new Request<A, R>(action, callback, message, priority, key);
+    final Request<?, ?> previous = latest.put(key, request);
+    if (previous != null) {
+      supersede(previous);
+    }
+    schedule(request);
+  }
+
+  /** @return the number of actions waiting for an earlier action to return before being sent */
+  public int getQueuedCount() {
+    int count = 0;
+    for (final List<Request<?, ?>> q : queued) {
+      count += q.size();
+    }
+    return count;
   }
 
   public void unhandledFailure(Throwable caught) {
-    eventBus.fireEvent(new DispatchUnhandledFailureEvent(null, caught, null));
+    unhandledFailure(null, caught);
+  }
+
+  /** Fires a {@link DispatchUnhandledFailureEvent} for {@code action}, for callers that handle some failures themselves. */
+  public void unhandledFailure(Action<?> action, Throwable caught) {
+    eventBus.fireEvent(new DispatchUnhandledFailureEvent(action, caught, null));
   }
 
   /** @return whether there are action calls that have not returned from the server for {@code actionType} */
@@ -121,4 +178,84 @@ public class OutstandingDispatchAsync implements DispatchAsync {
     return false;
   }
 
+  private void schedule(final Request<?, ?> request) {
+    outstanding.add(request.action);
+    eventBus.fireEvent(new DispatchActionEvent(request.action, request.message));
+    if (maxConcurrent > 0 && running >= maxConcurrent) {
+      queued.get(request.priority.ordinal()).add(request);
+    } else {
+      send(request);
+    }
+  }
+
+  private <A extends Action<R>, R extends Result> void send(final Request<A, R> request) {
+    running++;
+    request.sent = true;
+    delegate.execute(request.action, new AsyncCallback<R>() {
+      public void onSuccess(final R result) {
+        done(request);
+        eventBus.fireEvent(new DispatchResultEvent(request.action, result, request.message));
+        if (!request.superseded) {
+          request.callback.onSuccess(result);
+        }
+      }
+
+      public void onFailure(final Throwable caught) {
+        done(request);
+        eventBus.fireEvent(new DispatchFailureEvent(request.action, caught, request.message));
+        if (!request.superseded) {
+          request.callback.onFailure(caught);
+        }
+      }
+    });
+  }
+
+  private void done(final Request<?, ?> request) {
+    running--;
+    outstanding.remove(request.action);
+    if (request.key != null && latest.get(request.key) == request) {
+      latest.remove(request.key);
+    }
+    // send the next action before calling back, so a failing callback doesn't stall the queue
+    sendQueued();
+  }
+
+  private void sendQueued() {
+    for (final LinkedList<Request<?, ?>> q : queued) {
+      while (!q.isEmpty() && (maxConcurrent <= 0 || running < maxConcurrent)) {
+        send(q.removeFirst());
+      }
+    }
+  }
+
+  private void supersede(final Request<?, ?> request) {
+    request.superseded = true;
+    if (!request.sent) {
+      queued.get(request.priority.ordinal()).remove(request);
+      outstanding.remove(request.action);
+      final ActionSupersededException ase = new ActionSupersededException(request.action);
+      eventBus.fireEvent(new DispatchFailureEvent(request.action, ase, request.message));
+      request.callback.onFailure(ase);
+    }
+  }
+
+  /** An action and its callback, which may be queued before being sent. */
+  private static class Request<A extends Action<R>, R extends Result> {
+    private final A action;
+    private final AsyncCallback<R> callback;
+    private final String message;
+    private final DispatchPriority priority;
+    private final Object key;
+    private boolean sent;
+    private boolean superseded;
+
+    private Request(final A action, final AsyncCallback<R> callback, final String message, final DispatchPriority priority, final Object key) {
+      this.action = action;
+      this.callback = callback;
+      this.message = message;
+      this.priority = priority;
+      this.key = key;
+    }
+  }
+
 }
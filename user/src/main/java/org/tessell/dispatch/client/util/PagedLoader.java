@@ -0,0 +1,78 @@
+package org.tessell.dispatch.client.util;
+
+import org.tessell.dispatch.shared.PagedAction;
+import org.tessell.dispatch.shared.PagedResult;
+import org.tessell.model.properties.ListProperty;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * Loads all of a {@link PagedAction}'s pages, one after another, into a {@link ListProperty}.
+ *
+ * Each page is appended as soon as it arrives (so the UI can render the first page while
+ * the rest are loading), and the next page is only requested after the previous one
+ * returns, so only one page is ever in flight.
+ *
+ * Failures go to {@link OutstandingDispatchAsync}'s unhandled failure event and stop loading.
+ */
+public class PagedLoader<A extends PagedAction<R>, R extends PagedResult<T>, T> {
+
+  private final OutstandingDispatchAsync async;
+  private final A action;
+  private final ListProperty<T> list;
+  private boolean loading;
+  private boolean cancelled;
+  // so a restarted load ignores pages from the previous one
+  private int generation;
+
+  public PagedLoader(final OutstandingDispatchAsync async, final A action, final ListProperty<T> list) {
+    this.async = async;
+    this.action = action;
+    this.list = list;
+  }
+
+  /** Clears the list and starts loading from the first page. */
+  public void start() {
+    cancelled = false;
+    loading = true;
+    generation++;
+    list.clear();
+    load(0, generation);
+  }
+
+  /** Stops loading, keeping whatever pages have already been loaded. */
+  public void cancel() {
+    cancelled = true;
+    loading = false;
+  }
+
+  /** @return whether there are still pages to load */
+  public boolean isLoading() {
+    return loading;
+  }
+
+  private void load(final int offset, final int thisGeneration) {
+    action.setOffset(offset);
+    async.execute(action, new AsyncCallback<R>() {
+      public void onSuccess(final R result) {
+        if (cancelled || thisGeneration != generation) {
+          return;
+        }
+        list.addAll(result.getItems());
+        if (result.hasMore() && !result.getItems().isEmpty()) {
+          load(offset + result.getItems().size(), thisGeneration);
+        } else {
+          loading = false;
+        }
+      }
+
+      public void onFailure(final Throwable caught) {
+        if (thisGeneration == generation) {
+          loading = false;
+        }
+        async.unhandledFailure(action, caught);
+      }
+    });
+  }
+
+}
@@ -0,0 +1,17 @@
+package org.tessell.dispatch.client.util;
+
+import org.tessell.dispatch.shared.Action;
+
+/** Decides whether, and after how long, {@link RetryingDispatchAsync} retries a failed action. */
+public interface RetryPolicy {
+
+  /**
+   * @param attempt how many times {@code action} has been sent so far, starting at 1
+   * @return whether to send {@code action} again after it failed with {@code caught}
+   */
+  boolean shouldRetry(Action<?> action, Throwable caught, int attempt);
+
+  /** @return how long to wait before sending the action for the {@code attempt + 1}th time */
+  int getDelayMillis(int attempt);
+
+}
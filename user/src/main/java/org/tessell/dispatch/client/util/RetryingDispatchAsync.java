@@ -0,0 +1,135 @@
+package org.tessell.dispatch.client.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.tessell.dispatch.client.DispatchAsync;
+import org.tessell.dispatch.server.DedupeWindow;
+import org.tessell.dispatch.shared.Action;
+import org.tessell.dispatch.shared.IdempotentAction;
+import org.tessell.dispatch.shared.Result;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * Retries actions that fail with transient errors, e.g. a dropped connection or a server restart.
+ *
+ * Otherwise a blip in the network goes straight to the action's callback, and so usually to a
+ * {@code DispatchFailureEvent} that tells the user something went wrong.
+ *
+ * Which actions are retried:
+ *
+ * - Action types registered with {@link #setPolicy(Class, RetryPolicy)} use that policy.
+ * - Other {@link IdempotentAction}s use the default policy. Each {@code execute} assigns a new
+ *   unique key, which is kept for its retries, so a {@link DedupeWindow} on the server can tell
+ *   a retry from a new action, and won't execute it twice. Executing the same instance again
+ *   (e.g. re-saving the same DTO) is a new action, so it gets a new key.
+ * - Everything else is not retried, because if the response was lost the server may have
+ *   already executed it. Read-only actions can opt in with {@code setPolicy}.
+ *
+ * The callback only sees the outcome of the last attempt. This should be inside
+ * {@link OutstandingDispatchAsync}, e.g. {@code new OutstandingDispatchAsync(eventBus, new RetryingDispatchAsync(...))},
+ * so that the action is still outstanding while it's waiting to be retried.
+ */
+public class RetryingDispatchAsync implements DispatchAsync {
+
+  private final DispatchAsync delegate;
+  private final RetryPolicy defaultPolicy;
+  private final Map<Class<?>, RetryPolicy> policies = new HashMap<Class<?>, RetryPolicy>();
+  private final Random random = new Random();
+  private int nextKey;
+  private int retries;
+
+  /** Retries {@link IdempotentAction}s with a {@link BackoffRetryPolicy}. */
+  public RetryingDispatchAsync(final DispatchAsync delegate) {
+    this(delegate, new BackoffRetryPolicy());
+  }
+
+  /** Retries {@link IdempotentAction}s with {@code defaultPolicy}. */
+  public RetryingDispatchAsync(final DispatchAsync delegate, final RetryPolicy defaultPolicy) {
+    this.delegate = delegate;
+    this.defaultPolicy = defaultPolicy;
+  }
+
+  /** Retries actions of {@code actionType} with {@code policy}, or never retries them if {@code policy} is {@code null}. */
+  public <A extends Action<?>> void setPolicy(final Class<A> actionType, final RetryPolicy policy) {
+    policies.put(actionType, policy);
+  }
+
+  @Override
+  public <A extends Action<R>, R extends Result> void execute(final A action, final AsyncCallback<R> callback) {
+    final RetryPolicy policy = policyFor(action);
+    if (policy == null) {
+      delegate.execute(action, callback);
+      return;
+    }
+    final String key = action instanceof IdempotentAction ? newIdempotencyKey() : null;
+    attempt(action, key, callback, policy, 1);
+  }
+
+  /** @return the number of times an action has been resent, for tests/monitoring */
+  public int getRetries() {
+    return retries;
+  }
+
+  /** @return a key that's unique across clients, since the server dedupes keys for all of a session's tabs */
+  protected String newIdempotencyKey() {
+    return Long.toString(System.currentTimeMillis(), 36)
+      + "-"
+      + Integer.toString(random.nextInt() & Integer.MAX_VALUE, 36)
+      + Integer.toString(random.nextInt() & Integer.MAX_VALUE, 36)
+      + "-"
+      + (nextKey++);
+  }
+
+  /** Runs {@code retry} after {@code delayMillis}, overridable for tests. */
+  protected void schedule(final Runnable retry, final int delayMillis) {
+    Scheduler.get().scheduleFixedDelay(new RepeatingCommand() {
+      public boolean execute() {
+        retry.run();
+        return false;
+      }
+    }, delayMillis);
+  }
+
+  private <A extends Action<R>, R extends Result> void attempt(
+    final A action,
+    final String key,
+    final AsyncCallback<R> callback,
+    final RetryPolicy policy,
+    final int attempt) {
+    // (re)set the key, in case the same instance was executed again while we waited to retry
+    if (key != null) {
+      ((IdempotentAction<?>) action).setIdempotencyKey(key);
+    }
+    delegate.execute(action, new AsyncCallback<R>() {
+      public void onSuccess(final R result) {
+        callback.onSuccess(result);
+      }
+
+      public void onFailure(final Throwable caught) {
+        if (!policy.shouldRetry(action, caught, attempt)) {
+          callback.onFailure(caught);
+          return;
+        }
+        schedule(new Runnable() {
+          public void run() {
+            retries++;
+            attempt(action, key, callback, policy, attempt + 1);
+          }
+        }, policy.getDelayMillis(attempt));
+      }
+    });
+  }
+
+  private RetryPolicy policyFor(final Action<?> action) {
+    if (policies.containsKey(action.getClass())) {
+      return policies.get(action.getClass());
+    }
+    return action instanceof IdempotentAction ? defaultPolicy : null;
+  }
+
+}
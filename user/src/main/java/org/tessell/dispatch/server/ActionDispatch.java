@@ -1,5 +1,6 @@
 package org.tessell.dispatch.server;
 
+import org.tessell.dispatch.server.handlers.ActionHandler;
 import org.tessell.dispatch.shared.Action;
 import org.tessell.dispatch.shared.ActionException;
 import org.tessell.dispatch.shared.Result;
@@ -18,6 +19,38 @@ public interface ActionDispatch {
    */
   <A extends Action<R>, R extends Result> R execute(A action, ExecutionContext context) throws ActionException;
 
+  /**
+   * Executes the specified action with the {@code route} from {@link #route(Action)}, so a wrapping dispatch
+   * (e.g. {@link SessionValidatorDispatch}) doesn't need to look up the action's handler again.
+   *
+   * @throws ActionException because it's best to not let arbitrary RuntimeExceptions attempt to be serialized
+   */
+  <A extends Action<R>, R extends Result> R execute(Route route, A action, ExecutionContext context) throws ActionException;
+
+  /** @return the handler and CSRF flag for the given action, which should be its only lookup per request. */
+  Route route(Action<?> action);
+
   /** @return whether we should skip the CSRF check for the given action. */
   boolean skipCSRFCheck(Action<?> action);
+
+  /** An action's handler, with its CSRF flag read once when the handler was added. */
+  public static class Route {
+    private final ActionHandler<?, ?> handler;
+    private final boolean skipCSRFCheck;
+
+    public Route(final ActionHandler<?, ?> handler, final boolean skipCSRFCheck) {
+      this.handler = handler;
+      this.skipCSRFCheck = skipCSRFCheck;
+    }
+
+    /** @return the handler, or {@code null} for a {@code BatchAction} */
+    public ActionHandler<?, ?> getHandler() {
+      return handler;
+    }
+
+    public boolean skipCSRFCheck() {
+      return skipCSRFCheck;
+    }
+  }
+
 }
@@ -0,0 +1,134 @@
+package org.tessell.dispatch.server;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.tessell.dispatch.shared.ActionException;
+import org.tessell.dispatch.shared.IdempotentAction;
+import org.tessell.dispatch.shared.Result;
+
+/**
+ * Remembers the outcome of recently executed {@link IdempotentAction}s, so a client's retry
+ * of an action whose response was lost doesn't execute it a second time.
+ *
+ * Actions are keyed by their idempotency key, scoped to the session and action type. A
+ * repeated key within {@code windowMillis} of the first execution gets the original result
+ * or {@link ActionException}, waiting for it if the original is still running. Any other
+ * exception isn't remembered, since it wasn't the handler's answer, so a retry executes again.
+ *
+ * The window should be longer than a client's retries take, e.g. a minute, and once there
+ * are {@code maxEntries} outcomes, the oldest is forgotten.
+ */
+public class DedupeWindow {
+
+  // in execution order, so expired outcomes are always at the head
+  private final LinkedHashMap<String, Execution> executions;
+  private final long windowMillis;
+  private long duplicates;
+
+  public DedupeWindow(final int maxEntries, final long windowMillis) {
+    this.windowMillis = windowMillis;
+    executions = new LinkedHashMap<String, Execution>() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, Execution> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /** @return the outcome of {@code work}, or the original outcome if {@code action}'s key was already executed */
+  public Result execute(final IdempotentAction<?> action, final ExecutionContext context, final Callable<Result> work) {
+    final String key = keyFor(action, context);
+    final Execution execution;
+    final boolean isFirst;
+    synchronized (this) {
+      expire(now());
+      final Execution existing = executions.get(key);
+      if (existing != null) {
+        duplicates++;
+        execution = existing;
+        isFirst = false;
+      } else {
+        execution = new Execution(new FutureTask<Result>(work), now());
+        executions.put(key, execution);
+        isFirst = true;
+      }
+    }
+    // run outside the lock, so only duplicates of this key wait on it
+    if (isFirst) {
+      execution.task.run();
+    }
+    try {
+      return execution.task.get();
+    } catch (final ExecutionException ee) {
+      final Throwable cause = ee.getCause();
+      if (cause instanceof ActionException) {
+        throw (ActionException) cause;
+      }
+      synchronized (this) {
+        if (executions.get(key) == execution) {
+          executions.remove(key);
+        }
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    } catch (final InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting on " + action, ie);
+    }
+  }
+
+  /** Forgets all outcomes. */
+  public synchronized void clear() {
+    executions.clear();
+  }
+
+  public synchronized int size() {
+    return executions.size();
+  }
+
+  /** @return the number of executions that were skipped because their key was already seen */
+  public synchronized long getDuplicates() {
+    return duplicates;
+  }
+
+  /** @return the key for {@code action}, which by default is scoped to the session so clients can't see each other's results */
+  protected String keyFor(final IdempotentAction<?> action, final ExecutionContext context) {
+    return context.getSessionId() + "/" + action.getClass().getName() + "/" + action.getIdempotencyKey();
+  }
+
+  /** @return the current time, overridable for tests */
+  protected long now() {
+    return System.currentTimeMillis();
+  }
+
+  private void expire(final long now) {
+    for (final Iterator<Execution> i = executions.values().iterator(); i.hasNext();) {
+      if (now - i.next().started < windowMillis) {
+        break;
+      }
+      i.remove();
+    }
+  }
+
+  private static class Execution {
+    private final FutureTask<Result> task;
+    private final long started;
+
+    private Execution(final FutureTask<Result> task, final long started) {
+      this.task = task;
+      this.started = started;
+    }
+  }
+
+}
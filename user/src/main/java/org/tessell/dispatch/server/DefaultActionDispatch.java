@@ -1,40 +1,269 @@
 package org.tessell.dispatch.server;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.tessell.dispatch.server.handlers.ActionHandler;
+import org.tessell.dispatch.server.handlers.CacheableActionHandler;
+import org.tessell.dispatch.server.metrics.ActionMetrics;
 import org.tessell.dispatch.shared.Action;
+import org.tessell.dispatch.shared.ActionException;
+import org.tessell.dispatch.shared.BatchAction;
+import org.tessell.dispatch.shared.BatchResult;
+import org.tessell.dispatch.shared.IdempotentAction;
 import org.tessell.dispatch.shared.Result;
 
 /** Stock server-side implementation of {@link ActionDispatch}. */
 public class DefaultActionDispatch implements ActionDispatch {
 
-  private final Map<Class<?>, ActionHandler<?, ?>> handlers = new HashMap<Class<?>, ActionHandler<?, ?>>(100);
+  // batches don't have a handler, but do need the CSRF flag of their actions
+  private static final Route BATCH = new Route(null, false);
+  private static final Route BATCH_SKIPPING_CSRF = new Route(null, true);
+  // an immutable snapshot that addHandler replaces, so lookups never need to lock
+  private volatile Map<Class<?>, Route> routes = new HashMap<Class<?>, Route>();
+  private ExecutorService batchExecutor;
+  private ResultCache resultCache;
+  private DedupeWindow dedupeWindow;
 
-  /** Executes {@code action}. */
+  /** Executes {@code action}, or each action within a {@link BatchAction}. */
   @Override
   public <A extends Action<R>, R extends Result> R execute(final A action, final ExecutionContext context) {
-    return findHandler(action).execute(action, context);
+    return execute(route(action), action, context);
   }
 
-  /** Adds {@code handler}. */
-  public void addHandler(final ActionHandler<?, ?> handler) {
-    handlers.put(handler.getActionType(), handler);
+  /**
+   * Executes {@code action} with its {@code route}, or each action within a {@link BatchAction}.
+   *
+   * Every action goes through here, including validated actions and each action within a batch,
+   * so subclasses that wrap execution (e.g. for transactions or auditing) should override this.
+   * It's also where each action is recorded in the context's {@link ActionMetrics}, so a batch
+   * is recorded both as a whole and as each of its actions.
+   */
+  @Override
+  public <A extends Action<R>, R extends Result> R execute(final Route route, final A action, final ExecutionContext context) {
+    final ActionMetrics metrics = context.getActionMetrics();
+    if (metrics == null) {
+      return executeRoute(route, action, context);
+    }
+    final long start = metrics.begin(action);
+    boolean failed = true;
+    try {
+      final R result = executeRoute(route, action, context);
+      failed = false;
+      return result;
+    } finally {
+      metrics.end(action, start, failed);
+    }
   }
 
+  @SuppressWarnings("unchecked")
+  private <A extends Action<R>, R extends Result> R executeRoute(final Route route, final A action, final ExecutionContext context) {
+    if (action instanceof BatchAction) {
+      return (R) executeBatch((BatchAction) action, context);
+    }
+    final ActionHandler<A, R> handler = (ActionHandler<A, R>) route.getHandler();
+    final DedupeWindow window = dedupeWindow;
+    if (window != null && action instanceof IdempotentAction && ((IdempotentAction<?>) action).getIdempotencyKey() != null) {
+      return (R) window.execute((IdempotentAction<?>) action, context, new Callable<Result>() {
+        public Result call() {
+          return executeHandler(handler, action, context);
+        }
+      });
+    }
+    return executeHandler(handler, action, context);
+  }
+
+  private <A extends Action<R>, R extends Result> R executeHandler(final ActionHandler<A, R> handler, final A action, final ExecutionContext context) {
+    final ResultCache cache = resultCache;
+    if (cache != null && handler instanceof CacheableActionHandler) {
+      return executeCached(cache, (CacheableActionHandler<A, R>) handler, action, context);
+    }
+    return handler.execute(action, context);
+  }
+
+  /** Adds {@code handler}, which is safe to call while other threads are dispatching. */
+  public synchronized void addHandler(final ActionHandler<?, ?> handler) {
+    final Map<Class<?>, Route> copy = new HashMap<Class<?>, Route>(routes);
+    copy.put(handler.getActionType(), new Route(handler, handler.skipCSRFCheck()));
+    routes = copy;
+  }
+
+  /** @return whether to skip the CSRF check, which for a {@link BatchAction} is only if every action skips it */
   @Override
   public boolean skipCSRFCheck(Action<?> action) {
-    return findHandler(action).skipCSRFCheck();
+    return route(action).skipCSRFCheck();
   }
 
-  /** @return the handler for {@code action} or throws {@code IllegalStateException} */
-  protected <A extends Action<R>, R extends Result> ActionHandler<A, R> findHandler(final A action) {
-    @SuppressWarnings("unchecked")
-    final ActionHandler<A, R> handler = (ActionHandler<A, R>) handlers.get(action.getClass());
-    if (handler == null) {
+  /**
+   * Reuses the results of {@link CacheableActionHandler}s from {@code cache}.
+   *
+   * Pass {@code null} to turn caching back off, which is the default. The cache is
+   * also how callers invalidate results when the underlying data changes.
+   */
+  public void setResultCache(final ResultCache cache) {
+    this.resultCache = cache;
+  }
+
+  /**
+   * Uses {@code window} to skip re-executing {@link IdempotentAction}s that clients retry,
+   * e.g. with {@code RetryingDispatchAsync}, after the response to the first attempt was lost.
+   *
+   * Pass {@code null} to turn deduping back off, which is the default.
+   */
+  public void setDedupeWindow(final DedupeWindow window) {
+    this.dedupeWindow = window;
+  }
+
+  /**
+   * Runs the actions within a {@link BatchAction} concurrently on {@code executor}, so a
+   * batch takes as long as its slowest action instead of the sum of all of them.
+   *
+   * The executor should be bounded, e.g. {@code Executors.newFixedThreadPool(n)}; the
+   * request thread runs one of the actions itself, as well as any the executor rejects.
+   * The handlers must be thread-safe, and must not depend on each other's side effects
+   * (or on being able to write to the shared {@link ExecutionContext#getResponse()}).
+   * Pass {@code null} to go back to running batches sequentially, which is the default.
+   */
+  public void setBatchExecutor(final ExecutorService executor) {
+    this.batchExecutor = executor;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <A extends Action<R>, R extends Result> R executeCached(final ResultCache cache, final CacheableActionHandler<A, R> handler, final A action, final ExecutionContext context) {
+    final String scope = handler.getCacheScope(action, context);
+    final R cached = (R) cache.get(scope, action);
+    if (cached != null) {
+      return cached;
+    }
+    // failures aren't cached, so the next call tries again
+    final R result = handler.execute(action, context);
+    if (result != null) {
+      cache.put(scope, action, result, handler.getCacheTtlMillis());
+    }
+    return result;
+  }
+
+  /**
+   * Executes each action in {@code batch}, in parallel if we have a batch executor.
+   *
+   * An {@link ActionException} only fails its own action, but any other exception fails the
+   * whole batch, the same as it would have failed a single action.
+   */
+  protected BatchResult executeBatch(final BatchAction batch, final ExecutionContext context) {
+    final ExecutorService executor = batchExecutor;
+    if (executor == null || batch.getActions().size() < 2) {
+      return executeSequentially(batch, context);
+    }
+    return executeInParallel(executor, batch, context);
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private BatchResult executeSequentially(final BatchAction batch, final ExecutionContext context) {
+    final BatchResult result = new BatchResult(batch.getActions().size());
+    for (final Action<?> action : batch.getActions()) {
+      try {
+        result.addResult(execute((Action) action, context));
+      } catch (final ActionException ae) {
+        result.addFailure(ae);
+      }
+    }
+    return result;
+  }
+
+  private BatchResult executeInParallel(final ExecutorService executor, final BatchAction batch, final ExecutionContext context) {
+    final List<Action<?>> actions = batch.getActions();
+    final List<Future<Result>> futures = new ArrayList<Future<Result>>(actions.size());
+    try {
+      for (int i = 0; i < actions.size(); i++) {
+        final FutureTask<Result> task = new FutureTask<Result>(newCallable(actions.get(i), context));
+        futures.add(task);
+        // the request thread would otherwise sit idle, so it runs the last action itself
+        if (i == actions.size() - 1) {
+          task.run();
+        } else {
+          try {
+            executor.execute(task);
+          } catch (final RejectedExecutionException ree) {
+            task.run();
+          }
+        }
+      }
+      final BatchResult result = new BatchResult(actions.size());
+      for (final Future<Result> future : futures) {
+        try {
+          result.addResult(future.get());
+        } catch (final ExecutionException ee) {
+          final Throwable cause = ee.getCause();
+          if (cause instanceof ActionException) {
+            result.addFailure((ActionException) cause);
+          } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          } else if (cause instanceof Error) {
+            throw (Error) cause;
+          } else {
+            throw new RuntimeException(cause);
+          }
+        }
+      }
+      return result;
+    } catch (final InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while executing " + batch, ie);
+    } finally {
+      // if one action failed the batch, don't leave the rest running
+      for (final Future<Result> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  private Callable<Result> newCallable(final Action<?> action, final ExecutionContext context) {
+    return new Callable<Result>() {
+      @SuppressWarnings({ "unchecked", "rawtypes" })
+      public Result call() {
+        if (action instanceof BatchAction) {
+          // don't tie up more threads waiting on threads from the same executor
+          return executeSequentially((BatchAction) action, context);
+        }
+        return execute((Action) action, context);
+      }
+    };
+  }
+
+  /**
+   * @return the handler and CSRF flag for {@code action}, from a single lookup, or throws {@code IllegalStateException}
+   *
+   * For a {@link BatchAction}, this has no handler, and only skips the CSRF check if every action does.
+   */
+  @Override
+  public Route route(final Action<?> action) {
+    if (action instanceof BatchAction) {
+      for (final Action<?> each : ((BatchAction) action).getActions()) {
+        if (!route(each).skipCSRFCheck()) {
+          return BATCH;
+        }
+      }
+      return BATCH_SKIPPING_CSRF;
+    }
+    final Route route = routes.get(action.getClass());
+    if (route == null) {
       throw new IllegalStateException("No handler for " + action);
     }
+    return route;
+  }
+
+  /** @return the handler for {@code action} or throws {@code IllegalStateException}, see {@link #route(Action)} */
+  protected <A extends Action<R>, R extends Result> ActionHandler<A, R> findHandler(final A action) {
+    @SuppressWarnings("unchecked")
+    final ActionHandler<A, R> handler = (ActionHandler<A, R>) route(action).getHandler();
     return handler;
   }
 
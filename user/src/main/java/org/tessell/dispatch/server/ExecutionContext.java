@@ -4,6 +4,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.tessell.dispatch.server.handlers.ActionHandler;
+import org.tessell.dispatch.server.metrics.ActionMetrics;
 
 /** ExecutionContext instances are passed to {@link ActionHandler}s. */
 public class ExecutionContext {
@@ -11,11 +12,17 @@ public class ExecutionContext {
   private final HttpServletRequest request;
   private final HttpServletResponse response;
   private final String sessionId;
+  private final ActionMetrics actionMetrics;
 
   public ExecutionContext(final HttpServletRequest request, final HttpServletResponse response, final String sessionId) {
+    this(request, response, sessionId, null);
+  }
+
+  public ExecutionContext(final HttpServletRequest request, final HttpServletResponse response, final String sessionId, final ActionMetrics actionMetrics) {
     this.request = request;
     this.response = response;
     this.sessionId = sessionId;
+    this.actionMetrics = actionMetrics;
   }
 
   public HttpServletRequest getRequest() {
@@ -30,4 +37,9 @@ public class ExecutionContext {
     return sessionId;
   }
 
+  /** @return where {@link DefaultActionDispatch} records each action it executes, or {@code null} to not record them */
+  public ActionMetrics getActionMetrics() {
+    return actionMetrics;
+  }
+
 }
@@ -0,0 +1,139 @@
+package org.tessell.dispatch.server;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.tessell.dispatch.server.handlers.CacheableActionHandler;
+import org.tessell.dispatch.shared.Action;
+import org.tessell.dispatch.shared.Result;
+
+/**
+ * A bounded, thread-safe cache of {@link Result}s for {@link CacheableActionHandler}s.
+ *
+ * Results are keyed by the action's {@code equals}/{@code hashCode} (which {@code @GenDispatch}
+ * actions implement over their {@code @In} fields) plus the handler's scope, so e.g.
+ * per-tenant lookups don't leak between tenants. Once there are {@code maxEntries} results,
+ * the least recently used is evicted.
+ */
+public class ResultCache {
+
+  private final LinkedHashMap<Key, Cached> entries;
+  private long hits;
+  private long misses;
+
+  public ResultCache(final int maxEntries) {
+    entries = new LinkedHashMap<Key, Cached>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Key, Cached> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /** @return the cached result for {@code action} within {@code scope}, or {@code null} */
+  public synchronized Result get(final String scope, final Action<?> action) {
+    final Key key = new Key(scope, action);
+    final Cached cached = entries.get(key);
+    if (cached != null && now() >= cached.expires) {
+      entries.remove(key);
+    } else if (cached != null) {
+      hits++;
+      return cached.result;
+    }
+    misses++;
+    return null;
+  }
+
+  /** Caches {@code result} for {@code action} within {@code scope} for {@code ttlMillis}. */
+  public synchronized void put(final String scope, final Action<?> action, final Result result, final long ttlMillis) {
+    entries.put(new Key(scope, action), new Cached(result, now() + ttlMillis));
+  }
+
+  /** Forgets the results for {@code action}, in every scope. */
+  public synchronized void invalidate(final Action<?> action) {
+    for (final Iterator<Key> i = entries.keySet().iterator(); i.hasNext();) {
+      if (i.next().action.equals(action)) {
+        i.remove();
+      }
+    }
+  }
+
+  /** Forgets the results for every action of {@code actionType}, e.g. after its underlying data changes. */
+  public synchronized void invalidateAll(final Class<?> actionType) {
+    for (final Iterator<Key> i = entries.keySet().iterator(); i.hasNext();) {
+      if (i.next().action.getClass() == actionType) {
+        i.remove();
+      }
+    }
+  }
+
+  /** Forgets the results within {@code scope}, e.g. when a tenant's data changes or a session ends. */
+  public synchronized void invalidateScope(final String scope) {
+    for (final Iterator<Key> i = entries.keySet().iterator(); i.hasNext();) {
+      final String s = i.next().scope;
+      if (s == null ? scope == null : s.equals(scope)) {
+        i.remove();
+      }
+    }
+  }
+
+  /** Forgets all cached results. */
+  public synchronized void invalidateAll() {
+    entries.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /** @return the current time, overridable for tests */
+  protected long now() {
+    return System.currentTimeMillis();
+  }
+
+  private static class Key {
+    private final String scope;
+    private final Action<?> action;
+
+    private Key(final String scope, final Action<?> action) {
+      this.scope = scope;
+      this.action = action;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final Key other = (Key) o;
+      return (scope == null ? other.scope == null : scope.equals(other.scope)) && action.equals(other.action);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (scope == null ? 0 : scope.hashCode()) + action.hashCode();
+    }
+  }
+
+  private static class Cached {
+    private final Result result;
+    private final long expires;
+
+    private Cached(final Result result, final long expires) {
+      this.result = result;
+      this.expires = expires;
+    }
+  }
+
+}
@@ -25,15 +25,22 @@ public class SessionValidatorDispatch implements ActionDispatch {
 
   @Override
   public <A extends Action<R>, R extends Result> R execute(A action, ExecutionContext context) throws ActionException {
+    // look up the handler once for both the CSRF check and executing it
+    return execute(delegate.route(action), action, context);
+  }
+
+  @Override
+  public <A extends Action<R>, R extends Result> R execute(Route route, A action, ExecutionContext context) throws ActionException {
     validator.setTokenIfNeeded(context);
-    if (!delegate.skipCSRFCheck(action)) {
-      String passedSessionId = context.getSessionId(); // from action payload
-      String secureSessionId = validator.getToken(context); // from header
-      if (secureSessionId == null || !secureSessionId.equals(passedSessionId)) {
-        throw invalidSession(context);
-      }
+    if (!route.skipCSRFCheck()) {
+      checkSessionId(context);
     }
-    return delegate.execute(action, context);
+    return delegate.execute(route, action, context);
+  }
+
+  @Override
+  public Route route(Action<?> action) {
+    return delegate.route(action);
   }
 
   @Override
@@ -41,6 +48,14 @@ public class SessionValidatorDispatch implements ActionDispatch {
     return delegate.skipCSRFCheck(action);
   }
 
+  private void checkSessionId(ExecutionContext context) {
+    String passedSessionId = context.getSessionId(); // from action payload
+    String secureSessionId = validator.getToken(context); // from header
+    if (secureSessionId == null || !secureSessionId.equals(passedSessionId)) {
+      throw invalidSession(context);
+    }
+  }
+
   /** Allows subclasses to create their own invalid session subclasses of {@link ActionException}. */
   protected RuntimeException invalidSession(ExecutionContext context) {
     return new IllegalStateException("Invalid session");
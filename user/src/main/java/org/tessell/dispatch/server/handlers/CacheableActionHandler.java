@@ -0,0 +1,23 @@
+package org.tessell.dispatch.server.handlers;
+
+import org.tessell.dispatch.server.DefaultActionDispatch;
+import org.tessell.dispatch.server.ExecutionContext;
+import org.tessell.dispatch.server.ResultCache;
+import org.tessell.dispatch.shared.Action;
+import org.tessell.dispatch.shared.Result;
+
+/**
+ * Marks a handler as idempotent, so {@link DefaultActionDispatch} can reuse its results from a {@link ResultCache}.
+ *
+ * Results are shared between requests (and, depending on the scope, between users), so they
+ * must not be mutated after they're returned.
+ */
+public interface CacheableActionHandler<A extends Action<R>, R extends Result> extends ActionHandler<A, R> {
+
+  /** @return how long a result can be reused for */
+  long getCacheTtlMillis();
+
+  /** @return the scope results are shared within, e.g. a tenant id or session id, or {@code null} to share them with everyone */
+  String getCacheScope(A action, ExecutionContext context);
+
+}
@@ -0,0 +1,43 @@
+package org.tessell.dispatch.server.handlers;
+
+import java.util.List;
+
+import org.tessell.dispatch.server.ExecutionContext;
+import org.tessell.dispatch.shared.PagedAction;
+import org.tessell.dispatch.shared.PagedResult;
+
+/**
+ * A base class for handlers that return a {@link PagedAction}'s results one page at a time.
+ *
+ * Subclasses only load the requested page, e.g. with {@code LIMIT}/{@code OFFSET}, so the
+ * whole result set is never in memory at once.
+ */
+public abstract class PagedActionHandler<A extends PagedAction<R>, R extends PagedResult<T>, T> implements ActionHandler<A, R> {
+
+  @Override
+  public R execute(final A action, final ExecutionContext context) {
+    final int pageSize = Math.max(1, action.getPageSize());
+    // ask for one extra item to know whether there's another page, without a separate count query
+    final List<T> items = loadPage(action, action.getOffset(), pageSize + 1, context);
+    final R result = newResult();
+    if (items.size() > pageSize) {
+      result.setItems(items.subList(0, pageSize));
+      result.setMore(true);
+    } else {
+      result.setItems(items);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean skipCSRFCheck() {
+    return false;
+  }
+
+  /** @return up to {@code limit} items starting at {@code offset} */
+  protected abstract List<T> loadPage(A action, int offset, int limit, ExecutionContext context);
+
+  /** @return a new, empty result */
+  protected abstract R newResult();
+
+}
@@ -0,0 +1,95 @@
+package org.tessell.dispatch.server.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.tessell.dispatch.server.servlet.AbstractDispatchServiceServlet;
+import org.tessell.dispatch.shared.Action;
+
+/**
+ * Call counts, failure counts, in-flight counts and latency histograms per action type.
+ *
+ * {@link AbstractDispatchServiceServlet} passes its metrics to the dispatch, which records every
+ * action it executes, including each action within a batch, and publishes them as a servlet
+ * context attribute for {@link MetricsServlet} to dump as JSON.
+ * Snapshots can also be pushed to a {@link MetricsReporter}, e.g. on a timer.
+ */
+public class ActionMetrics {
+
+  /** The servlet context attribute the dispatch servlet's metrics are published under. */
+  public static final String CONTEXT_ATTRIBUTE = ActionMetrics.class.getName();
+
+  private final ConcurrentMap<Class<?>, ActionStats> stats = new ConcurrentHashMap<Class<?>, ActionStats>();
+
+  /** @return the start time to pass to {@link #end(Action, long, boolean)} */
+  public long begin(final Action<?> action) {
+    statsFor(action.getClass()).begin();
+    return System.nanoTime();
+  }
+
+  /** Records that {@code action}, which began at {@code start}, has finished. */
+  public void end(final Action<?> action, final long start, final boolean failed) {
+    statsFor(action.getClass()).end((System.nanoTime() - start) / 1000, failed);
+  }
+
+  /** @return the live stats for {@code actionType}, or {@code null} if it's never been called */
+  public ActionStats getStats(final Class<?> actionType) {
+    return stats.get(actionType);
+  }
+
+  /** @return a snapshot of every action type that has been called, busiest first */
+  public List<ActionSnapshot> snapshot() {
+    final List<ActionSnapshot> snapshots = new ArrayList<ActionSnapshot>(stats.size());
+    for (final Map.Entry<Class<?>, ActionStats> e : stats.entrySet()) {
+      snapshots.add(new ActionSnapshot(e.getKey().getName(), e.getValue()));
+    }
+    Collections.sort(snapshots, new Comparator<ActionSnapshot>() {
+      public int compare(final ActionSnapshot a, final ActionSnapshot b) {
+        return a.getCalls() > b.getCalls() ? -1 : a.getCalls() < b.getCalls() ? 1 : a.getName().compareTo(b.getName());
+      }
+    });
+    return snapshots;
+  }
+
+  /** Passes a snapshot to {@code reporter}. */
+  public void report(final MetricsReporter reporter) {
+    reporter.report(snapshot());
+  }
+
+  /** @return a snapshot as a JSON array */
+  public String toJson() {
+    final StringBuilder sb = new StringBuilder("[");
+    boolean first = true;
+    for (final ActionSnapshot s : snapshot()) {
+      if (!first) {
+        sb.append(",");
+      }
+      s.appendJson(sb);
+      first = false;
+    }
+    return sb.append("]").toString();
+  }
+
+  /** Forgets all recorded metrics. */
+  public void reset() {
+    stats.clear();
+  }
+
+  private ActionStats statsFor(final Class<?> actionType) {
+    ActionStats s = stats.get(actionType);
+    if (s == null) {
+      final ActionStats created = new ActionStats();
+      s = stats.putIfAbsent(actionType, created);
+      if (s == null) {
+        s = created;
+      }
+    }
+    return s;
+  }
+
+}
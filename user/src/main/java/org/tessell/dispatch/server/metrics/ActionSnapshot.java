@@ -0,0 +1,86 @@
+package org.tessell.dispatch.server.metrics;
+
+/** A point-in-time copy of the metrics for one action type, with latencies in microseconds. */
+public class ActionSnapshot {
+
+  private final String name;
+  private final long calls;
+  private final long failures;
+  private final long inFlight;
+  private final long mean;
+  private final long p50;
+  private final long p90;
+  private final long p99;
+  private final long max;
+
+  ActionSnapshot(final String name, final ActionStats stats) {
+    final LatencyHistogram h = stats.getLatencies();
+    this.name = name;
+    calls = stats.getCalls();
+    failures = stats.getFailures();
+    inFlight = stats.getInFlight();
+    mean = h.getMean();
+    p50 = h.getPercentile(50);
+    p90 = h.getPercentile(90);
+    p99 = h.getPercentile(99);
+    max = h.getMax();
+  }
+
+  /** @return the action's class name */
+  public String getName() {
+    return name;
+  }
+
+  public long getCalls() {
+    return calls;
+  }
+
+  public long getFailures() {
+    return failures;
+  }
+
+  public long getInFlight() {
+    return inFlight;
+  }
+
+  public long getMean() {
+    return mean;
+  }
+
+  public long getP50() {
+    return p50;
+  }
+
+  public long getP90() {
+    return p90;
+  }
+
+  public long getP99() {
+    return p99;
+  }
+
+  public long getMax() {
+    return max;
+  }
+
+  /** Appends this snapshot as a JSON object to {@code sb}. */
+  public void appendJson(final StringBuilder sb) {
+    sb.append("{\"name\":\"");
+    for (final char c : name.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        sb.append('\\');
+      }
+      sb.append(c);
+    }
+    sb.append("\",\"calls\":").append(calls);
+    sb.append(",\"failures\":").append(failures);
+    sb.append(",\"inFlight\":").append(inFlight);
+    sb.append(",\"meanMicros\":").append(mean);
+    sb.append(",\"p50Micros\":").append(p50);
+    sb.append(",\"p90Micros\":").append(p90);
+    sb.append(",\"p99Micros\":").append(p99);
+    sb.append(",\"maxMicros\":").append(max);
+    sb.append("}");
+  }
+
+}
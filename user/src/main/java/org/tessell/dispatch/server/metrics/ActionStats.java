@@ -0,0 +1,44 @@
+package org.tessell.dispatch.server.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** The live counters and latencies for one action type. */
+public class ActionStats {
+
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong inFlight = new AtomicLong();
+  private final LatencyHistogram latencies = new LatencyHistogram();
+
+  void begin() {
+    inFlight.incrementAndGet();
+  }
+
+  void end(final long micros, final boolean failed) {
+    inFlight.decrementAndGet();
+    calls.incrementAndGet();
+    if (failed) {
+      failures.incrementAndGet();
+    }
+    latencies.record(micros);
+  }
+
+  /** @return the number of completed calls, successful or not */
+  public long getCalls() {
+    return calls.get();
+  }
+
+  public long getFailures() {
+    return failures.get();
+  }
+
+  /** @return the number of calls currently executing */
+  public long getInFlight() {
+    return inFlight.get();
+  }
+
+  public LatencyHistogram getLatencies() {
+    return latencies;
+  }
+
+}
@@ -0,0 +1,99 @@
+package org.tessell.dispatch.server.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, lock-free histogram of latencies, in microseconds.
+ *
+ * Like an HDR histogram, buckets are log-linear: each power of two is split into
+ * 16 equal sub-buckets, so any recorded value is reported within ~6% of its actual
+ * value, using a few KB regardless of how many values are recorded. Recording is
+ * just a few atomic increments, so it's cheap enough to do on every request.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BITS = 4;
+  private static final int SUB = 1 << SUB_BITS;
+  // ~12 days in micros, anything longer is recorded as this
+  private static final int MAX_BITS = 40;
+  private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+  private static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) * SUB;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /** Records one latency of {@code micros}. */
+  public void record(final long micros) {
+    final long v = Math.min(Math.max(micros, 0), MAX_VALUE);
+    counts.incrementAndGet(indexOf(v));
+    count.incrementAndGet();
+    sum.addAndGet(v);
+    long current;
+    while (v > (current = max.get()) && !max.compareAndSet(current, v)) {
+      // lost the race, try again
+    }
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  /** @return the mean latency, or 0 if nothing has been recorded */
+  public long getMean() {
+    final long c = count.get();
+    return c == 0 ? 0 : sum.get() / c;
+  }
+
+  /**
+   * @param percentile e.g. 99.0 for the 99th percentile
+   * @return the latency that {@code percentile}% of recorded values are at or below, or 0 if nothing has been recorded
+   */
+  public long getPercentile(final double percentile) {
+    // copy first so concurrent recording doesn't skew the walk
+    final long[] copy = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+      total += copy[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    final long target = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100.0) / 100.0));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += copy[i];
+      if (seen >= target) {
+        // report the highest value the bucket could hold, like HDR does, but never more than the max
+        return Math.min(lowerBound(i + 1) - 1, max.get());
+      }
+    }
+    return max.get();
+  }
+
+  static int indexOf(final long value) {
+    if (value < SUB) {
+      return (int) value;
+    }
+    final int exp = 63 - Long.numberOfLeadingZeros(value);
+    final int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB - 1);
+    return (exp - SUB_BITS + 1) * SUB + sub;
+  }
+
+  static long lowerBound(final int index) {
+    if (index < SUB) {
+      return index;
+    }
+    final int exp = index / SUB - 1 + SUB_BITS;
+    final int sub = index % SUB;
+    return ((long) (SUB + sub)) << (exp - SUB_BITS);
+  }
+
+}
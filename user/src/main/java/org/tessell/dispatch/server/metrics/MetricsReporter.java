@@ -0,0 +1,11 @@
+package org.tessell.dispatch.server.metrics;
+
+import java.util.List;
+
+/** Publishes {@link ActionMetrics} snapshots somewhere, e.g. logs or a metrics service. */
+public interface MetricsReporter {
+
+  /** @param snapshots the metrics for each action type that has been called, busiest first */
+  void report(List<ActionSnapshot> snapshots);
+
+}
@@ -0,0 +1,39 @@
+package org.tessell.dispatch.server.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.tessell.dispatch.server.servlet.AbstractDispatchServiceServlet;
+
+/**
+ * Dumps the {@link ActionMetrics} of the {@link AbstractDispatchServiceServlet} in the same web app as JSON.
+ *
+ * By default only requests from localhost are answered; set the {@code allowRemote}
+ * init-param to {@code true} if it's mounted somewhere already protected.
+ */
+public class MetricsServlet extends HttpServlet {
+
+  private static final long serialVersionUID = 1L;
+
+  @Override
+  protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+    if (!"true".equals(getInitParameter("allowRemote")) && !isLocal(request.getRemoteAddr())) {
+      response.sendError(HttpServletResponse.SC_FORBIDDEN);
+      return;
+    }
+    final ActionMetrics metrics = (ActionMetrics) getServletContext().getAttribute(ActionMetrics.CONTEXT_ATTRIBUTE);
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader("Cache-Control", "no-cache");
+    response.getWriter().write(metrics == null ? "[]" : metrics.toJson());
+  }
+
+  private static boolean isLocal(final String addr) {
+    return "127.0.0.1".equals(addr) || "0:0:0:0:0:0:0:1".equals(addr) || "::1".equals(addr);
+  }
+
+}
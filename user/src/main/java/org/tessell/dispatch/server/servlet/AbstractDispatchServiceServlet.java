@@ -1,12 +1,17 @@
 package org.tessell.dispatch.server.servlet;
 
 import javax.servlet.GenericServlet;
+import javax.servlet.ServletException;
 
 import org.tessell.dispatch.server.ActionDispatch;
 import org.tessell.dispatch.server.ExecutionContext;
 import org.tessell.dispatch.server.SessionIdValidator;
+import org.tessell.dispatch.server.metrics.ActionMetrics;
+import org.tessell.dispatch.server.metrics.MetricsReporter;
+import org.tessell.dispatch.server.metrics.MetricsServlet;
 import org.tessell.dispatch.shared.Action;
 import org.tessell.dispatch.shared.ActionException;
+import org.tessell.dispatch.shared.BatchAction;
 import org.tessell.dispatch.shared.DispatchService;
 import org.tessell.dispatch.shared.Result;
 
@@ -15,10 +20,22 @@ import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 /**
  * Provides a basic {@link DispatchService} implementation that defers to subclasses
  * for the {@link SessionIdValidator} and {@link ActionDispatch} instances.
+ *
+ * Every action's calls, failures and latency are recorded in {@link #getActionMetrics()},
+ * which is also published to the servlet context for {@link MetricsServlet}. They're recorded
+ * by the dispatch, via {@link ExecutionContext#getActionMetrics()}, so each action within a
+ * {@link BatchAction} gets its own row, as well as the batch as a whole.
  */
 public abstract class AbstractDispatchServiceServlet extends RemoteServiceServlet implements DispatchService {
 
   private static final long serialVersionUID = 1L;
+  private final ActionMetrics metrics = new ActionMetrics();
+
+  @Override
+  public void init() throws ServletException {
+    super.init();
+    getServletContext().setAttribute(ActionMetrics.CONTEXT_ATTRIBUTE, metrics);
+  }
 
   @Override
   public Result execute(final String sessionId, final Action<?> action) throws ActionException {
@@ -28,7 +45,7 @@ public abstract class AbstractDispatchServiceServlet extends RemoteServiceServle
     }
     try {
       beginAction(action);
-      return d.execute(action, new ExecutionContext(getThreadLocalRequest(), getThreadLocalResponse(), sessionId));
+      return d.execute(action, new ExecutionContext(getThreadLocalRequest(), getThreadLocalResponse(), sessionId, metrics));
     } catch (final ActionException ae) {
       // assume the user has already logged the ActionException appropriately
       throw ae;
@@ -58,6 +75,11 @@ public abstract class AbstractDispatchServiceServlet extends RemoteServiceServle
     return new ActionException("A server error occured."); // don't leak the raw exception message
   }
 
+  /** @return the per-action metrics for this servlet, e.g. to push to a {@link MetricsReporter} */
+  public ActionMetrics getActionMetrics() {
+    return metrics;
+  }
+
   /** Method for subclasses to return their {@link ActionDispatch} class. */
   protected abstract ActionDispatch getActionDispatch();
 
@@ -0,0 +1,36 @@
+package org.tessell.dispatch.shared;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.tessell.dispatch.client.util.BatchingDispatchAsync;
+import org.tessell.dispatch.server.DefaultActionDispatch;
+
+/**
+ * Several actions sent to the server in one request.
+ *
+ * Created by {@link BatchingDispatchAsync} and executed by {@link DefaultActionDispatch},
+ * which returns each action's result (or {@link ActionException}) in a {@link BatchResult}.
+ */
+public class BatchAction implements Action<BatchResult> {
+
+  private ArrayList<Action<?>> actions;
+
+  /** For GWT serialization. */
+  protected BatchAction() {
+  }
+
+  public BatchAction(final List<Action<?>> actions) {
+    this.actions = new ArrayList<Action<?>>(actions);
+  }
+
+  public List<Action<?>> getActions() {
+    return actions;
+  }
+
+  @Override
+  public String toString() {
+    return "BatchAction" + actions;
+  }
+
+}
@@ -0,0 +1,49 @@
+package org.tessell.dispatch.shared;
+
+import java.util.ArrayList;
+
+/**
+ * The results of a {@link BatchAction}, in the same order as its actions.
+ *
+ * Each index has either a result or, if that action threw an {@link ActionException},
+ * the exception, so one failed action doesn't fail the rest of the batch.
+ */
+public class BatchResult implements Result {
+
+  private ArrayList<Result> results;
+  private ArrayList<ActionException> failures;
+
+  /** For GWT serialization. */
+  protected BatchResult() {
+  }
+
+  public BatchResult(final int size) {
+    results = new ArrayList<Result>(size);
+    failures = new ArrayList<ActionException>(size);
+  }
+
+  public void addResult(final Result result) {
+    results.add(result);
+    failures.add(null);
+  }
+
+  public void addFailure(final ActionException failure) {
+    results.add(null);
+    failures.add(failure);
+  }
+
+  public int size() {
+    return results.size();
+  }
+
+  /** @return the result of action {@code i}, or {@code null} if it failed */
+  public Result getResult(final int i) {
+    return results.get(i);
+  }
+
+  /** @return the exception thrown by action {@code i}, or {@code null} if it succeeded */
+  public ActionException getFailure(final int i) {
+    return failures.get(i);
+  }
+
+}
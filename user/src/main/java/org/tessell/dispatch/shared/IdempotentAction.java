@@ -0,0 +1,32 @@
+package org.tessell.dispatch.shared;
+
+import org.tessell.dispatch.client.util.RetryingDispatchAsync;
+import org.tessell.dispatch.server.DedupeWindow;
+
+/**
+ * A base class for actions that are safe to retry, because each one carries a key the
+ * server uses to recognize it if it's sent again.
+ *
+ * If a request fails with a network error, the client can't tell whether the server
+ * never saw the action, or executed it and the response was lost. So
+ * {@link RetryingDispatchAsync} assigns a unique key each time an action is executed,
+ * and resends the same key on each retry, and a {@link DedupeWindow} on the server returns
+ * the original outcome for a key it has already executed instead of executing it again.
+ *
+ * Use as a {@code @GenDispatch(baseAction = "org.tessell.dispatch.shared.IdempotentAction")}
+ * for actions that change data, e.g. saves.
+ */
+public abstract class IdempotentAction<R extends Result> implements Action<R> {
+
+  private String idempotencyKey;
+
+  /** @return the key assigned for the current execution, or {@code null} if it hasn't been sent yet */
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  public void setIdempotencyKey(final String idempotencyKey) {
+    this.idempotencyKey = idempotencyKey;
+  }
+
+}
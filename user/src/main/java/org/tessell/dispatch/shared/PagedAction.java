@@ -0,0 +1,44 @@
+package org.tessell.dispatch.shared;
+
+import org.tessell.dispatch.client.util.PagedLoader;
+import org.tessell.dispatch.server.handlers.PagedActionHandler;
+
+/**
+ * A base class for actions whose results are loaded a page at a time.
+ *
+ * Instead of a handler materializing, say, 50k rows into one {@link Result} that has to
+ * be serialized and deserialized in one pass, a {@link PagedActionHandler} returns one
+ * page per call, and {@link PagedLoader} keeps asking for the next page until there are
+ * no more, appending each one to a list property as it arrives, so the UI can start
+ * rendering after the first page.
+ *
+ * Use as a {@code @GenDispatch(baseAction = "org.tessell.dispatch.shared.PagedAction", baseResult = ...)},
+ * with a {@link PagedResult} subclass as the {@code baseResult}.
+ *
+ * Note the offset isn't part of the generated {@code equals}, so paged actions shouldn't be
+ * cached by {@code equals}, e.g. by {@code CachingDispatchAsync}.
+ */
+public abstract class PagedAction<R extends PagedResult<?>> implements Action<R> {
+
+  private int offset;
+  private int pageSize = 100;
+
+  /** @return the index of the first item to return */
+  public int getOffset() {
+    return offset;
+  }
+
+  public void setOffset(final int offset) {
+    this.offset = offset;
+  }
+
+  /** @return the most items to return */
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  public void setPageSize(final int pageSize) {
+    this.pageSize = pageSize;
+  }
+
+}
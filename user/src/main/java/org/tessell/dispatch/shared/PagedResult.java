@@ -0,0 +1,35 @@
+package org.tessell.dispatch.shared;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A base class for the results of {@link PagedAction}s, i.e. one page of items.
+ *
+ * Subclasses bind {@code T} to a serializable DTO, e.g. {@code FooPage extends PagedResult<FooDto>},
+ * so that GWT knows what the items are.
+ */
+public abstract class PagedResult<T> implements Result {
+
+  private ArrayList<T> items = new ArrayList<T>();
+  private boolean more;
+
+  /** @return the items in this page */
+  public List<T> getItems() {
+    return items;
+  }
+
+  public void setItems(final List<T> items) {
+    this.items = new ArrayList<T>(items);
+  }
+
+  /** @return whether there are more items after this page */
+  public boolean hasMore() {
+    return more;
+  }
+
+  public void setMore(final boolean more) {
+    this.more = more;
+  }
+
+}
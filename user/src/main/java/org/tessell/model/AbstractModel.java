@@ -10,10 +10,10 @@ import org.tessell.model.properties.Property;
 import org.tessell.model.properties.PropertyGroup;
 import org.tessell.model.values.DerivedValue;
 
+import com.google.gwt.event.shared.CompactEventBus;
 import com.google.gwt.event.shared.EventBus;
 import com.google.gwt.event.shared.GwtEvent;
 import com.google.gwt.event.shared.HandlerRegistration;
-import com.google.gwt.event.shared.SimplerEventBus;
 
 /** A base class for models. Provides a {@link PropertyGroup} for all of the properties. */
 public abstract class AbstractModel implements Model {
@@ -21,7 +21,7 @@ public abstract class AbstractModel implements Model {
   private static final Logger log = Logger.getLogger("org.tessel.model");
   protected final PropertyGroup all = new PropertyGroup("all");
   private BooleanProperty isTouched;
-  private final EventBus handlers = new SimplerEventBus();
+  private final EventBus handlers = new CompactEventBus();
 
   @Override
   public Property<Boolean> allValid() {
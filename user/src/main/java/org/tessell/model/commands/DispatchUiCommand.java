@@ -1,6 +1,8 @@
 package org.tessell.model.commands;
 
 import org.tessell.dispatch.client.events.DispatchUnhandledFailureEvent;
+import org.tessell.dispatch.client.util.ActionSupersededException;
+import org.tessell.dispatch.client.util.DispatchPriority;
 import org.tessell.dispatch.client.util.OutstandingDispatchAsync;
 import org.tessell.dispatch.shared.Action;
 import org.tessell.dispatch.shared.Result;
@@ -15,6 +17,10 @@ import com.google.gwt.user.client.rpc.AsyncCallback;
  * waiting for a result.
  *
  * This allows conditional action on the command's activeness, e.g. disabling buttons.
+ *
+ * For commands that re-execute often, e.g. type-ahead searches, {@link #setCancelSuperseded(boolean)}
+ * skips the results of actions that a newer execute has superseded, and doesn't send them at
+ * all if they're still queued by {@link OutstandingDispatchAsync#setMaxConcurrent(int)}.
  */
 public abstract class DispatchUiCommand<A extends Action<R>, R extends Result> extends AsyncUiCommand {
 
@@ -22,6 +28,8 @@ public abstract class DispatchUiCommand<A extends Action<R>, R extends Result> e
   private int highestActionIndex;
   private int highestResultIndex;
   private int currentActionIndex;
+  private DispatchPriority priority = DispatchPriority.NORMAL;
+  private boolean cancelSuperseded;
   protected R result;
 
   public DispatchUiCommand(OutstandingDispatchAsync async) {
@@ -39,7 +47,7 @@ public abstract class DispatchUiCommand<A extends Action<R>, R extends Result> e
       final int thisActionIndex = ++highestActionIndex;
       // It would be nice to use a SuccessCallback, but we need to know
       // when the failure happened to toggle active back to false
-      async.execute(action, new AsyncCallback<R>() {
+      final AsyncCallback<R> callback = new AsyncCallback<R>() {
         public void onSuccess(R r) {
           highestResultIndex = Math.max(highestResultIndex, thisActionIndex);
           currentActionIndex = thisActionIndex;
@@ -51,6 +59,9 @@ public abstract class DispatchUiCommand<A extends Action<R>, R extends Result> e
         }
 
         public void onFailure(Throwable caught) {
+          if (caught instanceof ActionSupersededException) {
+            return; // never sent, and the newer action will reset active
+          }
           highestResultIndex = Math.max(highestResultIndex, thisActionIndex);
           currentActionIndex = thisActionIndex;
           result = null;
@@ -59,10 +70,25 @@ public abstract class DispatchUiCommand<A extends Action<R>, R extends Result> e
             active.set(false);
           }
         }
-      });
+      };
+      if (cancelSuperseded) {
+        async.executeLatest(this, action, callback, null, priority);
+      } else {
+        async.execute(action, callback, null, priority);
+      }
     }
   }
 
+  /** Sets the priority of this command's actions, e.g. {@link DispatchPriority#LOW} for prefetches. */
+  public void setPriority(final DispatchPriority priority) {
+    this.priority = priority;
+  }
+
+  /** Sets whether executing again should cancel any outstanding action, so only the latest result is seen. */
+  public void setCancelSuperseded(final boolean cancelSuperseded) {
+    this.cancelSuperseded = cancelSuperseded;
+  }
+
   /** Implemented by subclasses to create the action object. */
   protected abstract A createAction();
 
@@ -16,10 +16,10 @@ import org.tessell.model.validation.events.RuleTriggeredHandler;
 import org.tessell.model.validation.events.RuleUntriggeredEvent;
 import org.tessell.model.validation.events.RuleUntriggeredHandler;
 
+import com.google.gwt.event.shared.CompactEventBus;
 import com.google.gwt.event.shared.EventBus;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.event.shared.HasHandlers;
-import com.google.gwt.event.shared.SimplerEventBus;
 
 /**
  * Codifies a UI action that has an enabled state and optional validation rules
@@ -32,7 +32,7 @@ import com.google.gwt.event.shared.SimplerEventBus;
 public abstract class UiCommand implements HasRuleTriggers {
 
   private final BooleanProperty enabled = booleanProperty("enabled", true);
-  private final EventBus handlers = new SimplerEventBus();
+  private final EventBus handlers = new CompactEventBus();
   private final Map<String, HasHandlers> errors = new HashMap<String, HasHandlers>();
   private final List<Property<Boolean>> onlyIf = new ArrayList<Property<Boolean>>();
 
@@ -0,0 +1,16 @@
+package org.tessell.model.events;
+
+import org.tessell.GenEvent;
+import org.tessell.Param;
+import org.tessell.model.properties.IntegerProperty;
+
+/** A {@link PropertyChangedEvent} for {@link IntegerProperty}s that doesn't box the values; nulls are 0. */
+@GenEvent(gwtEvent = true)
+public class IntChangedEventSpec {
+  @Param(1)
+  IntegerProperty property;
+  @Param(2)
+  int oldValue;
+  @Param(3)
+  int newValue;
+}
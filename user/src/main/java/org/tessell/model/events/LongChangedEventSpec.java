@@ -0,0 +1,16 @@
+package org.tessell.model.events;
+
+import org.tessell.GenEvent;
+import org.tessell.Param;
+import org.tessell.model.properties.LongProperty;
+
+/** A {@link PropertyChangedEvent} for {@link LongProperty}s that doesn't box the values; nulls are 0. */
+@GenEvent(gwtEvent = true)
+public class LongChangedEventSpec {
+  @Param(1)
+  LongProperty property;
+  @Param(2)
+  long oldValue;
+  @Param(3)
+  long newValue;
+}
@@ -0,0 +1,77 @@
+package org.tessell.model.properties;
+
+import org.tessell.model.events.PropertyChangedEvent;
+import org.tessell.model.values.Value;
+
+/**
+ * A number property with primitive setters, e.g. {@link IntegerProperty#setInt(int)}.
+ *
+ * Once we're touched, a primitive set is compared to our own primitive snapshot of our last value,
+ * and fired as primitives, so it only boxes if there are {@link PropertyChangedEvent} handlers,
+ * or rules that read our value. Ints are kept as longs, so both share the same snapshot.
+ */
+public abstract class AbstractPrimitiveProperty<P extends Number, T extends AbstractPrimitiveProperty<P, T>> extends AbstractProperty<P, T> {
+
+  // our primitive snapshot of lastValue, for setters that don't box
+  private long last;
+  // the value before the last primitive set, for firePrimitiveChanged
+  private long old;
+  private boolean oldIsNull;
+
+  protected AbstractPrimitiveProperty(final Value<P> value) {
+    super(value);
+  }
+
+  /**
+   * Reassesses us after our value was set as a primitive, without boxing it if we can.
+   *
+   * If this set touches us, or we're within a batch or already reassessing, we fall back to
+   * {@link #reassessAfterSet()}.
+   */
+  protected void reassessAfterPrimitiveSet() {
+    if (canReassessWithoutBoxing()) {
+      reassessWithoutBoxing(this);
+    } else {
+      reassessAfterSet();
+    }
+  }
+
+  /** @return our value as a primitive, which is only called after a primitive setter, so shouldn't box */
+  protected abstract long getPrimitive();
+
+  /** @return {@code value} boxed as our type */
+  protected abstract P box(long value);
+
+  /** Fires our primitive changed event, e.g. {@code IntChangedEvent}, if it's handled. */
+  protected abstract void firePrimitiveEvent(long oldValue, long newValue);
+
+  /** @return whether our value changed from our snapshot, which is updated to the new value */
+  final boolean primitiveChanged() {
+    if (isLastValueStale()) {
+      old = last;
+      oldIsNull = false;
+    } else {
+      final P l = getLastValue();
+      old = l == null ? 0 : l.longValue();
+      oldIsNull = l == null;
+    }
+    last = getPrimitive();
+    return oldIsNull || old != last;
+  }
+
+  /** Fires the change {@link #primitiveChanged()} just saw. */
+  final void firePrimitiveChanged() {
+    if (isEventHandled(PropertyChangedEvent.getType())) {
+      // fires both events
+      fireChanged(oldIsNull ? null : box(old), box(last));
+    } else {
+      firePrimitiveEvent(old, last);
+    }
+  }
+
+  /** @return our primitive snapshot, boxed, for when something needs our last value as a {@code P} */
+  final P boxLastValue() {
+    return box(last);
+  }
+
+}
@@ -22,8 +22,10 @@ import org.tessell.model.validation.rules.Required;
 import org.tessell.model.validation.rules.Rule;
 import org.tessell.model.validation.rules.Static;
 import org.tessell.model.values.DerivedValue;
+import org.tessell.model.values.MemoizedValue;
 import org.tessell.model.values.Value;
 import org.tessell.util.Inflector;
+import org.tessell.util.LinkedIdentityMap;
 
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
@@ -36,9 +38,9 @@ public abstract class AbstractProperty<P, T extends AbstractProperty<P, T>> exte
   private static int outstandingSetInitials = 0;
   private static final Logger log = Logger.getLogger("org.tessell.model");
   // handlers
-  private final EventBus handlers = new SimplerEventBus();
+  private final CompactEventBus handlers = new CompactEventBus();
   // other properties that are validated off of our value
-  protected final ArrayList<Downstream> downstream = new ArrayList<Downstream>();
+  protected final LinkedIdentityMap<Property<?>, Downstream> downstream = new LinkedIdentityMap<Property<?>, Downstream>();
   // rules that validate against our value and fire against our handlers
   private final ArrayList<Rule<? super P>> rules = new ArrayList<Rule<? super P>>();
   // outstanding errors
@@ -47,6 +49,8 @@ public abstract class AbstractProperty<P, T extends AbstractProperty<P, T>> exte
   private Value<P> value;
   // snapshot of the value for diff purposes (e.g. derived values)
   private P lastValue;
+  // set if a primitive setter changed our value since lastValue, so lastValue needs to be boxed from its snapshot
+  private AbstractPrimitiveProperty<?, ?> stalePrimitive;
   // what we should use for null
   private P defaultValue;
   // whether the user has touched this field on the screen yet
@@ -78,7 +82,7 @@ public abstract class AbstractProperty<P, T extends AbstractProperty<P, T>> exte
    */
   protected void initializeValue(final Value<P> value) {
     this.value = value;
-    lastValue = copyLastValue(getWithUpstreamTracking());
+    lastValue = snapshotLastValue(getWithUpstreamTracking());
     RuleHandler ruleHandler = new RuleHandler();
     addRuleTriggeredHandler(ruleHandler);
     addRuleUntriggeredHandler(ruleHandler);
@@ -139,6 +143,45 @@ public abstract class AbstractProperty<P, T extends AbstractProperty<P, T>> exte
   @Override
   public void set(final P value) {
     this.value.set(copyLastValue(value));
+    reassessAfterSet();
+  }
+
+  /** @return whether a primitive set can be reassessed without boxing, i.e. it won't touch us, and we're not within a batch or already reassessing */
+  boolean canReassessWithoutBoxing() {
+    return touched && !reassessing && !Properties.isBatching();
+  }
+
+  /**
+   * Reassesses us after a primitive setter, e.g. {@link IntegerProperty#setInt(int)}, without boxing our value.
+   *
+   * {@code primitive} (which is us) compares the new value to its own primitive snapshot, and fires the
+   * change itself; our boxed {@code lastValue} is left stale until something needs it.
+   */
+  void reassessWithoutBoxing(final AbstractPrimitiveProperty<?, ?> primitive) {
+    invalidateIfMemoized();
+    try {
+      reassessing = true;
+      final boolean valueChanged = primitive.primitiveChanged();
+      if (valueChanged) {
+        stalePrimitive = primitive;
+      }
+      reassessDownstream(valueChanged);
+      if (valueChanged) {
+        clearTemporaryError(false);
+        primitive.firePrimitiveChanged();
+      }
+    } finally {
+      reassessing = false;
+    }
+  }
+
+  /** @return whether our boxed last value is stale, and the primitive snapshot is current */
+  boolean isLastValueStale() {
+    return stalePrimitive != null;
+  }
+
+  /** Touches or reassesses us after our value has been set, e.g. by a primitive setter that can't avoid boxing. */
+  protected void reassessAfterSet() {
     if (!touched && !reassessing && !isWithinASetInitial()) {
       // even if unchanged, treat this as touching
       setTouched(true);
@@ -166,54 +209,147 @@ public abstract class AbstractProperty<P, T extends AbstractProperty<P, T>> exte
 
   @Override
   public void reassess() {
+    invalidateIfMemoized();
+    if (Properties.deferReassess(this)) {
+      return;
+    }
+    syncLastValue();
     try {
       reassessing = true;
-
-      P newValue = get();
-      // watch for out-of-band changes, e.g. model.merge(newDto);
-      if (newValue == null && defaultValue != null) {
-        value.set(defaultValue);
-        lastValue = newValue; // so that we detect/fire change
-        newValue = defaultValue;
-      }
+      final P newValue = getOrDefault();
       final P oldValue = lastValue;
       final boolean valueChanged = !eq(lastValue, newValue);
       if (valueChanged) {
-        lastValue = copyLastValue(newValue);
-      }
-
-      // run validation before firing change so handlers see latest wasValid
-      final Valid oldValid = valid;
-      validate();
-      final boolean validChanged = oldValid != valid;
-      if (validProperty != null) {
-        validProperty.set(valid == Valid.TRUE);
+        lastValue = snapshotLastValue(newValue);
       }
+      reassessed(oldValue, newValue, valueChanged);
+    } finally {
+      reassessing = false;
+    }
+  }
 
-      // only reassess downstream if needed. this is somewhat odd, but we reassess
-      // our downstream properties before firing our own change event. this is so
-      // that if someone listening to us is also going to check a downstream
-      // property's state, it would be good for them to be up to date
-      if (valueChanged || validChanged) {
-        for (final Downstream other : new ArrayList<Downstream>(downstream)) {
-          other.property.reassess();
-        }
-      }
+  /**
+   * Reassesses after a change where the subclass has already made the new {@code lastValue} snapshot.
+   *
+   * E.g. {@link ListProperty} knows exactly what an {@code add} changed, so can skip copying and
+   * comparing the entire list like {@link #reassess()} does.
+   */
+  protected void reassess(final P newLastValue) {
+    invalidateIfMemoized();
+    syncLastValue();
+    try {
+      reassessing = true;
+      final P oldValue = lastValue;
+      lastValue = newLastValue;
+      reassessed(oldValue, get(), true);
+    } finally {
+      reassessing = false;
+    }
+  }
 
+  /**
+   * Reassesses just us, for {@link Properties#batch(Runnable)}, which handles our downstream properties itself.
+   *
+   * @return our change to fire once the whole batch has settled, or {@code null} if our value and validity didn't change
+   */
+  Runnable settle() {
+    invalidateIfMemoized();
+    syncLastValue();
+    try {
+      reassessing = true;
+      final P newValue = getOrDefault();
+      final P oldValue = lastValue;
+      final boolean valueChanged = !eq(lastValue, newValue);
       if (valueChanged) {
-        clearTemporaryError(false);
-        fireChanged(oldValue, newValue);
+        lastValue = snapshotLastValue(newValue);
+      }
+      if (!revalidate() && !valueChanged) {
+        return null;
       }
+      return new Runnable() {
+        public void run() {
+          if (valueChanged) {
+            clearTemporaryError(false);
+            fireChanged(oldValue, newValue);
+          }
+        }
+      };
     } finally {
       reassessing = false;
     }
   }
 
+  private void reassessed(final P oldValue, final P newValue, final boolean valueChanged) {
+    reassessDownstream(valueChanged);
+    if (valueChanged) {
+      clearTemporaryError(false);
+      fireChanged(oldValue, newValue);
+    }
+  }
+
+  /** Revalidates us, and reassesses our downstream properties if our value or validity changed. */
+  private void reassessDownstream(final boolean valueChanged) {
+    final boolean validChanged = revalidate();
+
+    // only reassess downstream if needed. this is somewhat odd, but we reassess
+    // our downstream properties before firing our own change event. this is so
+    // that if someone listening to us is also going to check a downstream
+    // property's state, it would be good for them to be up to date
+    if (valueChanged || validChanged) {
+      for (final Downstream other : downstream.values()) {
+        other.property.reassess();
+      }
+    }
+  }
+
+  /** Boxes the primitive snapshot into {@code lastValue}, if a primitive setter left it stale. */
+  @SuppressWarnings("unchecked")
+  private void syncLastValue() {
+    if (stalePrimitive != null) {
+      // stalePrimitive is us, so its snapshot is a P
+      lastValue = (P) stalePrimitive.boxLastValue();
+      stalePrimitive = null;
+    }
+  }
+
+  /** @return our current value, after applying our default value for out-of-band changes to null */
+  private P getOrDefault() {
+    final P newValue = get();
+    // watch for out-of-band changes, e.g. model.merge(newDto);
+    if (newValue == null && defaultValue != null) {
+      value.set(defaultValue);
+      lastValue = newValue; // so that we detect/fire change
+      return defaultValue;
+    }
+    return newValue;
+  }
+
+  /** @return whether our validity changed; we run validation before firing change so handlers see latest wasValid */
+  private boolean revalidate() {
+    final Valid oldValid = valid;
+    validate();
+    if (validProperty != null) {
+      validProperty.set(valid == Valid.TRUE);
+    }
+    return oldValid != valid;
+  }
+
   /** Allow subclasses to deep copy values if needed. */
   protected P copyLastValue(P newValue) {
     return newValue;
   }
 
+  /** Allow subclasses to keep a cheaper, read-only copy as {@code lastValue}; defaults to {@link #copyLastValue}. */
+  protected P snapshotLastValue(P newValue) {
+    return copyLastValue(newValue);
+  }
+
+  /** @return the snapshot of our value as of the last {@link #reassess()}, for subclasses that maintain it themselves */
+  protected P getLastValue() {
+    syncLastValue();
+    return lastValue;
+  }
+
   /**
    * Track {@code other} as derived on us, so we'll forward changed/changing events to it.
    *
@@ -234,7 +370,7 @@ public abstract class AbstractProperty<P, T extends AbstractProperty<P, T>> exte
    */
   @Override
   public <P1 extends Property<?>> P1 addDerived(P1 other, Object token, boolean percolateTouch) {
-    Downstream d = findDownstreamOrNull(other);
+    Downstream d = downstream.get(other);
     if (d != null) {
       d.tokens.add(token);
       // upgrade an existing non-touch to touch
@@ -247,7 +383,7 @@ public abstract class AbstractProperty<P, T extends AbstractProperty<P, T>> exte
     } else {
       d = new Downstream(other, percolateTouch);
       d.tokens.add(token);
-      downstream.add(d);
+      downstream.put(other, d);
       if (percolateTouch && touched) {
         other.setTouched(touched);
       }
@@ -257,11 +393,11 @@ public abstract class AbstractProperty<P, T extends AbstractProperty<P, T>> exte
 
   @Override
   public <P1 extends Property<?>> P1 removeDerived(final P1 other, final Object token) {
-    Downstream d = findDownstreamOrNull(other);
+    Downstream d = downstream.get(other);
     if (d != null) {
       d.tokens.remove(token);
       if (d.tokens.size() == 0) {
-        downstream.remove(d);
+        downstream.remove(other);
       }
     }
     return other;
@@ -345,7 +481,7 @@ public abstract class AbstractProperty<P, T extends AbstractProperty<P, T>> exte
       return;
     }
     this.touched = touched;
-    for (final Downstream other : new ArrayList<Downstream>(downstream)) {
+    for (final Downstream other : downstream.values()) {
       if (other.touch) {
         other.property.setTouched(touched);
       }
@@ -431,7 +567,14 @@ public abstract class AbstractProperty<P, T extends AbstractProperty<P, T>> exte
   }
 
   protected void fireChanged(P oldValue, P newValue) {
-    fireEvent(new PropertyChangedEvent<P>(this, oldValue, newValue));
+    if (isEventHandled(PropertyChangedEvent.getType())) {
+      fireEvent(new PropertyChangedEvent<P>(this, oldValue, newValue));
+    }
+  }
+
+  /** @return whether anyone is listening to us for {@code type} events */
+  protected boolean isEventHandled(Type<?> type) {
+    return handlers.isEventHandled(type);
   }
 
   /** Runs validation against our rules. */
@@ -461,6 +604,10 @@ public abstract class AbstractProperty<P, T extends AbstractProperty<P, T>> exte
     // this logic should probably go in DerivedValue somehow, except that
     // it's only a value and does not know about it's parent property
     if (value instanceof DerivedValue) {
+      if (value instanceof MemoizedValue && !((MemoizedValue<P>) value).isStale()) {
+        // nothing upstream has changed, so neither has our value or upstream set
+        return value.get();
+      }
       if (lastUpstream == null) {
         lastUpstream = new UpstreamState(this, true);
       }
@@ -473,13 +620,10 @@ public abstract class AbstractProperty<P, T extends AbstractProperty<P, T>> exte
     }
   }
 
-  private Downstream findDownstreamOrNull(Property<?> other) {
-    for (Downstream downstream : this.downstream) {
-      if (downstream.property == other) {
-        return downstream;
-      }
+  private void invalidateIfMemoized() {
+    if (value instanceof MemoizedValue) {
+      ((MemoizedValue<P>) value).invalidate();
     }
-    return null;
   }
 
   private P defaultIfNull(P value) {
@@ -1,6 +1,7 @@
 package org.tessell.model.properties;
 
 import org.tessell.model.values.DerivedValue;
+import org.tessell.model.values.MemoizedValue;
 
 /**
  * Creates a derived property where the subclass's {@link #getDerivedValue()} can
@@ -16,15 +17,30 @@ import org.tessell.model.values.DerivedValue;
  *   }
  * };
  * </code>
+ *
+ * Pass {@code memoize = true} to cache the derived value until a property it uses
+ * changes (see {@link MemoizedValue}).
  */
 public abstract class DerivedProperty<P> extends AbstractProperty<P, DerivedProperty<P>> {
 
   public DerivedProperty() {
-    initializeValue(new DerivedValue<P>() {
-      public P get() {
-        return DerivedProperty.this.getDerivedValue();
-      }
-    });
+    this(false);
+  }
+
+  public DerivedProperty(boolean memoize) {
+    if (memoize) {
+      initializeValue(new MemoizedValue<P>() {
+        protected P compute() {
+          return DerivedProperty.this.getDerivedValue();
+        }
+      });
+    } else {
+      initializeValue(new DerivedValue<P>() {
+        public P get() {
+          return DerivedProperty.this.getDerivedValue();
+        }
+      });
+    }
   }
 
   protected abstract P getDerivedValue();
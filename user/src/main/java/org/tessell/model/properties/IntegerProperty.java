@@ -1,8 +1,14 @@
 package org.tessell.model.properties;
 
+import org.tessell.model.events.IntChangedEvent;
+import org.tessell.model.events.IntChangedHandler;
+import org.tessell.model.events.PropertyChangedEvent;
+import org.tessell.model.values.IntValue;
 import org.tessell.model.values.Value;
 
-public class IntegerProperty extends AbstractProperty<Integer, IntegerProperty> {
+import com.google.gwt.event.shared.HandlerRegistration;
+
+public class IntegerProperty extends AbstractPrimitiveProperty<Integer, IntegerProperty> {
 
   public IntegerProperty(final Value<Integer> value) {
     super(value);
@@ -13,6 +19,63 @@ public class IntegerProperty extends AbstractProperty<Integer, IntegerProperty>
     return this;
   }
 
+  /** @return our value, or 0 if it's null, without boxing if we wrap an {@link IntValue} */
+  public int getInt() {
+    final Value<Integer> value = getValueObject();
+    if (value instanceof IntValue) {
+      Upstream.addIfTracking(this);
+      return ((IntValue) value).getInt();
+    }
+    final Integer i = get();
+    return i == null ? 0 : i;
+  }
+
+  /**
+   * Sets our value, without boxing if we wrap an {@link IntValue}.
+   *
+   * Once we're touched, the change is detected and fired as primitives, so this only boxes
+   * if there are {@link PropertyChangedEvent} handlers, or rules that read our value.
+   */
+  public void setInt(final int i) {
+    final Value<Integer> value = getValueObject();
+    if (value instanceof IntValue) {
+      ((IntValue) value).setInt(i);
+      reassessAfterPrimitiveSet();
+    } else {
+      set(i);
+    }
+  }
+
+  @Override
+  protected long getPrimitive() {
+    return ((IntValue) getValueObject()).getInt();
+  }
+
+  @Override
+  protected Integer box(final long value) {
+    return (int) value;
+  }
+
+  @Override
+  protected void firePrimitiveEvent(final long oldValue, final long newValue) {
+    if (isEventHandled(IntChangedEvent.getType())) {
+      fireEvent(new IntChangedEvent(this, (int) oldValue, (int) newValue));
+    }
+  }
+
+  /** Listens for changes with the old/new values as primitives. */
+  public HandlerRegistration addIntChangedHandler(final IntChangedHandler handler) {
+    return addHandler(IntChangedEvent.getType(), handler);
+  }
+
+  @Override
+  protected void fireChanged(final Integer oldValue, final Integer newValue) {
+    super.fireChanged(oldValue, newValue);
+    if (isEventHandled(IntChangedEvent.getType())) {
+      fireEvent(new IntChangedEvent(this, oldValue == null ? 0 : oldValue, newValue == null ? 0 : newValue));
+    }
+  }
+
   @Override
   public Property<String> asString() {
     return asString(getName() + " must be an integer");
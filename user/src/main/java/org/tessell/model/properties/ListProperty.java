@@ -13,7 +13,9 @@ import org.tessell.model.values.DerivedValue;
 import org.tessell.model.values.Value;
 import org.tessell.util.ListDiff;
 import org.tessell.util.ListDiff.Location;
+import org.tessell.util.ListSnapshot;
 import org.tessell.util.ObjectUtils;
+import org.tessell.util.StampedList;
 
 import com.google.gwt.event.shared.HandlerRegistration;
 
@@ -27,6 +29,15 @@ public class ListProperty<E> extends AbstractProperty<List<E>, ListProperty<E>>
   private Comparator<E> lastComparator;
   private Comparator<E> persistentComparator;
   private PropertyGroup allValid;
+  // the list our last value was copied from, and its stamp, so we know if it's been swapped out or changed (no initializers, set during super())
+  private List<E> snapshotSource;
+  private int snapshotStamp;
+  // the diff for a change we made ourselves, so fireChanged doesn't have to recalc it
+  private ListDiff<E> knownDiff;
+  private List<E> knownDiffFrom;
+  // the number of nested beginBatch calls, and what the batch should set touched to on commit (null if unchanged)
+  private int batchDepth;
+  private Boolean batchTouched;
 
   /** Used to convert a list from one type of element to another. */
   public interface ElementConverter<E, F> {
@@ -45,6 +56,11 @@ public class ListProperty<E> extends AbstractProperty<List<E>, ListProperty<E>>
     boolean matches(E element);
   }
 
+  /** Used to make several changes to a list as one batch, see {@link ListProperty#mutate}. */
+  public interface ListMutator<E> {
+    void mutate(List<E> list);
+  }
+
   @SuppressWarnings("unchecked")
   public ListProperty(final Value<? extends List<E>> value) {
     // the "? extends List<E>" is so we can be called with Value<ArrayList<E>>
@@ -101,7 +117,15 @@ public class ListProperty<E> extends AbstractProperty<List<E>, ListProperty<E>>
 
   /** Adds {@code item}, firing a {@link ValueAddedEvent}. */
   public void add(final E item) {
+    ListSnapshot<E> last = getLastSnapshotIfCurrent();
     getDirect().add(item);
+    if (last != null) {
+      reassess(last, last.with(last.size(), item), ListDiff.ofAdds(last.size(), Collections.singletonList(item)));
+      return;
+    }
+    if (deferIfBatching(true)) {
+      return;
+    }
     sortIfNeeded();
     setTouched(true);
     // will fire add+change if needed
@@ -110,7 +134,15 @@ public class ListProperty<E> extends AbstractProperty<List<E>, ListProperty<E>>
 
   /** Adds {@code item}, firing a {@link ValueAddedEvent}. */
   public void add(final int index, final E item) {
+    ListSnapshot<E> last = getLastSnapshotIfCurrent();
     getDirect().add(index, item);
+    if (last != null) {
+      reassess(last, last.with(index, item), ListDiff.ofAdds(index, Collections.singletonList(item)));
+      return;
+    }
+    if (deferIfBatching(true)) {
+      return;
+    }
     sortIfNeeded();
     setTouched(true);
     // will fire add+change if needed
@@ -122,7 +154,15 @@ public class ListProperty<E> extends AbstractProperty<List<E>, ListProperty<E>>
     if (items.size() == 0) {
       return;
     }
+    ListSnapshot<E> last = getLastSnapshotIfCurrent();
     getDirect().addAll(items);
+    if (last != null) {
+      reassess(last, last.withAll(items), ListDiff.ofAdds(last.size(), items));
+      return;
+    }
+    if (deferIfBatching(true)) {
+      return;
+    }
     sortIfNeeded();
     setTouched(true);
     // will fire adds+change if needed
@@ -131,7 +171,19 @@ public class ListProperty<E> extends AbstractProperty<List<E>, ListProperty<E>>
 
   /** Removes {@code item}, firing a {@link ValueRemovedEvent}. */
   public void remove(final E item) {
+    ListSnapshot<E> last = getLastSnapshotIfCurrent();
+    if (last != null) {
+      int index = getDirect().indexOf(item);
+      if (index > -1) {
+        getDirect().remove(index);
+        reassess(last, last.without(index), ListDiff.ofRemove(index, item));
+      }
+      return;
+    }
     getDirect().remove(item);
+    if (deferIfBatching(true)) {
+      return;
+    }
     sortIfNeeded();
     setTouched(true);
     // will fire remove+change if needed
@@ -144,6 +196,9 @@ public class ListProperty<E> extends AbstractProperty<List<E>, ListProperty<E>>
       return;
     }
     getDirect().removeAll(items);
+    if (deferIfBatching(true)) {
+      return;
+    }
     setTouched(true);
     // will fire adds+change if needed
     reassess();
@@ -152,10 +207,76 @@ public class ListProperty<E> extends AbstractProperty<List<E>, ListProperty<E>>
   /** Removes all entries, firing a {@link ValueRemovedEvent} for each. */
   public void clear() {
     getDirect().clear();
+    if (deferIfBatching(false)) {
+      return;
+    }
     // will fire removes+change if needed
     reassess();
   }
 
+  /**
+   * Starts a batch of changes, where {@code add}/{@code remove}/{@code set}/{@code setTouched}/etc.
+   * will change the list but not fire any events until the matching {@link #commitBatch()}.
+   *
+   * Note that a persistent comparator (see {@link #setComparator}) is only applied on commit.
+   */
+  public void beginBatch() {
+    batchDepth++;
+  }
+
+  /**
+   * Ends a batch of changes, and if it's the outermost batch, fires the adds/removes for the
+   * whole batch along with a single {@link ListChangedEvent}.
+   */
+  public void commitBatch() {
+    if (batchDepth == 0) {
+      throw new IllegalStateException("commitBatch called without beginBatch");
+    }
+    if (--batchDepth > 0) {
+      return;
+    }
+    if (getDirect() != null) {
+      sortIfNeeded();
+    }
+    if (batchTouched != null) {
+      boolean touched = batchTouched;
+      batchTouched = null;
+      setTouched(touched);
+    }
+    // will fire adds/removes+change if needed
+    reassess();
+  }
+
+  @Override
+  public void set(final List<E> value) {
+    if (batchDepth > 0) {
+      getValueObject().set(copyLastValue(value));
+      deferIfBatching(true);
+      return;
+    }
+    super.set(value);
+  }
+
+  @Override
+  public void setTouched(final boolean touched) {
+    if (batchDepth > 0) {
+      batchTouched = touched;
+      return;
+    }
+    super.setTouched(touched);
+  }
+
+  /** Passes our list to {@code mutator} to change directly, as a batch, see {@link #beginBatch()}. */
+  public void mutate(ListMutator<E> mutator) {
+    beginBatch();
+    try {
+      batchTouched = true;
+      mutator.mutate(getDirect());
+    } finally {
+      commitBatch();
+    }
+  }
+
   /** @return a derived property of whether {@code item} is in this list. */
   public BooleanProperty contains(final E item) {
     return addDerived(booleanProperty(new Value<Boolean>() {
@@ -279,6 +400,9 @@ public class ListProperty<E> extends AbstractProperty<List<E>, ListProperty<E>>
     if (at > 0) {
       getDirect().remove(at);
       getDirect().add(at - 1, element);
+      if (deferIfBatching(true)) {
+        return;
+      }
       setTouched(true);
       reassess();
     }
@@ -290,6 +414,9 @@ public class ListProperty<E> extends AbstractProperty<List<E>, ListProperty<E>>
     if (at > -1 && at < getDirect().size() - 1) {
       getDirect().remove(at);
       getDirect().add(at + 1, element);
+      if (deferIfBatching(true)) {
+        return;
+      }
       setTouched(true);
       reassess();
     }
@@ -337,6 +464,9 @@ public class ListProperty<E> extends AbstractProperty<List<E>, ListProperty<E>>
     }
     Collections.sort(getDirect(), comparator);
     lastComparator = comparator;
+    if (deferIfBatching(false)) {
+      return;
+    }
     reassess();
   }
 
@@ -515,16 +645,28 @@ public class ListProperty<E> extends AbstractProperty<List<E>, ListProperty<E>>
     if (newValue == null) {
       return null;
     }
-    List<E> copy = new ArrayList<E>(newValue);
+    List<E> copy = new StampedList<E>(newValue);
     if (persistentComparator != null) {
       Collections.sort(copy, persistentComparator);
     }
     return copy;
   }
 
+  @Override
+  protected List<E> snapshotLastValue(List<E> newValue) {
+    snapshotSource = newValue == readOnly && readOnly != null ? readOnlySource : newValue;
+    snapshotStamp = snapshotSource instanceof StampedList ? ((StampedList<E>) snapshotSource).getStamp() : 0;
+    if (newValue == null) {
+      return null;
+    }
+    return ListSnapshot.of(persistentComparator == null ? newValue : copyLastValue(newValue));
+  }
+
   @Override
   protected void fireChanged(List<E> oldValue, List<E> newValue) {
-    ListDiff<E> diff = ListDiff.of(oldValue, newValue);
+    ListDiff<E> diff = knownDiff != null && knownDiffFrom == oldValue ? knownDiff : ListDiff.of(oldValue, newValue);
+    knownDiff = null;
+    knownDiffFrom = null;
     for (Location<E> added : diff.added) {
       fireEvent(new ValueAddedEvent<E>(added.element));
       listenForMemberChanged(added.element);
@@ -541,6 +683,52 @@ public class ListProperty<E> extends AbstractProperty<List<E>, ListProperty<E>>
     super.fireChanged(oldValue, newValue);
   }
 
+  /**
+   * @return our last value, if it's still an exact snapshot of our current list, so a mutation can
+   * update the snapshot and fire its own diff instead of having {@link #reassess()} re-copy and re-diff
+   * the entire list, otherwise {@code null}.
+   *
+   * We skip this for sorted lists, during batches, and for untouched lists, since their first touch will reassess anyway.
+   *
+   * The list can be changed without going through us (e.g. a dto's list is edited directly), so we only trust
+   * the snapshot for our own {@link StampedList}s, whose stamp hasn't moved since. Lists passed in by the caller,
+   * e.g. to {@code listProperty(name, list)}, always re-diff, until they're replaced by {@link #set}.
+   */
+  private ListSnapshot<E> getLastSnapshotIfCurrent() {
+    List<E> last = getLastValue();
+    List<E> current = getDirect();
+    if (last instanceof ListSnapshot
+      && current instanceof StampedList
+      && current == snapshotSource
+      && ((StampedList<E>) current).getStamp() == snapshotStamp
+      && persistentComparator == null
+      && batchDepth == 0
+      && !Properties.isBatching()
+      && isTouched()) {
+      return (ListSnapshot<E>) last;
+    }
+    return null;
+  }
+
+  /** @return whether we're in a batch, in which case the change will be fired on commit */
+  private boolean deferIfBatching(boolean touch) {
+    if (batchDepth == 0) {
+      return false;
+    }
+    if (touch) {
+      batchTouched = true;
+    }
+    return true;
+  }
+
+  private void reassess(ListSnapshot<E> last, ListSnapshot<E> next, ListDiff<E> diff) {
+    // we made this change ourselves, so the snapshot is still current
+    snapshotStamp = ((StampedList<E>) getDirect()).getStamp();
+    knownDiff = diff;
+    knownDiffFrom = last;
+    reassess(next);
+  }
+
   private void addToAllValidIfNeeded(E element) {
     if (allValid != null) {
       if (element instanceof Property<?>) {
@@ -1,8 +1,14 @@
 package org.tessell.model.properties;
 
+import org.tessell.model.events.LongChangedEvent;
+import org.tessell.model.events.LongChangedHandler;
+import org.tessell.model.events.PropertyChangedEvent;
+import org.tessell.model.values.LongValue;
 import org.tessell.model.values.Value;
 
-public class LongProperty extends AbstractProperty<Long, LongProperty> {
+import com.google.gwt.event.shared.HandlerRegistration;
+
+public class LongProperty extends AbstractPrimitiveProperty<Long, LongProperty> {
 
   public LongProperty(final Value<Long> value) {
     super(value);
@@ -13,6 +19,63 @@ public class LongProperty extends AbstractProperty<Long, LongProperty> {
     return this;
   }
 
+  /** @return our value, or 0 if it's null, without boxing if we wrap an {@link LongValue} */
+  public long getLong() {
+    final Value<Long> value = getValueObject();
+    if (value instanceof LongValue) {
+      Upstream.addIfTracking(this);
+      return ((LongValue) value).getLong();
+    }
+    final Long i = get();
+    return i == null ? 0 : i;
+  }
+
+  /**
+   * Sets our value, without boxing if we wrap an {@link LongValue}.
+   *
+   * Once we're touched, the change is detected and fired as primitives, so this only boxes
+   * if there are {@link PropertyChangedEvent} handlers, or rules that read our value.
+   */
+  public void setLong(final long i) {
+    final Value<Long> value = getValueObject();
+    if (value instanceof LongValue) {
+      ((LongValue) value).setLong(i);
+      reassessAfterPrimitiveSet();
+    } else {
+      set(i);
+    }
+  }
+
+  @Override
+  protected long getPrimitive() {
+    return ((LongValue) getValueObject()).getLong();
+  }
+
+  @Override
+  protected Long box(final long value) {
+    return value;
+  }
+
+  @Override
+  protected void firePrimitiveEvent(final long oldValue, final long newValue) {
+    if (isEventHandled(LongChangedEvent.getType())) {
+      fireEvent(new LongChangedEvent(this, oldValue, newValue));
+    }
+  }
+
+  /** Listens for changes with the old/new values as primitives. */
+  public HandlerRegistration addLongChangedHandler(final LongChangedHandler handler) {
+    return addHandler(LongChangedEvent.getType(), handler);
+  }
+
+  @Override
+  protected void fireChanged(final Long oldValue, final Long newValue) {
+    super.fireChanged(oldValue, newValue);
+    if (isEventHandled(LongChangedEvent.getType())) {
+      fireEvent(new LongChangedEvent(this, oldValue == null ? 0 : oldValue, newValue == null ? 0 : newValue));
+    }
+  }
+
   public Property<String> asString() {
     return formatted(new PropertyFormatter<Long, String>() {
       public String format(Long a) {
@@ -6,8 +6,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.tessell.model.values.DerivedValue;
+import org.tessell.model.values.IntValue;
+import org.tessell.model.values.LongValue;
 import org.tessell.model.values.SetValue;
 import org.tessell.model.values.Value;
+import org.tessell.util.StampedList;
 
 /** Lots of helper methods to constructor {@link Property}s out of bindings/{@link DerivedValue}s/etc. */
 public class NewProperty {
@@ -98,11 +101,11 @@ public class NewProperty {
   }
 
   public static IntegerProperty integerProperty(final String name) {
-    return new IntegerProperty(new SetValue<Integer>(name));
+    return new IntegerProperty(new IntValue(name));
   }
 
   public static IntegerProperty integerProperty(final String name, Integer i) {
-    return new IntegerProperty(new SetValue<Integer>(name, i));
+    return new IntegerProperty(new IntValue(name, i));
   }
 
   public static IntegerProperty integerProperty(final Value<Integer> derived) {
@@ -110,11 +113,11 @@ public class NewProperty {
   }
 
   public static LongProperty longProperty(final String name) {
-    return new LongProperty(new SetValue<Long>(name));
+    return new LongProperty(new LongValue(name));
   }
 
   public static LongProperty longProperty(final String name, Long i) {
-    return new LongProperty(new SetValue<Long>(name, i));
+    return new LongProperty(new LongValue(name, i));
   }
 
   public static LongProperty longProperty(final Value<Long> derived) {
@@ -142,7 +145,7 @@ public class NewProperty {
   }
 
   public static <E> ListProperty<E> listProperty(final String name) {
-    return new ListProperty<E>(new SetValue<List<E>>(name, new ArrayList<E>()));
+    return new ListProperty<E>(new SetValue<List<E>>(name, new StampedList<E>()));
   }
 
   public static <P> SetValue<P> setValue(String name) {
@@ -0,0 +1,112 @@
+package org.tessell.model.properties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.tessell.model.properties.AbstractProperty.Downstream;
+
+/**
+ * Batches property changes so the property graph is only reassessed once.
+ *
+ * Normally each {@code set} immediately reassesses its downstream properties, so
+ * setting N properties that share a derived property reassesses it N times, and
+ * handlers see the graph partially updated. Within {@link #batch(Runnable)}, sets
+ * only mark their property as dirty, and when the batch finishes each dirty property
+ * (and anything downstream of them) is reassessed once, in dependency order, and
+ * then all of the {@link org.tessell.model.events.PropertyChangedEvent}s fire.
+ *
+ * E.g. merging a new DTO into a model with {@link PropertyGroup#reassessAll()}.
+ */
+public class Properties {
+
+  // how many batches we're in, so nested batches settle on the outermost one
+  private static int depth = 0;
+  // properties that were reassessed within the current batch
+  private static final Set<AbstractProperty<?, ?>> dirty = new LinkedHashSet<AbstractProperty<?, ?>>();
+
+  /** Runs {@code block}, deferring reassessing and change events until it's done. */
+  public static void batch(final Runnable block) {
+    depth++;
+    try {
+      block.run();
+    } finally {
+      if (--depth == 0) {
+        settle();
+      }
+    }
+  }
+
+  /** @return whether we're currently within a {@link #batch(Runnable)} */
+  public static boolean isBatching() {
+    return depth > 0;
+  }
+
+  /** @return true if {@code property} should skip reassessing because it will be reassessed when the batch settles */
+  static boolean deferReassess(final AbstractProperty<?, ?> property) {
+    if (depth == 0) {
+      return false;
+    }
+    dirty.add(property);
+    return true;
+  }
+
+  private static void settle() {
+    if (dirty.isEmpty()) {
+      return;
+    }
+    final List<AbstractProperty<?, ?>> roots = new ArrayList<AbstractProperty<?, ?>>(dirty);
+    dirty.clear();
+
+    final List<Property<?>> order = new ArrayList<Property<?>>();
+    final Set<Property<?>> visited = new HashSet<Property<?>>();
+    for (final AbstractProperty<?, ?> root : roots) {
+      visit(root, visited, order);
+    }
+    Collections.reverse(order);
+
+    // only reassess properties that were set, or whose upstream actually changed
+    final Set<Property<?>> stale = new HashSet<Property<?>>(roots);
+    final List<Runnable> changes = new ArrayList<Runnable>();
+    for (final Property<?> property : order) {
+      if (!stale.contains(property)) {
+        continue;
+      }
+      if (property instanceof AbstractProperty) {
+        final AbstractProperty<?, ?> p = (AbstractProperty<?, ?>) property;
+        final Runnable change = p.settle();
+        if (change != null) {
+          changes.add(change);
+          for (final Downstream other : p.downstream.values()) {
+            stale.add(other.property);
+          }
+        }
+      } else {
+        // we can't see its downstream, so just let it reassess normally
+        property.reassess();
+      }
+    }
+
+    // now that everything is up to date, let handlers see the changes
+    for (final Runnable change : changes) {
+      change.run();
+    }
+  }
+
+  /** Adds {@code property} to {@code order} after everything downstream of it, i.e. a reversed topological sort. */
+  private static void visit(final Property<?> property, final Set<Property<?>> visited, final List<Property<?>> order) {
+    if (!visited.add(property)) {
+      return; // already done, or a cycle, in which case just go with the order we have
+    }
+    if (property instanceof AbstractProperty) {
+      for (final Downstream other : ((AbstractProperty<?, ?>) property).downstream.values()) {
+        visit(other.property, visited, order);
+      }
+    }
+    order.add(property);
+  }
+
+}
@@ -86,7 +86,7 @@ public class PropertyGroup extends AbstractProperty<Boolean, PropertyGroup> {
     // So don't call super, but copy/paste some of it's logic
     // here to be at least somewhat consistent.
     // super.setTouched(touched);
-    for (final Downstream other : downstream) {
+    for (final Downstream other : downstream.values()) {
       if (other.touch) {
         other.property.setTouched(touched);
       }
@@ -108,10 +108,15 @@ public class PropertyGroup extends AbstractProperty<Boolean, PropertyGroup> {
     }
   }
 
+  /** Reassesses each property (e.g. after an out-of-band change), with any derived properties only reassessed once. */
   public void reassessAll() {
-    for (Property<?> p : getProperties()) {
-      p.reassess();
-    }
+    Properties.batch(new Runnable() {
+      public void run() {
+        for (Property<?> p : getProperties()) {
+          p.reassess();
+        }
+      }
+    });
   }
 
   @Override
@@ -1,16 +1,18 @@
 package org.tessell.model.properties;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 /** Abstraction for tracking dependent properties during evaluation. */
 public class Upstream {
 
-  private static List<Property<?>> implicitUpstream = null;
+  private static final int SCAN_LIMIT = 8;
+  private static Capture implicitUpstream = null;
 
   /** Logs {@code p} as upstream of the current, if any, {@link Capture} */
   public static void addIfTracking(Property<?> p) {
-    if (implicitUpstream != null && !implicitUpstream.contains(p)) {
+    if (implicitUpstream != null) {
       // Some other derived property is having it's get() called, so it depends on us now
       implicitUpstream.add(p);
     }
@@ -24,17 +26,41 @@ public class Upstream {
   public static class Capture {
     // Turn on implicitUpstream, which watches for properties called during value.get.
     // Also, keep track if anyone was already tracking derived values so we can put it back.
-    private final List<Property<?>> tempUpstream = Upstream.implicitUpstream;
+    private final Capture tempUpstream = Upstream.implicitUpstream;
+    // the properties in the order they were called
+    private final List<Property<?>> upstream = new ArrayList<Property<?>>();
+    // an identity index to skip duplicates, only made once scanning upstream would be slower
+    private IdentityHashMap<Property<?>, Boolean> seen;
 
     private Capture() {
-      Upstream.implicitUpstream = new ArrayList<Property<?>>();
+      Upstream.implicitUpstream = this;
     }
 
     public List<Property<?>> finish() {
-      List<Property<?>> newUpstream = new ArrayList<Property<?>>(implicitUpstream);
       // Put back the previous upstream before we do anything else
       Upstream.implicitUpstream = tempUpstream;
-      return newUpstream;
+      return upstream;
+    }
+
+    private void add(Property<?> p) {
+      if (seen != null) {
+        if (seen.put(p, Boolean.TRUE) == null) {
+          upstream.add(p);
+        }
+        return;
+      }
+      for (Property<?> other : upstream) {
+        if (other == p) {
+          return;
+        }
+      }
+      upstream.add(p);
+      if (upstream.size() > SCAN_LIMIT) {
+        seen = new IdentityHashMap<Property<?>, Boolean>();
+        for (Property<?> other : upstream) {
+          seen.put(other, Boolean.TRUE);
+        }
+      }
     }
 
   }
@@ -1,10 +1,8 @@
 package org.tessell.model.properties;
 
+import java.util.IdentityHashMap;
 import java.util.List;
 
-import org.tessell.util.ListDiff;
-import org.tessell.util.ListDiff.Location;
-
 public class UpstreamState {
 
   private final Property<?> owner;
@@ -18,20 +16,47 @@ public class UpstreamState {
 
   public void update(List<Property<?>> newUpstream) {
     // Only update our upstream properties if they've changed
-    if (lastUpstream == null || !lastUpstream.equals(newUpstream)) {
-      ListDiff<Property<?>> diff = ListDiff.of(lastUpstream, newUpstream);
-      for (Location<Property<?>> removedLocation : diff.removed) {
-        Property<?> removed = removedLocation.element;
-        removed.removeDerived(owner, this);
-      }
-      for (Location<Property<?>> addedLocation : diff.added) {
-        Property<?> added = addedLocation.element;
-        if (added != owner) {
-          added.addDerived(owner, this, touch);
+    if (lastUpstream != null && isSame(lastUpstream, newUpstream)) {
+      return;
+    }
+    final IdentityHashMap<Property<?>, Boolean> oldSet = index(lastUpstream);
+    final IdentityHashMap<Property<?>, Boolean> newSet = index(newUpstream);
+    if (lastUpstream != null) {
+      for (Property<?> removed : lastUpstream) {
+        if (!newSet.containsKey(removed)) {
+          removed.removeDerived(owner, this);
         }
       }
-      // Remember for change tracking next time
-      lastUpstream = newUpstream;
     }
+    for (Property<?> added : newUpstream) {
+      if (added != owner && !oldSet.containsKey(added)) {
+        added.addDerived(owner, this, touch);
+      }
+    }
+    // Remember for change tracking next time
+    lastUpstream = newUpstream;
+  }
+
+  /** @return whether {@code a} and {@code b} have the same properties in the same order, which is the common case */
+  private static boolean isSame(List<Property<?>> a, List<Property<?>> b) {
+    if (a.size() != b.size()) {
+      return false;
+    }
+    for (int i = 0; i < a.size(); i++) {
+      if (a.get(i) != b.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static IdentityHashMap<Property<?>, Boolean> index(List<Property<?>> properties) {
+    final IdentityHashMap<Property<?>, Boolean> set = new IdentityHashMap<Property<?>, Boolean>();
+    if (properties != null) {
+      for (Property<?> p : properties) {
+        set.put(p, Boolean.TRUE);
+      }
+    }
+    return set;
   }
 }
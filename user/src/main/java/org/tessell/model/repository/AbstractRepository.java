@@ -1,18 +1,46 @@
 package org.tessell.model.repository;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.tessell.dispatch.client.DispatchAsync;
 import org.tessell.model.DtoModel;
+import org.tessell.model.properties.Properties;
 
+/**
+ * Keeps one model per id, so every view of an entity shares the same model.
+ *
+ * By default the identity map is unbounded. For long-lived sessions, pass a
+ * {@code maxInstances} to evict the least recently used models instead. (GWT doesn't
+ * have weak references, so we can't tell which models are still in use.) An evicted model
+ * stops getting merges, so the bound should comfortably exceed what's on screen at once.
+ * Models returned by {@link #getAll(Collection)} or {@link #mergeAll(Map)} aren't evicted
+ * by that same call, even if there are more of them than the bound.
+ */
 public abstract class AbstractRepository<K, D, M extends DtoModel<D>> {
 
-  // Identity map
-  protected final HashMap<K, M> instances = new HashMap<K, M>();
+  // Identity map, in least-recently-used order
+  protected final LinkedHashMap<K, M> instances;
   protected final DispatchAsync async;
+  private final int maxInstances;
+  // the number of getAll/mergeAll calls in progress, which only evict once they're done
+  private int evictionsHeld;
 
   public AbstractRepository(final DispatchAsync async) {
+    this(async, 0);
+  }
+
+  /** @param maxInstances the most models to keep, evicting the least recently used, or 0 for unbounded */
+  public AbstractRepository(final DispatchAsync async, final int maxInstances) {
     this.async = async;
+    this.maxInstances = maxInstances;
+    instances = new LinkedHashMap<K, M>(16, 0.75f, true);
   }
 
   /** Will immediately return a model, may/may not have data in it. */
@@ -20,22 +48,107 @@ public abstract class AbstractRepository<K, D, M extends DtoModel<D>> {
     return get(id, null);
   }
 
+  /**
+   * Returns the models for {@code ids}, in order, and loads any we didn't already have.
+   *
+   * Instead of a lookup per id, the new ids are passed to {@link #loadAll(List)} together,
+   * so they can be fetched with one action.
+   */
+  public List<M> getAll(final Collection<K> ids) {
+    final List<M> models = new ArrayList<M>(ids.size());
+    final List<K> missing = new ArrayList<K>();
+    evictionsHeld++;
+    try {
+      for (final K id : ids) {
+        M m = instances.get(id);
+        if (m == null) {
+          m = newModel(id, null);
+          instances.put(id, m);
+          missing.add(id);
+        }
+        models.add(m);
+      }
+      if (!missing.isEmpty()) {
+        loadAll(missing);
+      }
+    } finally {
+      evictionsHeld--;
+      evictIfNeeded(new HashSet<K>(ids));
+    }
+    return models;
+  }
+
+  /** Merges {@code dto} into the model for {@code id}, firing its property changes after all of them are updated. */
   public M merge(final K id, final D dto) {
     final M model = get(id, dto);
-    model.merge(dto);
+    Properties.batch(new Runnable() {
+      public void run() {
+        model.merge(dto);
+      }
+    });
     return model;
   }
 
+  /**
+   * Merges each dto into the model for its id, firing the property changes after all of the models are updated.
+   *
+   * So handlers (and derived properties) see the whole result at once, instead of a
+   * reassessment per model.
+   *
+   * @return the models, in {@code dtos}'s order
+   */
+  public List<M> mergeAll(final Map<K, ? extends D> dtos) {
+    final List<M> models = new ArrayList<M>(dtos.size());
+    evictionsHeld++;
+    try {
+      Properties.batch(new Runnable() {
+        public void run() {
+          for (final Map.Entry<K, ? extends D> e : dtos.entrySet()) {
+            final M model = get(e.getKey(), e.getValue());
+            model.merge(e.getValue());
+            models.add(model);
+          }
+        }
+      });
+    } finally {
+      evictionsHeld--;
+      evictIfNeeded(dtos.keySet());
+    }
+    return models;
+  }
+
   /** Will immediately return a model, may/may not have data in it. */
   protected M get(final K id, final D dto) {
     M m = instances.get(id);
     if (m == null) {
       m = newModel(id, dto);
       instances.put(id, m);
+      evictIfNeeded(Collections.singleton(id));
     }
     return m;
   }
 
+  /** Evicts the least recently used models, other than {@code keep}, until we're within our bound, unless a getAll/mergeAll is in progress. */
+  private void evictIfNeeded(final Collection<K> keep) {
+    if (maxInstances == 0 || evictionsHeld > 0) {
+      return;
+    }
+    for (final Iterator<K> i = instances.keySet().iterator(); instances.size() > maxInstances && i.hasNext();) {
+      if (!keep.contains(i.next())) {
+        i.remove();
+      }
+    }
+  }
+
+  /**
+   * Loads the dtos for the new models {@link #getAll(Collection)} created, e.g. with one
+   * action, and passes the results to {@link #mergeAll(Map)}.
+   *
+   * By default does nothing, for repositories that are only filled by merging.
+   */
+  protected void loadAll(final List<K> ids) {
+  }
+
   protected abstract M newModel(final K id, D dto);
 
 }
@@ -15,10 +15,10 @@ import org.tessell.model.validation.events.RuleUntriggeredEvent;
 import org.tessell.model.validation.events.RuleUntriggeredHandler;
 import org.tessell.model.values.Value;
 
+import com.google.gwt.event.shared.CompactEventBus;
 import com.google.gwt.event.shared.EventBus;
 import com.google.gwt.event.shared.GwtEvent;
 import com.google.gwt.event.shared.HandlerRegistration;
-import com.google.gwt.event.shared.SimplerEventBus;
 
 /**
  * A base class with most of the common {@link Rule} functionality implemented
@@ -32,7 +32,7 @@ public abstract class AbstractRule<T> implements Rule<T> {
 
   private static final Logger log = Logger.getLogger("org.tessell.model");
   // handlers
-  protected final EventBus handlers = new SimplerEventBus();
+  protected final EventBus handlers = new CompactEventBus();
   // List of properties that must be true for this rule to run.
   private final ArrayList<Value<Boolean>> onlyIf = new ArrayList<Value<Boolean>>();
   // set by AbstractProperty.addRule
@@ -0,0 +1,81 @@
+package org.tessell.model.values;
+
+import org.tessell.model.properties.IntegerProperty;
+
+/**
+ * Holds an {@code int} as a {@link Value}, without boxing it until someone calls {@link #get()}, which
+ * then keeps the boxed value until the next primitive set changes it.
+ *
+ * {@link IntegerProperty#getInt()} and {@link IntegerProperty#setInt(int)} use the primitive accessors directly.
+ */
+public class IntValue implements Value<Integer> {
+
+  private final String name;
+  private int value;
+  private boolean isNull;
+  // our value boxed, once someone has called get(), so repeated reads don't box again
+  private Integer boxed;
+
+  public IntValue(final String name) {
+    this.name = name;
+    this.isNull = true;
+  }
+
+  public IntValue(final String name, final Integer value) {
+    this.name = name;
+    set(value);
+  }
+
+  @Override
+  public Integer get() {
+    if (boxed == null && !isNull) {
+      boxed = value;
+    }
+    return boxed;
+  }
+
+  @Override
+  public void set(final Integer value) {
+    if (value == null) {
+      this.value = 0;
+      this.isNull = true;
+      this.boxed = null;
+    } else {
+      setInt(value);
+      boxed = value;
+    }
+  }
+
+  /** @return our value, or 0 if we're null */
+  public int getInt() {
+    return value;
+  }
+
+  public void setInt(final int value) {
+    if (isNull || this.value != value) {
+      this.value = value;
+      this.isNull = false;
+      this.boxed = null;
+    }
+  }
+
+  public boolean isNull() {
+    return isNull;
+  }
+
+  @Override
+  public boolean isReadOnly() {
+    return false;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String toString() {
+    return name + " " + get();
+  }
+
+}
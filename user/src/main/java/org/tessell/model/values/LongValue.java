@@ -0,0 +1,81 @@
+package org.tessell.model.values;
+
+import org.tessell.model.properties.LongProperty;
+
+/**
+ * Holds a {@code long} as a {@link Value}, without boxing it until someone calls {@link #get()}, which
+ * then keeps the boxed value until the next primitive set changes it.
+ *
+ * {@link LongProperty#getLong()} and {@link LongProperty#setLong(long)} use the primitive accessors directly.
+ */
+public class LongValue implements Value<Long> {
+
+  private final String name;
+  private long value;
+  private boolean isNull;
+  // our value boxed, once someone has called get(), so repeated reads don't box again
+  private Long boxed;
+
+  public LongValue(final String name) {
+    this.name = name;
+    this.isNull = true;
+  }
+
+  public LongValue(final String name, final Long value) {
+    this.name = name;
+    set(value);
+  }
+
+  @Override
+  public Long get() {
+    if (boxed == null && !isNull) {
+      boxed = value;
+    }
+    return boxed;
+  }
+
+  @Override
+  public void set(final Long value) {
+    if (value == null) {
+      this.value = 0;
+      this.isNull = true;
+      this.boxed = null;
+    } else {
+      setLong(value);
+      boxed = value;
+    }
+  }
+
+  /** @return our value, or 0 if we're null */
+  public long getLong() {
+    return value;
+  }
+
+  public void setLong(final long value) {
+    if (isNull || this.value != value) {
+      this.value = value;
+      this.isNull = false;
+      this.boxed = null;
+    }
+  }
+
+  public boolean isNull() {
+    return isNull;
+  }
+
+  @Override
+  public boolean isReadOnly() {
+    return false;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String toString() {
+    return name + " " + get();
+  }
+
+}
@@ -0,0 +1,52 @@
+package org.tessell.model.values;
+
+import org.tessell.model.properties.Properties;
+import org.tessell.model.properties.Property;
+
+/**
+ * A {@link DerivedValue} that caches its result until one of its upstream properties changes.
+ *
+ * The owning {@link Property} invalidates us whenever it's reassessed (which is what
+ * happens when an upstream property fires), so repeated {@code get()} calls in between
+ * are O(1) instead of re-running {@link #compute()} and re-capturing the upstream properties.
+ *
+ * This means {@link #compute()} must only depend on other properties; if it reads any
+ * other state, call {@link Property#reassess()} after changing that state.
+ */
+public abstract class MemoizedValue<P> extends DerivedValue<P> {
+
+  private P value;
+  private boolean stale = true;
+
+  public MemoizedValue() {
+    super();
+  }
+
+  public MemoizedValue(String name) {
+    super(name);
+  }
+
+  /** @return the derived value, which is only called again after {@link #invalidate()} */
+  protected abstract P compute();
+
+  @Override
+  public final P get() {
+    if (isStale()) {
+      value = compute();
+      stale = false;
+    }
+    return value;
+  }
+
+  /** Forgets the cached value, so the next {@link #get()} recomputes it. */
+  public void invalidate() {
+    stale = true;
+    value = null;
+  }
+
+  /** @return whether the next {@link #get()} will recompute, which is always within a {@link Properties#batch(Runnable)} as upstreams have not been reassessed yet */
+  public boolean isStale() {
+    return stale || Properties.isBatching();
+  }
+
+}
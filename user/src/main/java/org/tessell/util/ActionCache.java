@@ -8,6 +8,8 @@ import org.tessell.dispatch.client.util.OutstandingDispatchAsync;
 import org.tessell.dispatch.shared.Action;
 import org.tessell.dispatch.shared.Result;
 
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
 /**
  * @param A
  *          the action
@@ -47,7 +49,7 @@ public abstract class ActionCache<A extends Action<R>, R extends Result, D> {
   }
 
   /** For given action, calls and caches its derived result. */
-  private class ResultHandler implements SuccessCallback<R> {
+  private class ResultHandler implements AsyncCallback<R> {
     private final A action;
     private final ArrayList<SuccessCallback<D>> onSuccess = new ArrayList<SuccessCallback<D>>();
     private D derived;
@@ -82,5 +84,15 @@ public abstract class ActionCache<A extends Action<R>, R extends Result, D> {
       }
       onSuccess.clear();
     }
+
+    /** Drops the queued callbacks and lets the next {@code execute} try again. */
+    public void onFailure(final Throwable caught) {
+      calling = false;
+      onSuccess.clear();
+      if (results.get(action) == this) {
+        results.remove(action);
+      }
+      async.unhandledFailure(action, caught);
+    }
   }
 }
@@ -0,0 +1,119 @@
+package org.tessell.util;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A map that compares keys by identity but keeps them in insertion order.
+ *
+ * The JRE doesn't have a linked version of {@link IdentityHashMap} (and GWT doesn't
+ * emulate one), so this indexes entries in an {@code IdentityHashMap} and links them
+ * together, so that {@code get}, {@code put} and {@code remove} are all O(1).
+ */
+public class LinkedIdentityMap<K, V> {
+
+  private final IdentityHashMap<K, Entry<K, V>> entries = new IdentityHashMap<K, Entry<K, V>>();
+  private Entry<K, V> head;
+  private Entry<K, V> tail;
+
+  /** @return the value for {@code key}, or {@code null} */
+  public V get(K key) {
+    Entry<K, V> e = entries.get(key);
+    return e == null ? null : e.value;
+  }
+
+  public boolean containsKey(K key) {
+    return entries.containsKey(key);
+  }
+
+  /** Maps {@code key} to {@code value}, keeping {@code key}'s original position if it was already present. */
+  public V put(K key, V value) {
+    Entry<K, V> e = entries.get(key);
+    if (e != null) {
+      V old = e.value;
+      e.value = value;
+      return old;
+    }
+    e = new Entry<K, V>(key, value);
+    entries.put(key, e);
+    if (tail == null) {
+      head = e;
+    } else {
+      tail.next = e;
+      e.prev = tail;
+    }
+    tail = e;
+    return null;
+  }
+
+  /** @return the value that was mapped to {@code key}, or {@code null} */
+  public V remove(K key) {
+    Entry<K, V> e = entries.remove(key);
+    if (e == null) {
+      return null;
+    }
+    if (e.prev == null) {
+      head = e.next;
+    } else {
+      e.prev.next = e.next;
+    }
+    if (e.next == null) {
+      tail = e.prev;
+    } else {
+      e.next.prev = e.prev;
+    }
+    return e.value;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  /** @return a copy of the keys, in insertion order */
+  public List<K> keys() {
+    List<K> keys = new ArrayList<K>(entries.size());
+    for (Entry<K, V> e = head; e != null; e = e.next) {
+      keys.add(e.key);
+    }
+    return keys;
+  }
+
+  /** @return a copy of the values, in insertion order, so callers can change the map while iterating */
+  public List<V> values() {
+    List<V> values = new ArrayList<V>(entries.size());
+    for (Entry<K, V> e = head; e != null; e = e.next) {
+      values.add(e.value);
+    }
+    return values;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (Entry<K, V> e = head; e != null; e = e.next) {
+      sb.append(e.key).append("=").append(e.value);
+      if (e.next != null) {
+        sb.append(", ");
+      }
+    }
+    return sb.append("}").toString();
+  }
+
+  private static class Entry<K, V> {
+    private final K key;
+    private V value;
+    private Entry<K, V> prev;
+    private Entry<K, V> next;
+
+    private Entry(K key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+}
@@ -2,8 +2,10 @@ package org.tessell.util;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Compares new/old versions of lists, e.g. for firing add/remove events.
@@ -22,8 +24,76 @@ public class ListDiff<T> {
     void add(int index, A a);
   }
 
-  /** @returns a diff of {@code oldValue} and {@code newValue}. */
+  /**
+   * @returns a diff of {@code oldValue} and {@code newValue}, matching elements by {@code equals}.
+   *
+   * Repeated values are matched up in order, e.g. the 2nd "a" in {@code oldValue} is
+   * the 2nd "a" in {@code newValue}, and any extras are added/removed.
+   */
   public static <T> ListDiff<T> of(List<T> oldValue, List<T> newValue) {
+    return of(oldValue, newValue, false);
+  }
+
+  /**
+   * @returns a diff of {@code oldValue} and {@code newValue}, matching elements by {@code equals}.
+   *
+   * @param minimalMoves if true, keeps the longest run of already-ordered elements in place and only moves the rest
+   */
+  public static <T> ListDiff<T> of(List<T> oldValue, List<T> newValue, boolean minimalMoves) {
+    return diff(oldValue, newValue, null, false, minimalMoves);
+  }
+
+  /** @returns a diff of {@code oldValue} and {@code newValue}, matching elements by identity. */
+  public static <T> ListDiff<T> ofIdentity(List<T> oldValue, List<T> newValue) {
+    return ofIdentity(oldValue, newValue, false);
+  }
+
+  /** @returns a diff of {@code oldValue} and {@code newValue}, matching elements by identity. */
+  public static <T> ListDiff<T> ofIdentity(List<T> oldValue, List<T> newValue, boolean minimalMoves) {
+    return diff(oldValue, newValue, null, true, minimalMoves);
+  }
+
+  /**
+   * @returns a diff of {@code oldValue} and {@code newValue}, matching elements by the {@code equals} of their {@code key}.
+   *
+   * E.g. if rows are re-fetched from the server as new instances, matching by id means only
+   * the rows that really came and went show up as adds/removes. Note that {@link #apply(List)}
+   * keeps the existing instances of matched elements, it only moves them around.
+   */
+  public static <T> ListDiff<T> ofKey(List<T> oldValue, List<T> newValue, Mapper<? super T, ?> key) {
+    return ofKey(oldValue, newValue, key, false);
+  }
+
+  /** @returns a diff of {@code oldValue} and {@code newValue}, matching elements by the {@code equals} of their {@code key}. */
+  public static <T> ListDiff<T> ofKey(List<T> oldValue, List<T> newValue, Mapper<? super T, ?> key, boolean minimalMoves) {
+    return diff(oldValue, newValue, key, false, minimalMoves);
+  }
+
+  /** @returns a diff of just {@code elements} being added, starting at {@code index}, e.g. for a known {@code addAll}. */
+  public static <T> ListDiff<T> ofAdds(int index, Collection<? extends T> elements) {
+    List<Location<T>> added = new ArrayList<Location<T>>(elements.size());
+    for (T element : elements) {
+      added.add(new Location<T>(element, index++, -1));
+    }
+    return new ListDiff<T>(added, new ArrayList<Location<T>>(0), new ArrayList<Location<T>>(0));
+  }
+
+  /** @returns a diff of just {@code element} being removed from {@code index}, e.g. for a known {@code remove}. */
+  public static <T> ListDiff<T> ofRemove(int index, T element) {
+    List<Location<T>> removed = new ArrayList<Location<T>>(1);
+    removed.add(new Location<T>(element, index, -1));
+    return new ListDiff<T>(new ArrayList<Location<T>>(0), new ArrayList<Location<T>>(0), removed);
+  }
+
+  /**
+   * Diffs {@code oldValue} and {@code newValue} in O(n log n).
+   *
+   * We index the old elements by key, so matching up old/new elements is a hash lookup
+   * instead of a {@code List.indexOf} scan. The removes and adds fall out of the matching,
+   * and then the moves are calculated against the list as it will be after the removes
+   * and adds are applied (the same order {@link #apply(ListLike, Mapper)} uses).
+   */
+  private static <T> ListDiff<T> diff(List<T> oldValue, List<T> newValue, Mapper<? super T, ?> key, boolean identity, boolean minimalMoves) {
     List<Location<T>> added = new ArrayList<Location<T>>();
     List<Location<T>> moves = new ArrayList<Location<T>>();
     List<Location<T>> removed = new ArrayList<Location<T>>();
@@ -37,43 +107,184 @@ public class ListDiff<T> {
         removed.add(new Location<T>(t, 0, -1));
       }
     } else if (oldValue != null && newValue != null) {
-      // We make oldCopy/newCopy so that we can call .remove on
-      // the copies (a destructive operation) so that we'll detect
-      // multiple entries of primitives/value objects.
-      List<T> oldCopy = new ArrayList<T>(oldValue);
-      // First find removals, and make oldCopy contain only newValues
-      List<T> newCopy = new ArrayList<T>(newValue);
-      for (Iterator<T> i = oldCopy.iterator(); i.hasNext();) {
-        T t = i.next();
-        if (!newCopy.remove(t)) {
-          removed.add(new Location<T>(t, oldCopy.indexOf(t), -1));
-          i.remove();
+      // copy into arrays so that LinkedLists/etc. don't make get(i) expensive
+      @SuppressWarnings("unchecked")
+      T[] olds = (T[]) oldValue.toArray();
+      @SuppressWarnings("unchecked")
+      T[] news = (T[]) newValue.toArray();
+      int[] matches = match(olds, news, key, identity);
+
+      // removes, where each index accounts for the removes before it (so is just the number kept so far)
+      boolean[] kept = new boolean[olds.length];
+      for (int j = 0; j < news.length; j++) {
+        if (matches[j] != -1) {
+          kept[matches[j]] = true;
         }
       }
-      List<T> withRemoves = new ArrayList<T>(oldCopy);
-      for (T t : newValue) {
-        if (!oldCopy.remove(t)) {
-          // we didn't find in old, so it's new
-          int newIndex = newValue.indexOf(t);
-          added.add(new Location<T>(t, newIndex, -1));
-          // keep withRemoves up to date
-          withRemoves.add(newIndex, t);
+      int[] keptRank = new int[olds.length];
+      int numberKept = 0;
+      for (int i = 0; i < olds.length; i++) {
+        if (kept[i]) {
+          keptRank[i] = numberKept++;
         } else {
-          // we did find in old, but it might have moved
-          int oldIndex = withRemoves.indexOf(t);
-          int newIndex = newValue.indexOf(t);
-          if (oldIndex != newIndex) {
-            moves.add(new Location<T>(t, newIndex, oldIndex));
-            // keep withRemoves up to date
-            withRemoves.remove(oldIndex);
-            withRemoves.add(newIndex, t);
-          }
+          removed.add(new Location<T>(olds[i], numberKept, -1));
         }
       }
+
+      // adds go right to their new index; the kept elements fill in the other slots in their old order
+      int[] slots = new int[numberKept];
+      int nextSlot = 0;
+      for (int j = 0; j < news.length; j++) {
+        if (matches[j] == -1) {
+          added.add(new Location<T>(news[j], j, -1));
+        } else {
+          slots[nextSlot++] = j;
+        }
+      }
+      // position of each new element in the list after removes and adds are applied
+      int[] positions = new int[news.length];
+      for (int j = 0; j < news.length; j++) {
+        positions[j] = matches[j] == -1 ? j : slots[keptRank[matches[j]]];
+      }
+
+      if (minimalMoves) {
+        minimalMoves(news, positions, moves);
+      } else {
+        greedyMoves(news, positions, moves);
+      }
     }
     return new ListDiff<T>(added, moves, removed);
   }
 
+  /** @return the index of the old element that each new element matches, or -1 if it's new */
+  private static <T> int[] match(T[] olds, T[] news, Mapper<? super T, ?> key, boolean identity) {
+    // key -> first unmatched old index, with nextSame chaining any duplicate keys in order
+    Map<Object, Integer> firsts = identity ? new IdentityHashMap<Object, Integer>() : new HashMap<Object, Integer>();
+    int[] nextSame = new int[olds.length];
+    for (int i = olds.length - 1; i >= 0; i--) {
+      Integer next = firsts.put(keyOf(olds[i], key), i);
+      nextSame[i] = next == null ? -1 : next;
+    }
+    int[] matches = new int[news.length];
+    for (int j = 0; j < news.length; j++) {
+      Object k = keyOf(news[j], key);
+      Integer i = firsts.get(k);
+      if (i == null) {
+        matches[j] = -1;
+      } else {
+        matches[j] = i;
+        if (nextSame[i] == -1) {
+          firsts.remove(k);
+        } else {
+          firsts.put(k, nextSame[i]);
+        }
+      }
+    }
+    return matches;
+  }
+
+  private static <T> Object keyOf(T element, Mapper<? super T, ?> key) {
+    return key == null ? element : key.map(element);
+  }
+
+  /**
+   * Puts each new element in place from the start of the list, moving it up if it's not already next.
+   *
+   * This is cheap to calculate and matches what a user usually did (e.g. moving one element), but moving
+   * the first element to the end will move every other element up one by one.
+   */
+  private static <T> void greedyMoves(T[] news, int[] positions, List<Location<T>> moves) {
+    // elements not put in place yet, by their position after removes/adds
+    Counts remaining = new Counts(news.length, true);
+    for (int j = 0; j < news.length; j++) {
+      int oldIndex = j + remaining.before(positions[j]);
+      if (oldIndex != j) {
+        moves.add(new Location<T>(news[j], j, oldIndex));
+      }
+      remaining.set(positions[j], false);
+    }
+  }
+
+  /**
+   * Leaves the longest increasing run of positions in place, and moves every other element
+   * to be just before the element that follows it in the new list.
+   *
+   * We go from the end of the list back to the front, so the element we're moving
+   * in front of has already been put in its final place.
+   */
+  private static <T> void minimalMoves(T[] news, int[] positions, List<Location<T>> moves) {
+    int n = news.length;
+    boolean[] stays = longestIncreasing(positions);
+    // each moved element is put in front of the next staying element, so lay out the
+    // moved elements in a block just before the slot of the staying element they precede
+    int[] anchors = new int[n];
+    int[] blockSizes = new int[n + 1];
+    int anchor = n;
+    for (int j = n - 1; j >= 0; j--) {
+      if (stays[j]) {
+        anchor = positions[j];
+      } else {
+        anchors[j] = anchor;
+        blockSizes[anchor]++;
+      }
+    }
+    // blockStarts[p] = where the moved elements before slot p start, then slot p itself is after them
+    int[] blockStarts = new int[n + 1];
+    int size = 0;
+    for (int p = 0; p <= n; p++) {
+      blockStarts[p] = size;
+      size += blockSizes[p] + 1;
+    }
+    Counts present = new Counts(size, false);
+    for (int p = 0; p < n; p++) {
+      present.set(blockStarts[p] + blockSizes[p], true);
+    }
+    for (int j = n - 1; j >= 0; j--) {
+      if (!stays[j]) {
+        int from = blockStarts[positions[j]] + blockSizes[positions[j]];
+        int oldIndex = present.before(from);
+        present.set(from, false);
+        int to = blockStarts[anchors[j]] + --blockSizes[anchors[j]];
+        int index = present.before(to);
+        present.set(to, true);
+        if (index != oldIndex) {
+          moves.add(new Location<T>(news[j], index, oldIndex));
+        }
+      }
+    }
+  }
+
+  /** @return which entries of {@code values} are in a longest increasing subsequence, via patience sorting */
+  private static boolean[] longestIncreasing(int[] values) {
+    int n = values.length;
+    // tails[k] = index of the smallest value that ends an increasing run of length k + 1
+    int[] tails = new int[n];
+    int[] previous = new int[n];
+    int length = 0;
+    for (int j = 0; j < n; j++) {
+      int low = 0;
+      int high = length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (values[tails[mid]] < values[j]) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      previous[j] = low > 0 ? tails[low - 1] : -1;
+      tails[low] = j;
+      if (low == length) {
+        length++;
+      }
+    }
+    boolean[] in = new boolean[n];
+    for (int j = length > 0 ? tails[length - 1] : -1; j != -1; j = previous[j]) {
+      in[j] = true;
+    }
+    return in;
+  }
+
   public final Collection<Location<T>> added;
   public final Collection<Location<T>> moves;
   public final Collection<Location<T>> removed;
@@ -82,7 +293,7 @@ public class ListDiff<T> {
   public static class Location<T> {
     public final T element;
     public final int index;
-    /** The old index of {@code element}, *after* any removals are applied. */
+    /** For moves, the index of {@code element} *after* any removes, adds, and previous moves are applied. */
     public final int oldIndex;
 
     private Location(T element, int index, int oldIndex) {
@@ -135,6 +346,41 @@ public class ListDiff<T> {
     }
   }
 
+  /** A Fenwick tree of which slots are set, so we can count the set slots before a given slot in O(log n). */
+  private static class Counts {
+    private final int[] tree;
+
+    private Counts(int size, boolean allSet) {
+      tree = new int[size + 1];
+      if (allSet) {
+        for (int i = 1; i <= size; i++) {
+          tree[i]++;
+          int parent = i + (i & -i);
+          if (parent <= size) {
+            tree[parent] += tree[i];
+          }
+        }
+      }
+    }
+
+    /** @return the number of set slots before {@code slot} */
+    private int before(int slot) {
+      int count = 0;
+      for (int i = slot; i > 0; i -= i & -i) {
+        count += tree[i];
+      }
+      return count;
+    }
+
+    /** Sets/unsets {@code slot}, which must currently be the opposite. */
+    private void set(int slot, boolean value) {
+      int delta = value ? 1 : -1;
+      for (int i = slot + 1; i < tree.length; i += i & -i) {
+        tree[i] += delta;
+      }
+    }
+  }
+
   private ListDiff(Collection<Location<T>> added, Collection<Location<T>> moves, Collection<Location<T>> removed) {
     this.added = added;
     this.removed = removed;
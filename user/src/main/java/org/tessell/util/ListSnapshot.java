@@ -0,0 +1,122 @@
+package org.tessell.util;
+
+import java.util.AbstractList;
+import java.util.Collection;
+
+/**
+ * A read-only copy of a list that is cheap to extend.
+ *
+ * Snapshots share their backing array, so appending to the latest snapshot is O(1)
+ * (amortized) instead of copying the whole list, and the older snapshots still only
+ * see their original elements. Changes anywhere besides the end copy the array.
+ *
+ * E.g. {@code ListProperty} keeps one of these as its last value, so that
+ * appending one element to a large list doesn't copy the entire list each time.
+ */
+public class ListSnapshot<E> extends AbstractList<E> {
+
+  private final Shared shared;
+  private final int size;
+
+  /** @return a new snapshot of {@code elements} */
+  public static <E> ListSnapshot<E> of(Collection<? extends E> elements) {
+    Object[] copy = elements.toArray();
+    return new ListSnapshot<E>(new Shared(copy, copy.length), copy.length);
+  }
+
+  private ListSnapshot(Shared shared, int size) {
+    this.shared = shared;
+    this.size = size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    return (E) shared.elements[index];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /** @return a new snapshot with {@code element} inserted at {@code index} */
+  public ListSnapshot<E> with(int index, E element) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    if (index == size && isLatest()) {
+      shared.ensureCapacity(size + 1);
+      shared.elements[size] = element;
+      shared.used++;
+      return new ListSnapshot<E>(shared, size + 1);
+    }
+    Object[] copy = new Object[grow(size + 1)];
+    System.arraycopy(shared.elements, 0, copy, 0, index);
+    copy[index] = element;
+    System.arraycopy(shared.elements, index, copy, index + 1, size - index);
+    return new ListSnapshot<E>(new Shared(copy, size + 1), size + 1);
+  }
+
+  /** @return a new snapshot with {@code elements} appended */
+  public ListSnapshot<E> withAll(Collection<? extends E> elements) {
+    Object[] added = elements.toArray();
+    Shared target = shared;
+    if (!isLatest()) {
+      Object[] copy = new Object[grow(size + added.length)];
+      System.arraycopy(shared.elements, 0, copy, 0, size);
+      target = new Shared(copy, size);
+    }
+    target.ensureCapacity(size + added.length);
+    System.arraycopy(added, 0, target.elements, size, added.length);
+    target.used = size + added.length;
+    return new ListSnapshot<E>(target, size + added.length);
+  }
+
+  /** @return a new snapshot with the element at {@code index} removed */
+  public ListSnapshot<E> without(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    if (index == size - 1) {
+      // just ignore the last element, it's still there for any older snapshots
+      return new ListSnapshot<E>(shared, size - 1);
+    }
+    Object[] copy = new Object[size];
+    System.arraycopy(shared.elements, 0, copy, 0, index);
+    System.arraycopy(shared.elements, index + 1, copy, index, size - index - 1);
+    return new ListSnapshot<E>(new Shared(copy, size - 1), size - 1);
+  }
+
+  /** @return whether we're the longest snapshot of our array, so can append to it in place */
+  private boolean isLatest() {
+    return size == shared.used;
+  }
+
+  private static int grow(int minimum) {
+    return Math.max(minimum, minimum + (minimum >> 1));
+  }
+
+  /** The backing array, plus how much of it the longest snapshot uses. */
+  private static class Shared {
+    private Object[] elements;
+    private int used;
+
+    private Shared(Object[] elements, int used) {
+      this.elements = elements;
+      this.used = used;
+    }
+
+    private void ensureCapacity(int minimum) {
+      if (elements.length < minimum) {
+        Object[] copy = new Object[grow(minimum)];
+        System.arraycopy(elements, 0, copy, 0, used);
+        elements = copy;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,119 @@
+package org.tessell.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An {@link ArrayList} that counts its changes, including {@link #set(int, Object)}, which
+ * {@code modCount} doesn't, so an owner can cheaply tell if it was changed behind its back.
+ *
+ * E.g. {@code ListProperty} keeps its lists as these, so an {@code add} can trust its last
+ * snapshot is current if the stamp hasn't moved, instead of re-diffing the whole list.
+ *
+ * Handing out a {@link #subList(int, int)} bumps the stamp, since changes to it aren't seen. Java 8's
+ * {@code removeIf} and {@code replaceAll} aren't seen either, since we compile against Java 7.
+ */
+public class StampedList<E> extends ArrayList<E> {
+
+  private static final long serialVersionUID = 1L;
+  private transient int stamp;
+
+  public StampedList() {
+  }
+
+  public StampedList(final Collection<? extends E> c) {
+    super(c);
+  }
+
+  /** @return a number that changes whenever we do */
+  public int getStamp() {
+    return stamp;
+  }
+
+  @Override
+  public E set(final int index, final E element) {
+    stamp++;
+    return super.set(index, element);
+  }
+
+  @Override
+  public boolean add(final E e) {
+    stamp++;
+    return super.add(e);
+  }
+
+  @Override
+  public void add(final int index, final E element) {
+    stamp++;
+    super.add(index, element);
+  }
+
+  @Override
+  public boolean addAll(final Collection<? extends E> c) {
+    stamp++;
+    return super.addAll(c);
+  }
+
+  @Override
+  public boolean addAll(final int index, final Collection<? extends E> c) {
+    stamp++;
+    return super.addAll(index, c);
+  }
+
+  @Override
+  public E remove(final int index) {
+    stamp++;
+    return super.remove(index);
+  }
+
+  @Override
+  public boolean remove(final Object o) {
+    stamp++;
+    return super.remove(o);
+  }
+
+  @Override
+  public boolean removeAll(final Collection<?> c) {
+    stamp++;
+    return super.removeAll(c);
+  }
+
+  @Override
+  public boolean retainAll(final Collection<?> c) {
+    stamp++;
+    return super.retainAll(c);
+  }
+
+  @Override
+  public void clear() {
+    stamp++;
+    super.clear();
+  }
+
+  @Override
+  protected void removeRange(final int fromIndex, final int toIndex) {
+    stamp++;
+    super.removeRange(fromIndex, toIndex);
+  }
+
+  @Override
+  public List<E> subList(final int fromIndex, final int toIndex) {
+    stamp++;
+    return super.subList(fromIndex, toIndex);
+  }
+
+  /** Overrides Java 8's {@code List.sort}, which {@code Collections.sort} calls, and which otherwise doesn't go through {@link #set}. */
+  @SuppressWarnings("unchecked")
+  public void sort(final Comparator<? super E> c) {
+    stamp++;
+    final Object[] sorted = toArray();
+    Arrays.sort(sorted, (Comparator<Object>) c);
+    for (int i = 0; i < sorted.length; i++) {
+      super.set(i, (E) sorted[i]);
+    }
+  }
+
+}
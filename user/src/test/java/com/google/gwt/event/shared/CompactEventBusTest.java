@@ -0,0 +1,181 @@
+package com.google.gwt.event.shared;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CompactEventBusTest {
+
+  private final CompactEventBus bus = new CompactEventBus();
+  private final List<String> fired = new ArrayList<String>();
+
+  @Test
+  public void firesToSourcedThenGlobalHandlers() {
+    bus.addHandler(FooEvent.TYPE, new Recorder("global"));
+    bus.addHandlerToSource(FooEvent.TYPE, "a", new Recorder("a1"));
+    bus.addHandlerToSource(FooEvent.TYPE, "a", new Recorder("a2"));
+    bus.addHandlerToSource(FooEvent.TYPE, "b", new Recorder("b"));
+    bus.fireEventFromSource(new FooEvent("x"), "a");
+    assertThat(fired.toString(), is("[a1 x, a2 x, global x]"));
+    fired.clear();
+    bus.fireEvent(new FooEvent("y"));
+    assertThat(fired.toString(), is("[global y]"));
+  }
+
+  @Test
+  public void removingHandlersShrinksTheSlots() {
+    HandlerRegistration r1 = bus.addHandler(FooEvent.TYPE, new Recorder("1"));
+    HandlerRegistration r2 = bus.addHandler(FooEvent.TYPE, new Recorder("2"));
+    assertThat(bus.isEventHandled(FooEvent.TYPE), is(true));
+    r1.removeHandler();
+    bus.fireEvent(new FooEvent("x"));
+    assertThat(fired.toString(), is("[2 x]"));
+    r2.removeHandler();
+    assertThat(bus.isEventHandled(FooEvent.TYPE), is(false));
+    // removing twice is a no-op
+    r2.removeHandler();
+  }
+
+  @Test
+  public void addsAndRemovesWhileFiringTakeEffectImmediately() {
+    final Recorder added = new Recorder("added");
+    final Recorder removed = new Recorder("removed");
+    final HandlerRegistration[] r = new HandlerRegistration[1];
+    bus.addHandler(FooEvent.TYPE, new FooHandler() {
+      public void onFoo(FooEvent event) {
+        fired.add("first " + event.value);
+        bus.addHandler(FooEvent.TYPE, added);
+        r[0].removeHandler();
+      }
+    });
+    r[0] = bus.addHandler(FooEvent.TYPE, removed);
+    bus.fireEvent(new FooEvent("x"));
+    assertThat(fired.toString(), is("[first x, added x]"));
+  }
+
+  @Test
+  public void removingTheOnlyHandlerWhileFiring() {
+    final HandlerRegistration[] r = new HandlerRegistration[1];
+    r[0] = bus.addHandler(FooEvent.TYPE, new FooHandler() {
+      public void onFoo(FooEvent event) {
+        fired.add("once " + event.value);
+        r[0].removeHandler();
+      }
+    });
+    bus.fireEvent(new FooEvent("x"));
+    bus.fireEvent(new FooEvent("y"));
+    assertThat(fired.toString(), is("[once x]"));
+    assertThat(bus.isEventHandled(FooEvent.TYPE), is(false));
+  }
+
+  @Test
+  public void eventsFiredWhileFiringAreQueued() {
+    bus.addHandler(FooEvent.TYPE, new FooHandler() {
+      public void onFoo(FooEvent event) {
+        if (event.value.length() < 3) {
+          bus.fireEvent(new FooEvent(event.value + "a"));
+          bus.fireEvent(new FooEvent(event.value + "b"));
+        }
+        fired.add(event.value);
+      }
+    });
+    bus.fireEvent(new FooEvent("x"));
+    assertThat(fired.toString(), is("[x, xa, xb, xaa, xab, xba, xbb]"));
+  }
+
+  @Test
+  public void queuedEventsAreCounted() {
+    assertThat(bus.getQueuedCount(), is(0));
+    bus.addHandler(FooEvent.TYPE, new FooHandler() {
+      public void onFoo(FooEvent event) {
+        if (event.value.equals("x")) {
+          for (int i = 0; i < 100; i++) {
+            bus.fireEvent(new FooEvent("y"));
+          }
+        }
+        fired.add(event.value);
+      }
+    });
+    bus.fireEvent(new FooEvent("x"));
+    assertThat(fired.size(), is(101));
+    assertThat(bus.getQueuedCount(), is(100));
+    assertThat(bus.getMaxQueueSize(), is(100));
+  }
+
+  @Test
+  public void queueLimitCatchesRunawayCascades() {
+    bus.setQueueLimit(10);
+    bus.addHandler(FooEvent.TYPE, new FooHandler() {
+      public void onFoo(FooEvent event) {
+        // each event fires two more
+        bus.fireEvent(new FooEvent("a"));
+        bus.fireEvent(new FooEvent("b"));
+      }
+    });
+    try {
+      bus.fireEvent(new FooEvent("x"));
+      fail();
+    } catch (UmbrellaException ue) {
+      assertThat(ue.getCause() instanceof IllegalStateException, is(true));
+    }
+    assertThat(bus.getMaxQueueSize(), is(10));
+  }
+
+  @Test
+  public void exceptionsAreCollected() {
+    bus.addHandler(FooEvent.TYPE, new FooHandler() {
+      public void onFoo(FooEvent event) {
+        throw new IllegalStateException("boom");
+      }
+    });
+    bus.addHandler(FooEvent.TYPE, new Recorder("after"));
+    try {
+      bus.fireEvent(new FooEvent("x"));
+      fail();
+    } catch (UmbrellaException ue) {
+      assertThat(ue.getCauses().size(), is(1));
+    }
+    assertThat(fired.toString(), is("[after x]"));
+  }
+
+  private class Recorder implements FooHandler {
+    private final String name;
+
+    private Recorder(String name) {
+      this.name = name;
+    }
+
+    public void onFoo(FooEvent event) {
+      fired.add(name + " " + event.value);
+    }
+  }
+
+  private interface FooHandler extends EventHandler {
+    void onFoo(FooEvent event);
+  }
+
+  private static class FooEvent extends GwtEvent<FooHandler> {
+    private static final Type<FooHandler> TYPE = new Type<FooHandler>();
+    private final String value;
+
+    private FooEvent(String value) {
+      this.value = value;
+    }
+
+    @Override
+    public Type<FooHandler> getAssociatedType() {
+      return TYPE;
+    }
+
+    @Override
+    protected void dispatch(FooHandler handler) {
+      handler.onFoo(this);
+    }
+  }
+
+}
@@ -0,0 +1,49 @@
+package com.google.web.bindery.event.shared;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class EventQueueTest {
+
+  private final EventQueue queue = new EventQueue();
+
+  @Test
+  public void pollsInOrderWhileWrappingAndGrowing() {
+    int next = 0;
+    for (int i = 0; i < 40; i++) {
+      // add 2, poll 1, so the ring both wraps and grows
+      queue.add("e" + i, "s" + i);
+      queue.add("f" + i, "t" + i);
+      assertThat(queue.peekSource(), is((Object) ((next % 2 == 0 ? "s" : "t") + next / 2)));
+      assertThat(queue.poll(), is((Object) ((next % 2 == 0 ? "e" : "f") + next / 2)));
+      next++;
+    }
+    while (!queue.isEmpty()) {
+      assertThat(queue.poll(), is((Object) ((next % 2 == 0 ? "e" : "f") + next / 2)));
+      next++;
+    }
+    assertThat(next, is(80));
+    assertThat(queue.getQueuedCount(), is(80));
+    assertThat(queue.getMaxSize(), is(41));
+  }
+
+  @Test
+  public void hittingTheLimitDropsEverything() {
+    queue.setLimit(2);
+    queue.add("a", null);
+    queue.add("b", null);
+    try {
+      queue.add("c", null);
+      fail();
+    } catch (IllegalStateException ise) {
+      assertThat(ise.getMessage(), is("More than 2 events queued, probably a runaway cascade, dropped them and c"));
+    }
+    assertThat(queue.isEmpty(), is(true));
+    queue.add("d", null);
+    assertThat(queue.poll(), is((Object) "d"));
+  }
+
+}
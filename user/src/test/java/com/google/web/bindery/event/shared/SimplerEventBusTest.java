@@ -242,6 +242,67 @@ public class SimplerEventBusTest extends HandlerTestBase {
     assertNotFired(baker);
   }
 
+  public void testConcurrentAddAndRemoveFromSource() {
+    final SimplerEventBus eventBus = new SimplerEventBus();
+    final SourcedHandler added = new SourcedHandler("able");
+    final SourcedHandler removed = new SourcedHandler("able");
+    final HandlerRegistration[] removedReg = new HandlerRegistration[1];
+    MouseDownHandler one = new MouseDownHandler() {
+      public void onMouseDown(MouseDownEvent event) {
+        eventBus.addHandlerToSource(MouseDownEvent.getType(), "able", added);
+        removedReg[0].removeHandler();
+        add(this);
+      }
+    };
+    SourcedHandler global = new SourcedHandler("able");
+    eventBus.addHandlerToSource(MouseDownEvent.getType(), "able", one);
+    removedReg[0] = eventBus.addHandlerToSource(MouseDownEvent.getType(), "able", removed);
+    eventBus.addHandler(MouseDownEvent.getType(), global);
+
+    fireMouseDown(eventBus, "able");
+    assertFired(one, added, global);
+    assertNotFired(removed);
+  }
+
+  public void testQueuedEventsDrainInOrder() {
+    final SimplerEventBus eventBus = new SimplerEventBus();
+    final List<Integer> fired = new ArrayList<Integer>();
+    eventBus.addHandler(MouseDownEvent.getType(), new MouseDownHandler() {
+      public void onMouseDown(MouseDownEvent event) {
+        fired.add(fired.size());
+        if (fired.size() == 1) {
+          // queue a lot of events at once, more than the ring buffer starts with
+          for (int i = 0; i < 1000; i++) {
+            fireMouseDown(eventBus);
+          }
+        }
+      }
+    });
+    fireMouseDown(eventBus);
+    assertEquals(1001, fired.size());
+    assertEquals(1000, eventBus.getQueuedCount());
+    assertEquals(1000, eventBus.getMaxQueueSize());
+  }
+
+  public void testQueueLimitCatchesRunawayCascades() {
+    final SimplerEventBus eventBus = new SimplerEventBus();
+    eventBus.setQueueLimit(10);
+    eventBus.addHandler(MouseDownEvent.getType(), new MouseDownHandler() {
+      public void onMouseDown(MouseDownEvent event) {
+        // each event fires two more
+        fireMouseDown(eventBus);
+        fireMouseDown(eventBus);
+      }
+    });
+    try {
+      fireMouseDown(eventBus);
+      fail();
+    } catch (UmbrellaException ue) {
+      assertTrue(ue.getCause() instanceof IllegalStateException);
+    }
+    assertEquals(10, eventBus.getMaxQueueSize());
+  }
+
   public void testNoSource() {
     final SimplerEventBus eventBus = new SimplerEventBus();
 
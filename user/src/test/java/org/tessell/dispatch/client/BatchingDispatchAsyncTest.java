@@ -0,0 +1,177 @@
+package org.tessell.dispatch.client;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tessell.dispatch.client.util.BatchingDispatchAsync;
+import org.tessell.dispatch.shared.ActionException;
+import org.tessell.dispatch.shared.BatchAction;
+import org.tessell.dispatch.shared.BatchResult;
+import org.tessell.widgets.StubGWTBridge;
+import org.tessell.widgets.StubScheduler;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.event.shared.UmbrellaException;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+public class BatchingDispatchAsyncTest {
+
+  private final StubDispatchAsync stub = new StubDispatchAsync();
+  private final BatchingDispatchAsync async = new BatchingDispatchAsync(stub);
+  private final StubScheduler scheduler = (StubScheduler) Scheduler.get();
+  private final StubCallback a = new StubCallback();
+  private final StubCallback b = new StubCallback();
+
+  @BeforeClass
+  public static void installStubScheduler() {
+    StubGWTBridge.install();
+  }
+
+  @Test
+  public void actionsInTheSameLoopAreSentAsOneBatch() {
+    scheduler.runWithDeferred(new Runnable() {
+      public void run() {
+        async.execute(new GetTestAction("a"), a);
+        async.execute(new GetTestAction("b"), b);
+        assertThat(stub.getCalls().size(), is(0));
+      }
+    });
+    assertThat(stub.getCalls().size(), is(1));
+    final BatchAction batch = stub.getAction(BatchAction.class);
+    assertThat(batch.getActions().size(), is(2));
+    assertThat(((GetTestAction) batch.getActions().get(1)).getName(), is("b"));
+
+    final BatchResult result = new BatchResult(2);
+    final GetTestResult ra = new GetTestResult();
+    result.addResult(ra);
+    result.addFailure(new ActionException("b failed"));
+    stub.getCallback(BatchAction.class).onSuccess(result);
+    assertThat(a.results.get(0), is((Object) ra));
+    assertThat(((ActionException) b.results.get(0)).getMessage(), is("b failed"));
+  }
+
+  @Test
+  public void aSingleActionIsSentByItself() {
+    scheduler.runWithDeferred(new Runnable() {
+      public void run() {
+        async.execute(new GetTestAction("a"), a);
+      }
+    });
+    assertThat(stub.getCalls().size(), is(1));
+    assertThat(stub.getAction(GetTestAction.class).getName(), is("a"));
+  }
+
+  @Test
+  public void aFailedBatchFailsEveryCallback() {
+    scheduler.runWithDeferred(new Runnable() {
+      public void run() {
+        async.execute(new GetTestAction("a"), a);
+        async.execute(new GetTestAction("b"), b);
+      }
+    });
+    final RuntimeException e = new RuntimeException("network");
+    stub.getCallback(BatchAction.class).onFailure(e);
+    assertThat(a.results.get(0), is((Object) e));
+    assertThat(b.results.get(0), is((Object) e));
+  }
+
+  @Test
+  public void laterLoopsStartANewBatch() {
+    scheduler.runWithDeferred(new Runnable() {
+      public void run() {
+        async.execute(new GetTestAction("a"), a);
+        async.execute(new GetTestAction("b"), b);
+      }
+    });
+    scheduler.runWithDeferred(new Runnable() {
+      public void run() {
+        async.execute(new GetTestAction("c"), a);
+        async.execute(new GetTestAction("d"), b);
+      }
+    });
+    assertThat(stub.getActions(BatchAction.class).size(), is(2));
+    assertThat(stub.getActions().get(1), is(instanceOf(BatchAction.class)));
+    assertThat(async.getQueuedCount(), is(0));
+  }
+
+  private static class StubCallback implements AsyncCallback<GetTestResult> {
+    private final List<Object> results = new ArrayList<Object>();
+
+    @Override
+    public void onSuccess(GetTestResult result) {
+      results.add(result);
+    }
+
+    @Override
+    public void onFailure(Throwable t) {
+      results.add(t);
+    }
+  }
+
+  @Test
+  public void aThrowingCallbackDoesNotStopTheOthers() {
+    final StubCallback c = new StubCallback();
+    final AsyncCallback<GetTestResult> throwing = new AsyncCallback<GetTestResult>() {
+      public void onSuccess(GetTestResult result) {
+        throw new IllegalStateException("handler bug");
+      }
+
+      public void onFailure(Throwable caught) {
+        throw new IllegalStateException("handler bug");
+      }
+    };
+    scheduler.runWithDeferred(new Runnable() {
+      public void run() {
+        async.execute(new GetTestAction("a"), a);
+        async.execute(new GetTestAction("b"), throwing);
+        async.execute(new GetTestAction("c"), c);
+      }
+    });
+    final BatchResult result = new BatchResult(3);
+    result.addResult(new GetTestResult());
+    result.addResult(new GetTestResult());
+    result.addResult(new GetTestResult());
+    try {
+      stub.getCallback(BatchAction.class).onSuccess(result);
+      fail();
+    } catch (UmbrellaException ue) {
+      assertThat(ue.getCauses().size(), is(1));
+      assertThat(ue.getCause().getMessage(), is("handler bug"));
+    }
+    assertThat(a.results.size(), is(1));
+    assertThat(c.results.size(), is(1));
+  }
+
+  @Test
+  public void aThrowingCallbackDoesNotStopTheOthersFailing() {
+    final AsyncCallback<GetTestResult> throwing = new AsyncCallback<GetTestResult>() {
+      public void onSuccess(GetTestResult result) {
+      }
+
+      public void onFailure(Throwable caught) {
+        throw new IllegalStateException("handler bug");
+      }
+    };
+    scheduler.runWithDeferred(new Runnable() {
+      public void run() {
+        async.execute(new GetTestAction("a"), throwing);
+        async.execute(new GetTestAction("b"), b);
+      }
+    });
+    try {
+      stub.getCallback(BatchAction.class).onFailure(new RuntimeException("network"));
+      fail();
+    } catch (UmbrellaException ue) {
+      assertThat(ue.getCauses().size(), is(1));
+    }
+    assertThat(b.results.size(), is(1));
+  }
+
+}
@@ -0,0 +1,180 @@
+package org.tessell.dispatch.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.tessell.dispatch.client.util.CachingDispatchAsync;
+
+import com.google.gwt.event.shared.UmbrellaException;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+public class CachingDispatchAsyncTest {
+
+  private final StubDispatchAsync stub = new StubDispatchAsync();
+  private long now = 0;
+  private final CachingDispatchAsync async = new CachingDispatchAsync(stub) {
+    protected long now() {
+      return now;
+    }
+  };
+  private final StubCallback a = new StubCallback();
+  private final StubCallback b = new StubCallback();
+  private final AsyncCallback<GetTestResult> throwing = new AsyncCallback<GetTestResult>() {
+    public void onSuccess(GetTestResult result) {
+      throw new IllegalStateException("handler bug");
+    }
+
+    public void onFailure(Throwable caught) {
+      throw new IllegalStateException("handler bug");
+    }
+  };
+
+  public CachingDispatchAsyncTest() {
+    async.cache(GetTestAction.class, 2, 1000);
+  }
+
+  @Test
+  public void equalActionsInFlightAreMerged() {
+    async.execute(new GetTestAction("a"), a);
+    async.execute(new GetTestAction("a"), b);
+    assertThat(stub.getCalls().size(), is(1));
+
+    final GetTestResult result = new GetTestResult();
+    stub.getCallback(GetTestAction.class).onSuccess(result);
+    assertThat(a.results.get(0), is((Object) result));
+    assertThat(b.results.get(0), is((Object) result));
+    assertThat(async.getMisses(), is(1));
+    assertThat(async.getDeduped(), is(1));
+  }
+
+  @Test
+  public void resultsAreCachedUntilTheyExpire() {
+    async.execute(new GetTestAction("a"), a);
+    stub.getCallback(GetTestAction.class).onSuccess(new GetTestResult());
+
+    now = 999;
+    async.execute(new GetTestAction("a"), b);
+    assertThat(stub.getCalls().size(), is(1));
+    assertThat(b.results.size(), is(1));
+    assertThat(async.getHits(), is(1));
+
+    now = 1000;
+    async.execute(new GetTestAction("a"), b);
+    assertThat(stub.getCalls().size(), is(2));
+    assertThat(async.getMisses(), is(2));
+  }
+
+  @Test
+  public void leastRecentlyUsedResultsAreEvicted() {
+    respond("a");
+    respond("b");
+    async.execute(new GetTestAction("a"), a); // now b is the eldest
+    respond("c");
+    assertThat(stub.getCalls().size(), is(3));
+
+    async.execute(new GetTestAction("a"), a);
+    assertThat(stub.getCalls().size(), is(3));
+    async.execute(new GetTestAction("b"), a);
+    assertThat(stub.getCalls().size(), is(4));
+  }
+
+  @Test
+  public void failuresAreNotCached() {
+    async.execute(new GetTestAction("a"), a);
+    async.execute(new GetTestAction("a"), b);
+    final RuntimeException e = new RuntimeException("failed");
+    stub.getCallback(GetTestAction.class).onFailure(e);
+    assertThat(a.results.get(0), is((Object) e));
+    assertThat(b.results.get(0), is((Object) e));
+
+    async.execute(new GetTestAction("a"), a);
+    assertThat(stub.getCalls().size(), is(2));
+  }
+
+  @Test
+  public void invalidateForgetsTheResult() {
+    respond("a");
+    async.invalidate(new GetTestAction("a"));
+    async.execute(new GetTestAction("a"), a);
+    assertThat(stub.getCalls().size(), is(2));
+  }
+
+  @Test
+  public void uncachedTypesGoStraightThrough() {
+    final CachingDispatchAsync uncached = new CachingDispatchAsync(stub);
+    uncached.execute(new GetTestAction("a"), a);
+    uncached.execute(new GetTestAction("a"), b);
+    assertThat(stub.getCalls().size(), is(2));
+    assertThat(uncached.getMisses(), is(0));
+  }
+
+  @Test
+  public void aStaleFailureDoesNotEvictANewerResult() {
+    async.execute(new GetTestAction("a"), a);
+    async.invalidate(new GetTestAction("a"));
+    async.execute(new GetTestAction("a"), b);
+    stub.getCallback(GetTestAction.class, 1).onSuccessOutOfOrder(new GetTestResult());
+    stub.getCallback(GetTestAction.class, 0).onFailureOutOfOrder(new RuntimeException("failed"));
+
+    async.execute(new GetTestAction("a"), b);
+    assertThat(stub.getCalls().size(), is(2));
+    assertThat(b.results.size(), is(2));
+    assertThat(async.getHits(), is(1));
+  }
+
+  @Test
+  public void aThrowingCallbackDoesNotStopTheOthers() {
+    async.execute(new GetTestAction("a"), a);
+    async.execute(new GetTestAction("a"), throwing);
+    async.execute(new GetTestAction("a"), b);
+    try {
+      stub.getCallback(GetTestAction.class).onSuccess(new GetTestResult());
+      fail();
+    } catch (UmbrellaException ue) {
+      assertThat(ue.getCauses().size(), is(1));
+      assertThat(ue.getCause().getMessage(), is("handler bug"));
+    }
+    assertThat(a.results.size(), is(1));
+    assertThat(b.results.size(), is(1));
+  }
+
+  @Test
+  public void aThrowingCallbackDoesNotStopTheOthersFailing() {
+    async.execute(new GetTestAction("a"), a);
+    async.execute(new GetTestAction("a"), throwing);
+    async.execute(new GetTestAction("a"), b);
+    try {
+      stub.getCallback(GetTestAction.class).onFailure(new RuntimeException("failed"));
+      fail();
+    } catch (UmbrellaException ue) {
+      assertThat(ue.getCauses().size(), is(1));
+    }
+    assertThat(a.results.size(), is(1));
+    assertThat(b.results.size(), is(1));
+  }
+
+  private void respond(String name) {
+    async.execute(new GetTestAction(name), a);
+    stub.getCallback(GetTestAction.class).onSuccess(new GetTestResult());
+  }
+
+  private static class StubCallback implements AsyncCallback<GetTestResult> {
+    private final List<Object> results = new ArrayList<Object>();
+
+    @Override
+    public void onSuccess(GetTestResult result) {
+      results.add(result);
+    }
+
+    @Override
+    public void onFailure(Throwable t) {
+      results.add(t);
+    }
+  }
+
+}
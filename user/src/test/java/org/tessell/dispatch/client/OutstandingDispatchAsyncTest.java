@@ -0,0 +1,101 @@
+package org.tessell.dispatch.client;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.tessell.bus.StubEventBus;
+import org.tessell.dispatch.client.events.DispatchActionEvent;
+import org.tessell.dispatch.client.events.DispatchFailureEvent;
+import org.tessell.dispatch.client.events.DispatchResultEvent;
+import org.tessell.dispatch.client.util.ActionSupersededException;
+import org.tessell.dispatch.client.util.DispatchPriority;
+import org.tessell.dispatch.client.util.StubOutstandingDispatchAsync;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+public class OutstandingDispatchAsyncTest {
+
+  private final StubEventBus bus = new StubEventBus();
+  private final StubOutstandingDispatchAsync async = new StubOutstandingDispatchAsync(bus, new StubDispatchAsync());
+  private final StubCallback callback = new StubCallback();
+
+  @Test
+  public void actionsOverTheLimitAreQueuedByPriority() {
+    async.setMaxConcurrent(1);
+    async.execute(new GetTestAction("first"), callback, null, DispatchPriority.NORMAL);
+    async.execute(new GetTestAction("prefetch"), callback, null, DispatchPriority.LOW);
+    async.execute(new GetTestAction("save"), callback, null, DispatchPriority.HIGH);
+    assertThat(async.getCalls().size(), is(1));
+    assertThat(async.getQueuedCount(), is(2));
+    // queued actions are still outstanding
+    assertThat(bus.getEvents(DispatchActionEvent.class).size(), is(3));
+    assertThat(async.getOutstanding().size(), is(3));
+
+    async.getCallback(GetTestAction.class, 0).onSuccess(new GetTestResult());
+    assertThat(async.getCalls().size(), is(2));
+    assertThat(async.getAction(GetTestAction.class, 1).getName(), is("save"));
+
+    async.getCallback(GetTestAction.class, 1).onSuccess(new GetTestResult());
+    assertThat(async.getAction(GetTestAction.class, 2).getName(), is("prefetch"));
+  }
+
+  @Test
+  public void raisingTheLimitSendsQueuedActions() {
+    async.setMaxConcurrent(1);
+    async.execute(new GetTestAction("a"), callback);
+    async.execute(new GetTestAction("b"), callback);
+    async.setMaxConcurrent(0);
+    assertThat(async.getCalls().size(), is(2));
+  }
+
+  @Test
+  public void supersededQueuedActionsAreNeverSent() {
+    async.setMaxConcurrent(1);
+    async.execute(new GetTestAction("blocker"), callback);
+    async.executeLatest(this, new GetTestAction("s"), callback, null, DispatchPriority.NORMAL);
+    async.executeLatest(this, new GetTestAction("se"), callback, null, DispatchPriority.NORMAL);
+    assertThat(async.getQueuedCount(), is(1));
+    final DispatchFailureEvent failure = bus.getEvent(DispatchFailureEvent.class, 0);
+    assertThat(failure.getThrowable(), is(instanceOf(ActionSupersededException.class)));
+    // the dropped action's callback is told
+    assertThat(callback.results.size(), is(1));
+    assertThat(callback.results.get(0) == failure.getThrowable(), is(true));
+
+    async.getCallback(GetTestAction.class, 0).onSuccess(new GetTestResult());
+    assertThat(async.getAction(GetTestAction.class, 1).getName(), is("se"));
+  }
+
+  @Test
+  public void supersededInFlightActionsSkipTheirCallback() {
+    async.executeLatest(this, new GetTestAction("s"), callback, null, DispatchPriority.NORMAL);
+    async.executeLatest(this, new GetTestAction("se"), callback, null, DispatchPriority.NORMAL);
+    async.getCallback(GetTestAction.class, 0).onSuccess(new GetTestResult());
+    assertThat(callback.results.size(), is(0));
+    // but outstanding counts still see it finish
+    assertThat(bus.getEvents(DispatchResultEvent.class).size(), is(1));
+
+    async.getCallback(GetTestAction.class, 1).onSuccess(new GetTestResult());
+    assertThat(callback.results.size(), is(1));
+    assertThat(async.getOutstanding().size(), is(0));
+  }
+
+  private static class StubCallback implements AsyncCallback<GetTestResult> {
+    private final List<Object> results = new ArrayList<Object>();
+
+    @Override
+    public void onSuccess(GetTestResult result) {
+      results.add(result);
+    }
+
+    @Override
+    public void onFailure(Throwable t) {
+      results.add(t);
+    }
+  }
+
+}
@@ -0,0 +1,109 @@
+package org.tessell.dispatch.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.tessell.model.properties.NewProperty.listProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.tessell.dispatch.client.util.PagedLoader;
+import org.tessell.dispatch.client.util.StubOutstandingDispatchAsync;
+import org.tessell.dispatch.server.ExecutionContext;
+import org.tessell.dispatch.server.handlers.PagedActionHandler;
+import org.tessell.dispatch.shared.PagedAction;
+import org.tessell.dispatch.shared.PagedResult;
+import org.tessell.model.properties.ListProperty;
+
+public class PagedLoaderTest {
+
+  private final StubOutstandingDispatchAsync async = new StubOutstandingDispatchAsync();
+  private final ListProperty<String> list = listProperty("list");
+  private final TestPagedAction action = new TestPagedAction();
+  private final PagedLoader<TestPagedAction, TestPage, String> loader = new PagedLoader<TestPagedAction, TestPage, String>(async, action, list);
+  private final TestHandler handler = new TestHandler();
+
+  @Test
+  public void pagesAreAppendedAsTheyArrive() {
+    action.setPageSize(2);
+    loader.start();
+    respond();
+    assertThat(list.get(), is(Arrays.asList("a", "b")));
+    assertThat(loader.isLoading(), is(true));
+    respond();
+    assertThat(list.get(), is(Arrays.asList("a", "b", "c", "d")));
+    respond();
+    assertThat(list.get(), is(Arrays.asList("a", "b", "c", "d", "e")));
+    assertThat(loader.isLoading(), is(false));
+    assertThat(async.getCalls().size(), is(3));
+  }
+
+  @Test
+  public void cancelStopsLoading() {
+    action.setPageSize(2);
+    loader.start();
+    respond();
+    loader.cancel();
+    respond();
+    assertThat(list.get(), is(Arrays.asList("a", "b")));
+    assertThat(async.getCalls().size(), is(2));
+  }
+
+  @Test
+  public void failureStopsLoading() {
+    loader.start();
+    async.getCallback(TestPagedAction.class).onFailure(new RuntimeException("failed"));
+    assertThat(loader.isLoading(), is(false));
+  }
+
+  @Test
+  public void handlerOnlyLoadsOnePage() {
+    action.setPageSize(3);
+    TestPage page = handler.execute(action, null);
+    assertThat(page.getItems(), is(Arrays.asList("a", "b", "c")));
+    assertThat(page.hasMore(), is(true));
+    assertThat(handler.lastLimit, is(4));
+
+    action.setOffset(3);
+    page = handler.execute(action, null);
+    assertThat(page.getItems(), is(Arrays.asList("d", "e")));
+    assertThat(page.hasMore(), is(false));
+  }
+
+  /** Answers the latest call with the handler, like the server would. */
+  private void respond() {
+    final TestPagedAction sent = async.getAction(TestPagedAction.class);
+    final TestPage page = handler.execute(sent, null);
+    async.getCallback(TestPagedAction.class).onSuccess(page);
+  }
+
+  public static class TestPage extends PagedResult<String> {
+  }
+
+  public static class TestPagedAction extends PagedAction<TestPage> {
+  }
+
+  private static class TestHandler extends PagedActionHandler<TestPagedAction, TestPage, String> {
+    private static final List<String> all = Arrays.asList("a", "b", "c", "d", "e");
+    private int lastLimit;
+
+    @Override
+    public Class<TestPagedAction> getActionType() {
+      return TestPagedAction.class;
+    }
+
+    @Override
+    protected List<String> loadPage(TestPagedAction action, int offset, int limit, ExecutionContext context) {
+      lastLimit = limit;
+      return new ArrayList<String>(all.subList(Math.min(offset, all.size()), Math.min(offset + limit, all.size())));
+    }
+
+    @Override
+    protected TestPage newResult() {
+      return new TestPage();
+    }
+  }
+
+}
@@ -0,0 +1,181 @@
+package org.tessell.dispatch.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.tessell.dispatch.client.util.BackoffRetryPolicy;
+import org.tessell.dispatch.client.util.RetryingDispatchAsync;
+import org.tessell.dispatch.shared.ActionException;
+import org.tessell.dispatch.shared.IdempotentAction;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.google.gwt.user.client.rpc.InvocationException;
+import com.google.gwt.user.client.rpc.StatusCodeException;
+
+public class RetryingDispatchAsyncTest {
+
+  private final StubDispatchAsync stub = new StubDispatchAsync();
+  private final List<Integer> delays = new ArrayList<Integer>();
+  private final RetryingDispatchAsync async = new RetryingDispatchAsync(stub, new BackoffRetryPolicy(3, 100, 1000)) {
+    protected void schedule(Runnable retry, int delayMillis) {
+      delays.add(delayMillis);
+      retry.run();
+    }
+  };
+  private final StubCallback callback = new StubCallback();
+
+  @Test
+  public void transientFailuresAreRetriedWithTheSameKey() {
+    final SaveTestAction action = new SaveTestAction();
+    async.execute(action, callback);
+    final String key = action.getIdempotencyKey();
+    assertThat(key, is(not(nullValue())));
+
+    stub.getCallback(SaveTestAction.class, 0).onFailure(new StatusCodeException(503, ""));
+    assertThat(stub.getCalls().size(), is(2));
+    assertThat(action.getIdempotencyKey(), is(key));
+    assertThat(callback.results.size(), is(0));
+
+    final GetTestResult result = new GetTestResult();
+    stub.getCallback(SaveTestAction.class, 1).onSuccess(result);
+    assertThat(callback.results.get(0), is((Object) result));
+    assertThat(async.getRetries(), is(1));
+  }
+
+  @Test
+  public void givesUpAfterMaxAttempts() {
+    async.execute(new SaveTestAction(), callback);
+    final InvocationException e = new InvocationException("connection dropped");
+    stub.getCallback(SaveTestAction.class, 0).onFailure(e);
+    stub.getCallback(SaveTestAction.class, 1).onFailure(e);
+    stub.getCallback(SaveTestAction.class, 2).onFailure(e);
+    assertThat(stub.getCalls().size(), is(3));
+    assertThat(callback.results.get(0), is((Object) e));
+  }
+
+  @Test
+  public void actionExceptionsAreNotRetried() {
+    async.execute(new SaveTestAction(), callback);
+    final ActionException e = new ActionException("invalid");
+    stub.getCallback(SaveTestAction.class).onFailure(e);
+    assertThat(stub.getCalls().size(), is(1));
+    assertThat(callback.results.get(0), is((Object) e));
+  }
+
+  @Test
+  public void serverErrorsAreNotRetried() {
+    async.execute(new SaveTestAction(), callback);
+    stub.getCallback(SaveTestAction.class).onFailure(new StatusCodeException(500, ""));
+    assertThat(stub.getCalls().size(), is(1));
+  }
+
+  @Test
+  public void otherActionsAreOnlyRetriedIfTheyOptIn() {
+    async.execute(new GetTestAction("a"), new NoopCallback());
+    stub.getCallback(GetTestAction.class, 0).onFailure(new StatusCodeException(0, ""));
+    assertThat(stub.getCalls().size(), is(1));
+
+    async.setPolicy(GetTestAction.class, new BackoffRetryPolicy());
+    async.execute(new GetTestAction("a"), new NoopCallback());
+    stub.getCallback(GetTestAction.class, 1).onFailure(new StatusCodeException(0, ""));
+    assertThat(stub.getCalls().size(), is(3));
+  }
+
+  @Test
+  public void keysAreUnique() {
+    final SaveTestAction a = new SaveTestAction();
+    final SaveTestAction b = new SaveTestAction();
+    async.execute(a, callback);
+    async.execute(b, callback);
+    assertThat(a.getIdempotencyKey().equals(b.getIdempotencyKey()), is(false));
+  }
+
+  @Test
+  public void executingTheSameInstanceAgainGetsANewKey() {
+    final SaveTestAction action = new SaveTestAction();
+    async.execute(action, callback);
+    final String first = action.getIdempotencyKey();
+    stub.getCallback(SaveTestAction.class, 0).onSuccess(new GetTestResult());
+
+    async.execute(action, callback);
+    final String second = action.getIdempotencyKey();
+    assertThat(second, is(not(nullValue())));
+    assertThat(second.equals(first), is(false));
+    assertThat(stub.getCalls().size(), is(2));
+  }
+
+  @Test
+  public void retriesKeepTheirKeyIfTheInstanceIsExecutedAgain() {
+    final List<Runnable> pending = new ArrayList<Runnable>();
+    final RetryingDispatchAsync delayed = new RetryingDispatchAsync(stub, new BackoffRetryPolicy(3, 100, 1000)) {
+      protected void schedule(Runnable retry, int delayMillis) {
+        pending.add(retry);
+      }
+    };
+    final SaveTestAction action = new SaveTestAction();
+    delayed.execute(action, callback);
+    final String first = action.getIdempotencyKey();
+    stub.getCallback(SaveTestAction.class, 0).onFailure(new StatusCodeException(503, ""));
+
+    // executed again while the first is waiting to retry
+    delayed.execute(action, callback);
+    assertThat(action.getIdempotencyKey().equals(first), is(false));
+
+    pending.get(0).run();
+    assertThat(stub.getCalls().size(), is(3));
+    assertThat(action.getIdempotencyKey(), is(first));
+  }
+
+  @Test
+  public void delaysBackOffExponentiallyWithJitter() {
+    final BackoffRetryPolicy policy = new BackoffRetryPolicy(10, 100, 1000) {
+      protected double nextRandom() {
+        return 0.5;
+      }
+    };
+    assertThat(policy.getDelayMillis(1), is(75));
+    assertThat(policy.getDelayMillis(2), is(150));
+    assertThat(policy.getDelayMillis(3), is(300));
+    assertThat(policy.getDelayMillis(5), is(750));
+    assertThat(policy.getDelayMillis(40), is(750));
+
+    async.execute(new SaveTestAction(), callback);
+    stub.getCallback(SaveTestAction.class, 0).onFailure(new StatusCodeException(0, ""));
+    assertThat(delays.size(), is(1));
+    assertThat(delays.get(0) >= 50 && delays.get(0) <= 100, is(true));
+  }
+
+  public static class SaveTestAction extends IdempotentAction<GetTestResult> {
+  }
+
+  private static class StubCallback implements AsyncCallback<GetTestResult> {
+    private final List<Object> results = new ArrayList<Object>();
+
+    @Override
+    public void onSuccess(GetTestResult result) {
+      results.add(result);
+    }
+
+    @Override
+    public void onFailure(Throwable t) {
+      results.add(t);
+    }
+  }
+
+  private static class NoopCallback implements AsyncCallback<GetTestResult> {
+    @Override
+    public void onSuccess(GetTestResult result) {
+    }
+
+    @Override
+    public void onFailure(Throwable t) {
+    }
+  }
+
+}
@@ -0,0 +1,127 @@
+package org.tessell.dispatch.server;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.tessell.dispatch.client.GetTestResult;
+import org.tessell.dispatch.client.RetryingDispatchAsyncTest.SaveTestAction;
+import org.tessell.dispatch.server.handlers.ActionHandler;
+import org.tessell.dispatch.shared.ActionException;
+
+public class DedupeWindowTest {
+
+  private long now = 0;
+  private final DedupeWindow window = new DedupeWindow(2, 1000) {
+    protected long now() {
+      return now;
+    }
+  };
+  private final DefaultActionDispatch dispatch = new DefaultActionDispatch();
+  private final ExecutionContext context = new ExecutionContext(null, null, "s1");
+  private RuntimeException failWith;
+  private int executed = 0;
+
+  public DedupeWindowTest() {
+    dispatch.setDedupeWindow(window);
+    dispatch.addHandler(new ActionHandler<SaveTestAction, GetTestResult>() {
+      public Class<SaveTestAction> getActionType() {
+        return SaveTestAction.class;
+      }
+
+      public GetTestResult execute(SaveTestAction action, ExecutionContext context) {
+        executed++;
+        if (failWith != null) {
+          throw failWith;
+        }
+        return new GetTestResult();
+      }
+
+      public boolean skipCSRFCheck() {
+        return false;
+      }
+    });
+  }
+
+  @Test
+  public void retriesReturnTheOriginalResult() {
+    final GetTestResult first = dispatch.execute(save("k1"), context);
+    assertThat(dispatch.execute(save("k1"), context) == first, is(true));
+    assertThat(executed, is(1));
+    assertThat(window.getDuplicates(), is(1L));
+
+    dispatch.execute(save("k2"), context);
+    assertThat(executed, is(2));
+  }
+
+  @Test
+  public void keysAreScopedToTheSession() {
+    dispatch.execute(save("k1"), context);
+    dispatch.execute(save("k1"), new ExecutionContext(null, null, "s2"));
+    assertThat(executed, is(2));
+  }
+
+  @Test
+  public void actionsWithoutKeysAreAlwaysExecuted() {
+    dispatch.execute(new SaveTestAction(), context);
+    dispatch.execute(new SaveTestAction(), context);
+    assertThat(executed, is(2));
+    assertThat(window.size(), is(0));
+  }
+
+  @Test
+  public void actionExceptionsAreRemembered() {
+    failWith = new ActionException("invalid");
+    executeAndFail(save("k1"));
+    failWith = null;
+    executeAndFail(save("k1"));
+    assertThat(executed, is(1));
+  }
+
+  @Test
+  public void otherExceptionsAreNotRemembered() {
+    failWith = new IllegalStateException("db down");
+    executeAndFail(save("k1"));
+    failWith = null;
+    dispatch.execute(save("k1"), context);
+    assertThat(executed, is(2));
+  }
+
+  @Test
+  public void outcomesAreForgottenAfterTheWindow() {
+    dispatch.execute(save("k1"), context);
+    now = 999;
+    dispatch.execute(save("k1"), context);
+    assertThat(executed, is(1));
+    now = 1000;
+    dispatch.execute(save("k1"), context);
+    assertThat(executed, is(2));
+  }
+
+  @Test
+  public void oldestOutcomesAreEvicted() {
+    dispatch.execute(save("k1"), context);
+    dispatch.execute(save("k2"), context);
+    dispatch.execute(save("k3"), context);
+    assertThat(window.size(), is(2));
+    dispatch.execute(save("k1"), context);
+    assertThat(executed, is(4));
+  }
+
+  private void executeAndFail(SaveTestAction action) {
+    try {
+      dispatch.execute(action, context);
+      fail();
+    } catch (RuntimeException e) {
+      // expected
+    }
+  }
+
+  private static SaveTestAction save(String key) {
+    final SaveTestAction action = new SaveTestAction();
+    action.setIdempotencyKey(key);
+    return action;
+  }
+
+}
@@ -0,0 +1,251 @@
+package org.tessell.dispatch.server;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.tessell.dispatch.client.GetTestAction;
+import org.tessell.dispatch.client.GetTestResult;
+import org.tessell.dispatch.server.ActionDispatch.Route;
+import org.tessell.dispatch.server.handlers.ActionHandler;
+import org.tessell.dispatch.server.metrics.ActionMetrics;
+import org.tessell.dispatch.shared.Action;
+import org.tessell.dispatch.shared.ActionException;
+import org.tessell.dispatch.shared.BatchAction;
+import org.tessell.dispatch.shared.BatchResult;
+import org.tessell.dispatch.shared.Result;
+
+public class DefaultActionDispatchTest {
+
+  private final DefaultActionDispatch dispatch = new DefaultActionDispatch();
+  private final ExecutionContext context = new ExecutionContext(null, null, null);
+  private boolean skipCSRF = false;
+  private int skipCSRFCalls = 0;
+  // actions named "wait" block until 2 of them are running at once
+  private final CountDownLatch running = new CountDownLatch(2);
+
+  private final ActionHandler<GetTestAction, GetTestResult> handler = new ActionHandler<GetTestAction, GetTestResult>() {
+    public Class<GetTestAction> getActionType() {
+      return GetTestAction.class;
+    }
+
+    public GetTestResult execute(GetTestAction action, ExecutionContext context) {
+      if (action.getName().equals("bad")) {
+        throw new ActionException("bad name");
+      }
+      if (action.getName().equals("wait")) {
+        running.countDown();
+        try {
+          if (!running.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Actions did not run concurrently");
+          }
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return new GetTestResult();
+    }
+
+    public boolean skipCSRFCheck() {
+      skipCSRFCalls++;
+      return skipCSRF;
+    }
+  };
+
+  public DefaultActionDispatchTest() {
+    dispatch.addHandler(handler);
+  }
+
+  @Test
+  public void batchExecutesEachAction() {
+    final BatchResult result = dispatch.execute(batch("a", "bad", "c"), context);
+    assertThat(result.size(), is(3));
+    assertThat(result.getResult(0), is((Object) new GetTestResult()));
+    assertThat(result.getFailure(0), is(nullValue()));
+    assertThat(result.getResult(1), is(nullValue()));
+    assertThat(result.getFailure(1).getMessage(), is("bad name"));
+    assertThat(result.getResult(2), is((Object) new GetTestResult()));
+  }
+
+  @Test
+  public void batchExecutesActionsInParallel() {
+    final ExecutorService executor = Executors.newFixedThreadPool(1);
+    try {
+      dispatch.setBatchExecutor(executor);
+      final BatchResult result = dispatch.execute(batch("wait", "bad", "wait"), context);
+      assertThat(result.size(), is(3));
+      assertThat(result.getResult(0), is((Object) new GetTestResult()));
+      assertThat(result.getFailure(1).getMessage(), is("bad name"));
+      assertThat(result.getResult(2), is((Object) new GetTestResult()));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void batchRecordsEachActionInTheMetrics() {
+    final ActionMetrics metrics = new ActionMetrics();
+    dispatch.execute(batch("a", "bad", "c"), new ExecutionContext(null, null, null, metrics));
+    assertThat(metrics.getStats(GetTestAction.class).getCalls(), is(3L));
+    assertThat(metrics.getStats(GetTestAction.class).getFailures(), is(1L));
+    assertThat(metrics.getStats(BatchAction.class).getCalls(), is(1L));
+    assertThat(metrics.getStats(BatchAction.class).getFailures(), is(0L));
+  }
+
+  @Test
+  public void batchSkipsCSRFOnlyIfEveryActionDoes() {
+    assertThat(dispatch.skipCSRFCheck(batch("a", "b")), is(false));
+    skipCSRF = true;
+    dispatch.addHandler(handler);
+    assertThat(dispatch.skipCSRFCheck(batch("a", "b")), is(true));
+  }
+
+  @Test
+  public void csrfFlagIsReadOnceWhenTheHandlerIsAdded() {
+    final SessionValidatorDispatch validated = validated(dispatch);
+    final ExecutionContext withToken = new ExecutionContext(null, null, "token");
+    validated.execute(new GetTestAction("a"), withToken);
+    validated.execute(new GetTestAction("b"), withToken);
+    assertThat(skipCSRFCalls, is(1));
+    try {
+      validated.execute(new GetTestAction("c"), context);
+      fail();
+    } catch (IllegalStateException ise) {
+      assertThat(ise.getMessage(), is("Invalid session"));
+    }
+  }
+
+  @Test
+  public void validatedActionsStillGoThroughSubclassesExecute() {
+    final int[] executes = { 0 };
+    final int[] lookups = { 0 };
+    final DefaultActionDispatch audited = new DefaultActionDispatch() {
+      @Override
+      public <A extends Action<R>, R extends Result> R execute(Route route, A action, ExecutionContext context) {
+        executes[0]++;
+        return super.execute(route, action, context);
+      }
+
+      @Override
+      public Route route(Action<?> action) {
+        lookups[0]++;
+        return super.route(action);
+      }
+    };
+    audited.addHandler(handler);
+    validated(audited).execute(new GetTestAction("a"), new ExecutionContext(null, null, "token"));
+    assertThat(executes[0], is(1));
+    assertThat(lookups[0], is(1));
+  }
+
+  @Test
+  public void routeIsUsedForAddedHandlersToo() {
+    final GetTestResult other = new GetTestResult();
+    final DefaultActionDispatch overridden = new DefaultActionDispatch() {
+      @Override
+      public Route route(Action<?> action) {
+        return new Route(new ActionHandler<GetTestAction, GetTestResult>() {
+          public Class<GetTestAction> getActionType() {
+            return GetTestAction.class;
+          }
+
+          public GetTestResult execute(GetTestAction action, ExecutionContext context) {
+            return other;
+          }
+
+          public boolean skipCSRFCheck() {
+            return false;
+          }
+        }, false);
+      }
+    };
+    overridden.addHandler(handler);
+    assertThat(overridden.execute(new GetTestAction("a"), context) == other, is(true));
+  }
+
+  @Test
+  public void validatorOnlyNeedsTheActionDispatchInterface() {
+    final List<String> calls = new ArrayList<String>();
+    final ActionDispatch wrapper = new ActionDispatch() {
+      public <A extends Action<R>, R extends Result> R execute(A action, ExecutionContext context) {
+        return execute(route(action), action, context);
+      }
+
+      public <A extends Action<R>, R extends Result> R execute(Route route, A action, ExecutionContext context) {
+        calls.add("execute");
+        return dispatch.execute(route, action, context);
+      }
+
+      public Route route(Action<?> action) {
+        calls.add("route");
+        return dispatch.route(action);
+      }
+
+      public boolean skipCSRFCheck(Action<?> action) {
+        return route(action).skipCSRFCheck();
+      }
+    };
+    validated(wrapper).execute(new GetTestAction("a"), new ExecutionContext(null, null, "token"));
+    assertThat(calls.toString(), is("[route, execute]"));
+    try {
+      validated(wrapper).execute(new GetTestAction("b"), context);
+      fail();
+    } catch (IllegalStateException ise) {
+      assertThat(ise.getMessage(), is("Invalid session"));
+    }
+  }
+
+  @Test
+  public void handlersCanBeAddedWhileDispatching() throws Exception {
+    final Thread[] threads = new Thread[4];
+    final Throwable[] failure = { null };
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        public void run() {
+          try {
+            for (int j = 0; j < 1000; j++) {
+              dispatch.addHandler(handler);
+              dispatch.execute(new GetTestAction("a"), context);
+            }
+          } catch (Throwable t) {
+            failure[0] = t;
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(failure[0], is(nullValue()));
+  }
+
+  private static SessionValidatorDispatch validated(final ActionDispatch delegate) {
+    return new SessionValidatorDispatch(new SessionIdValidator() {
+      public String getToken(ExecutionContext context) {
+        return "token";
+      }
+
+      public void setTokenIfNeeded(ExecutionContext context) {
+      }
+    }, delegate);
+  }
+
+  private static BatchAction batch(String... names) {
+    final List<Action<?>> actions = new ArrayList<Action<?>>();
+    for (String name : names) {
+      actions.add(new GetTestAction(name));
+    }
+    return new BatchAction(actions);
+  }
+
+}
@@ -0,0 +1,112 @@
+package org.tessell.dispatch.server;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+import org.tessell.dispatch.client.GetTestAction;
+import org.tessell.dispatch.client.GetTestResult;
+import org.tessell.dispatch.server.handlers.CacheableActionHandler;
+import org.tessell.dispatch.shared.ActionException;
+
+public class ResultCacheTest {
+
+  private long now = 0;
+  private final ResultCache cache = new ResultCache(2) {
+    protected long now() {
+      return now;
+    }
+  };
+  private final DefaultActionDispatch dispatch = new DefaultActionDispatch();
+  private final ExecutionContext context = new ExecutionContext(null, null, null);
+  private String tenant = "t1";
+  private int executed = 0;
+
+  public ResultCacheTest() {
+    dispatch.setResultCache(cache);
+    dispatch.addHandler(new CacheableActionHandler<GetTestAction, GetTestResult>() {
+      public Class<GetTestAction> getActionType() {
+        return GetTestAction.class;
+      }
+
+      public GetTestResult execute(GetTestAction action, ExecutionContext context) {
+        executed++;
+        if (action.getName().equals("bad")) {
+          throw new ActionException("bad name");
+        }
+        return new GetTestResult();
+      }
+
+      public boolean skipCSRFCheck() {
+        return false;
+      }
+
+      public long getCacheTtlMillis() {
+        return 100;
+      }
+
+      public String getCacheScope(GetTestAction action, ExecutionContext context) {
+        return tenant;
+      }
+    });
+  }
+
+  @Test
+  public void resultsAreReusedUntilTheyExpire() {
+    final GetTestResult first = dispatch.execute(new GetTestAction("a"), context);
+    now = 99;
+    assertThat(dispatch.execute(new GetTestAction("a"), context) == first, is(true));
+    assertThat(executed, is(1));
+    now = 100;
+    dispatch.execute(new GetTestAction("a"), context);
+    assertThat(executed, is(2));
+    assertThat(cache.getHits(), is(1L));
+    assertThat(cache.getMisses(), is(2L));
+  }
+
+  @Test
+  public void resultsAreNotSharedAcrossScopes() {
+    dispatch.execute(new GetTestAction("a"), context);
+    tenant = "t2";
+    dispatch.execute(new GetTestAction("a"), context);
+    assertThat(executed, is(2));
+
+    cache.invalidateScope("t1");
+    assertThat(cache.size(), is(1));
+  }
+
+  @Test
+  public void failuresAreNotCached() {
+    for (int i = 0; i < 2; i++) {
+      try {
+        dispatch.execute(new GetTestAction("bad"), context);
+      } catch (ActionException ae) {
+        assertThat(ae.getMessage(), is("bad name"));
+      }
+    }
+    assertThat(executed, is(2));
+    assertThat(cache.size(), is(0));
+  }
+
+  @Test
+  public void leastRecentlyUsedResultsAreEvicted() {
+    dispatch.execute(new GetTestAction("a"), context);
+    dispatch.execute(new GetTestAction("b"), context);
+    dispatch.execute(new GetTestAction("a"), context);
+    dispatch.execute(new GetTestAction("c"), context);
+    assertThat(cache.get("t1", new GetTestAction("b")), is(nullValue()));
+    assertThat(cache.get("t1", new GetTestAction("a")) != null, is(true));
+  }
+
+  @Test
+  public void invalidateForgetsResults() {
+    dispatch.execute(new GetTestAction("a"), context);
+    cache.invalidate(new GetTestAction("a"));
+    dispatch.execute(new GetTestAction("a"), context);
+    cache.invalidateAll(GetTestAction.class);
+    dispatch.execute(new GetTestAction("a"), context);
+    assertThat(executed, is(3));
+  }
+
+}
@@ -0,0 +1,53 @@
+package org.tessell.dispatch.server.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.tessell.dispatch.client.GetTestAction;
+
+public class ActionMetricsTest {
+
+  private final ActionMetrics metrics = new ActionMetrics();
+
+  @Test
+  public void countsCallsFailuresAndInFlight() {
+    final GetTestAction action = new GetTestAction("a");
+    final long start = metrics.begin(action);
+    assertThat(metrics.getStats(GetTestAction.class).getInFlight(), is(1L));
+    metrics.end(action, start, false);
+    metrics.end(action, metrics.begin(action), true);
+
+    final ActionStats stats = metrics.getStats(GetTestAction.class);
+    assertThat(stats.getInFlight(), is(0L));
+    assertThat(stats.getCalls(), is(2L));
+    assertThat(stats.getFailures(), is(1L));
+    assertThat(stats.getLatencies().getCount(), is(2L));
+  }
+
+  @Test
+  public void reportsSnapshotsAsJson() {
+    final GetTestAction action = new GetTestAction("a");
+    metrics.end(action, metrics.begin(action), false);
+    final String json = metrics.toJson();
+    assertThat(json.startsWith("[{\"name\":\"org.tessell.dispatch.client.GetTestAction\",\"calls\":1,\"failures\":0,\"inFlight\":0,"), is(true));
+    assertThat(json.endsWith("}]"), is(true));
+  }
+
+  @Test
+  public void reporterGetsASnapshot() {
+    final GetTestAction action = new GetTestAction("a");
+    metrics.end(action, metrics.begin(action), false);
+    final int[] reported = { 0 };
+    metrics.report(new MetricsReporter() {
+      public void report(List<ActionSnapshot> snapshots) {
+        reported[0] = snapshots.size();
+        assertThat(snapshots.get(0).getCalls(), is(1L));
+      }
+    });
+    assertThat(reported[0], is(1));
+  }
+
+}
@@ -0,0 +1,51 @@
+package org.tessell.dispatch.server.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  private final LatencyHistogram h = new LatencyHistogram();
+
+  @Test
+  public void emptyIsZero() {
+    assertThat(h.getCount(), is(0L));
+    assertThat(h.getMean(), is(0L));
+    assertThat(h.getPercentile(99), is(0L));
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    for (int i = 1; i <= 10; i++) {
+      h.record(i);
+    }
+    assertThat(h.getPercentile(50), is(5L));
+    assertThat(h.getPercentile(90), is(9L));
+    assertThat(h.getPercentile(100), is(10L));
+    assertThat(h.getMax(), is(10L));
+    assertThat(h.getMean(), is(5L));
+  }
+
+  @Test
+  public void largeValuesAreWithinTheBucketPrecision() {
+    for (int i = 0; i < 99; i++) {
+      h.record(1000);
+    }
+    h.record(250000);
+    long p50 = h.getPercentile(50);
+    assertThat(p50 >= 1000 && p50 < 1000 * 1.07, is(true));
+    assertThat(h.getPercentile(100), is(250000L));
+  }
+
+  @Test
+  public void bucketsRoundTrip() {
+    for (long v : new long[] { 0, 1, 15, 16, 17, 40, 1000, 123456789L }) {
+      int i = LatencyHistogram.indexOf(v);
+      assertThat(LatencyHistogram.lowerBound(i) <= v, is(true));
+      assertThat(LatencyHistogram.lowerBound(i + 1) > v, is(true));
+    }
+  }
+
+}
@@ -6,6 +6,9 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import org.junit.Test;
+import org.tessell.bus.StubEventBus;
+import org.tessell.dispatch.client.StubDispatchAsync;
+import org.tessell.dispatch.client.events.DispatchUnhandledFailureEvent;
 import org.tessell.dispatch.client.util.OutstandingDispatchAsync;
 import org.tessell.dispatch.client.util.StubOutstandingDispatchAsync;
 import org.tessell.dispatch.shared.Action;
@@ -113,6 +116,44 @@ public class DispatchUiCommandTest extends AbstractRuleTest {
     assertThat(command.wasActiveInOnResult, is(false));
   }
 
+  @Test
+  public void cancelSupersededSkipsStaleResults() {
+    DummyUiCommand command = new DummyUiCommand(async);
+    command.setCancelSuperseded(true);
+    command.execute();
+    command.execute();
+
+    // the 1st response is ignored
+    async.getCalls().get(0).onSuccess(null);
+    assertThat(command.onResultCalls, is(0));
+    assertThat(command.active().get(), is(true));
+
+    async.getCalls().get(1).onSuccess(null);
+    assertThat(command.onResultCalls, is(1));
+    assertThat(command.active().get(), is(false));
+  }
+
+  @Test
+  public void cancelSupersededIgnoresDroppedQueuedActions() {
+    final StubEventBus bus = new StubEventBus();
+    final StubOutstandingDispatchAsync queuing = new StubOutstandingDispatchAsync(bus, new StubDispatchAsync());
+    queuing.setMaxConcurrent(1);
+    DummyUiCommand command = new DummyUiCommand(queuing);
+    command.setCancelSuperseded(true);
+    command.execute();
+    command.execute();
+    command.execute();
+    // the 2nd was dropped from the queue, but isn't reported as a failure
+    assertThat(bus.getEvents(DispatchUnhandledFailureEvent.class).size(), is(0));
+    assertThat(command.active().get(), is(TRUE));
+
+    queuing.getCalls().get(0).onSuccess(null);
+    queuing.getCalls().get(1).onSuccess(null);
+    assertThat(queuing.getCalls().size(), is(2));
+    assertThat(command.onResultCalls, is(1));
+    assertThat(command.active().get(), is(FALSE));
+  }
+
   /** Fails depending on the instance variable {@code fail}. */
   private final class DummyUiCommand extends DispatchUiCommand<Action<Result>, Result> {
     private int createActionCalls = 0;
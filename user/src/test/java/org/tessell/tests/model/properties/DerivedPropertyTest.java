@@ -6,6 +6,7 @@ import static org.tessell.model.properties.NewProperty.stringProperty;
 
 import org.junit.Test;
 import org.tessell.model.properties.DerivedProperty;
+import org.tessell.model.properties.Properties;
 import org.tessell.model.properties.StringProperty;
 
 public class DerivedPropertyTest {
@@ -37,4 +38,59 @@ public class DerivedPropertyTest {
     assertThat(c.changes, is(1));
     assertThat(d.get(), is("cb"));
   }
+
+  @Test
+  public void testMemoizedOnlyComputesWhenUpstreamChanges() {
+    final int[] computed = { 0 };
+    DerivedProperty<String> d = new DerivedProperty<String>(true) {
+      protected String getDerivedValue() {
+        computed[0]++;
+        return s1.get() + s2.get();
+      }
+    };
+    int initial = computed[0];
+    assertThat(d.get(), is("ab"));
+    assertThat(d.get(), is("ab"));
+    assertThat(computed[0], is(initial));
+
+    s1.set("c");
+    int afterSet = computed[0];
+    assertThat(d.get(), is("cb"));
+    assertThat(d.get(), is("cb"));
+    assertThat(computed[0], is(afterSet));
+  }
+
+  @Test
+  public void testMemoizedTracksChangingUpstream() {
+    DerivedProperty<String> d = new DerivedProperty<String>(true) {
+      protected String getDerivedValue() {
+        return "a".equals(s1.get()) ? s2.get() : s1.get();
+      }
+    };
+    assertThat(d.get(), is("b"));
+    s1.set("c");
+    assertThat(d.get(), is("c"));
+    s2.set("d");
+    assertThat(d.get(), is("c"));
+    s1.set("a");
+    assertThat(d.get(), is("d"));
+  }
+
+  @Test
+  public void testMemoizedIsCurrentWithinABatch() {
+    final DerivedProperty<String> d = new DerivedProperty<String>(true) {
+      protected String getDerivedValue() {
+        return s1.get() + s2.get();
+      }
+    };
+    CountChanges c = CountChanges.on(d);
+    Properties.batch(new Runnable() {
+      public void run() {
+        s1.set("c");
+        assertThat(d.get(), is("cb"));
+      }
+    });
+    assertThat(c.changes, is(1));
+    assertThat(d.get(), is("cb"));
+  }
 }
@@ -6,7 +6,10 @@ import static org.junit.Assert.assertThat;
 import static org.tessell.model.properties.NewProperty.integerProperty;
 
 import org.junit.Test;
+import org.tessell.model.events.IntChangedEvent;
+import org.tessell.model.events.IntChangedHandler;
 import org.tessell.model.properties.IntegerProperty;
+import org.tessell.model.properties.Properties;
 import org.tessell.tests.model.validation.rules.AbstractRuleTest;
 
 public class IntegerPropertyTest extends AbstractRuleTest {
@@ -37,4 +40,101 @@ public class IntegerPropertyTest extends AbstractRuleTest {
     assertMessages("P must be an integer");
   }
 
+  @Test
+  public void setIntFiresBothChangeEvents() {
+    final IntegerProperty p = integerProperty("p", 1);
+    final int[] values = new int[2];
+    p.addIntChangedHandler(new IntChangedHandler() {
+      public void onIntChanged(IntChangedEvent event) {
+        values[0] = event.getOldValue();
+        values[1] = event.getNewValue();
+      }
+    });
+    CountChanges c = CountChanges.on(p);
+    p.setInt(2);
+    assertThat(p.getInt(), is(2));
+    assertThat(p.get(), is(2));
+    assertThat(p.isTouched(), is(true));
+    assertThat(c.changes, is(1));
+    assertThat(values[0], is(1));
+    assertThat(values[1], is(2));
+  }
+
+  @Test
+  public void setIntOnceTouchedOnlyFiresWhenChanged() {
+    final IntegerProperty p = integerProperty("p", 1);
+    p.setTouched(true);
+    final int[] fired = new int[3];
+    p.addIntChangedHandler(new IntChangedHandler() {
+      public void onIntChanged(IntChangedEvent event) {
+        fired[0]++;
+        fired[1] = event.getOldValue();
+        fired[2] = event.getNewValue();
+      }
+    });
+    p.setInt(1);
+    assertThat(fired[0], is(0));
+    p.setInt(1000);
+    p.setInt(1000);
+    assertThat(fired[0], is(1));
+    p.setInt(2000);
+    assertThat(fired[0], is(2));
+    assertThat(fired[1], is(1000));
+    assertThat(fired[2], is(2000));
+  }
+
+  @Test
+  public void setIntAndSetSeeEachOthersChanges() {
+    final IntegerProperty p = integerProperty("p", 1);
+    p.setTouched(true);
+    CountChanges c = CountChanges.on(p);
+    p.setInt(1000);
+    p.set(1000);
+    assertThat(c.changes, is(1));
+    p.set(null);
+    p.setInt(0);
+    assertThat(c.changes, is(3));
+    p.setInt(0);
+    p.reassess();
+    assertThat(c.changes, is(3));
+  }
+
+  @Test
+  public void setIntWithinABatchFiresOnce() {
+    final IntegerProperty p = integerProperty("p", 1);
+    p.setTouched(true);
+    CountChanges c = CountChanges.on(p);
+    Properties.batch(new Runnable() {
+      public void run() {
+        p.setInt(2);
+        p.setInt(3);
+      }
+    });
+    assertThat(c.changes, is(1));
+    assertThat(p.getInt(), is(3));
+  }
+
+  @Test
+  public void getIntTreatsNullAsZero() {
+    final IntegerProperty p = integerProperty("p");
+    assertThat(p.get(), is(nullValue()));
+    assertThat(p.getInt(), is(0));
+    p.setInt(0);
+    assertThat(p.get(), is(0));
+    p.set(null);
+    assertThat(p.get(), is(nullValue()));
+  }
+
+  @Test
+  public void getOnlyBoxesOncePerChange() {
+    final IntegerProperty p = integerProperty("p", 1000);
+    assertThat(p.get() == p.get(), is(true));
+    final Integer before = p.get();
+    p.setInt(1000);
+    assertThat(p.get() == before, is(true));
+    p.setInt(2000);
+    assertThat(p.get(), is(2000));
+    assertThat(p.get() == p.get(), is(true));
+  }
+
 }
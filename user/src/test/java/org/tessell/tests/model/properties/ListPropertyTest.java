@@ -96,6 +96,160 @@ public class ListPropertyTest {
     assertThat(p.toArrayList(), contains("bar", "foo"));
   }
 
+  @Test
+  public void appendingKeepsTheOldValueOfEachChange() {
+    final List<List<String>> oldValues = new ArrayList<List<String>>();
+    p.addListChangedHandler(new ListChangedHandler<String>() {
+      public void onListChanged(ListChangedEvent<String> event) {
+        oldValues.add(event.getOldValue());
+      }
+    });
+    p.add("a");
+    p.add("b");
+    p.addAll(list("c", "d"));
+    p.remove("d");
+    p.add(0, "e");
+    assertThat(oldValues.toString(), is("[[], [a], [a, b], [a, b, c, d], [a, b, c]]"));
+    assertThat(lastDiff.lastDiff.toString(), is("[e@0]; []; []"));
+    assertThat(p.get(), contains("e", "a", "b", "c"));
+  }
+
+  @Test
+  public void addingAfterAnOutOfBandChangeStillDiffs() {
+    p.add("a");
+    // the dto's list is changed directly, e.g. by a merge
+    pValue.set(list("b"));
+    p.add("c");
+    assertThat(lastDiff.lastDiff.toString(), is("[b@0, c@1]; []; [a@0]"));
+  }
+
+  @Test
+  public void addingAfterAnOutOfBandSetStillDiffs() {
+    p.add("a");
+    p.add("b");
+    // the list is changed in place, so it's the same instance and size
+    pValue.get().set(0, "x");
+    p.add("c");
+    assertThat(lastDiff.lastDiff.toString(), is("[x@0, c@2]; []; [a@0]"));
+    assertThat(adds.count, is(4));
+    assertThat(removes.count, is(1));
+  }
+
+  @Test
+  public void addingAfterAnOutOfBandSortStillDiffs() {
+    p.add("b");
+    p.add("a");
+    Collections.sort(pValue.get());
+    p.add("c");
+    assertThat(lastDiff.lastDiff.toString(), is("[c@2]; [a@0]; []"));
+  }
+
+  @Test
+  public void removingAfterAnOutOfBandSetStillDiffs() {
+    final List<String> list = new ArrayList<String>(list("a", "b"));
+    final ListProperty<String> b = listProperty("b", list);
+    final LastDiff<String> bDiff = new LastDiff<String>();
+    b.addListChangedHandler(bDiff);
+    b.add("c");
+    // the caller still has the list they passed in
+    list.set(1, "x");
+    b.remove("c");
+    assertThat(bDiff.lastDiff.toString(), is("[x@1]; []; [b@1, c@1]"));
+    assertThat(b.get(), contains("a", "x"));
+  }
+
+  @Test
+  public void batchFiresOneChangeForAllTheMutations() {
+    final CountingListChanges<String> listChanges = new CountingListChanges<String>();
+    p.add("a");
+    p.addListChangedHandler(listChanges);
+    p.beginBatch();
+    p.add("b");
+    p.add("c");
+    p.remove("a");
+    p.moveUp("c");
+    assertThat(listChanges.count, is(0));
+    p.commitBatch();
+    assertThat(listChanges.count, is(1));
+    assertThat(adds.count, is(3));
+    assertThat(removes.count, is(1));
+    assertThat(changes.count, is(2));
+    assertThat(p.get(), contains("c", "b"));
+  }
+
+  @Test
+  public void nestedBatchesFireOnTheOutermostCommit() {
+    p.beginBatch();
+    p.add("a");
+    p.beginBatch();
+    p.add("b");
+    p.commitBatch();
+    assertThat(changes.count, is(0));
+    p.commitBatch();
+    assertThat(changes.count, is(1));
+    assertThat(lastDiff.lastDiff.toString(), is("[a@0, b@1]; []; []"));
+  }
+
+  @Test
+  public void batchFiresOneChangeWhenSetIsMixedWithAdds() {
+    final CountingListChanges<String> listChanges = new CountingListChanges<String>();
+    p.add("a");
+    p.addListChangedHandler(listChanges);
+    p.beginBatch();
+    p.add("b");
+    p.set(list("c"));
+    p.add("d");
+    assertThat(listChanges.count, is(0));
+    assertThat(changes.count, is(1));
+    p.commitBatch();
+    assertThat(listChanges.count, is(1));
+    assertThat(changes.count, is(2));
+    assertThat(lastDiff.lastDiff.toString(), is("[c@0, d@1]; []; [a@0]"));
+    assertThat(p.get(), contains("c", "d"));
+  }
+
+  @Test
+  public void batchDefersSetTouchedUntilCommit() {
+    final ListProperty<String> b = listProperty("b", new ArrayList<String>());
+    final CountingChanges<List<String>> bChanges = new CountingChanges<List<String>>();
+    b.addPropertyChangedHandler(bChanges);
+    b.beginBatch();
+    b.set(list("a"));
+    b.setTouched(false);
+    assertThat(b.isTouched(), is(false));
+    b.setTouched(true);
+    assertThat(b.isTouched(), is(false));
+    assertThat(bChanges.count, is(0));
+    b.commitBatch();
+    assertThat(b.isTouched(), is(true));
+    assertThat(bChanges.count, is(1));
+  }
+
+  @Test
+  public void mutateFiresOneChange() {
+    p.mutate(new ListProperty.ListMutator<String>() {
+      public void mutate(List<String> list) {
+        for (int i = 0; i < 10; i++) {
+          list.add(Integer.toString(i));
+        }
+      }
+    });
+    assertThat(adds.count, is(10));
+    assertThat(changes.count, is(1));
+    assertThat(p.isTouched(), is(true));
+  }
+
+  @Test
+  public void batchAppliesThePersistentComparatorOnCommit() {
+    p.setComparator(naturalComparator);
+    p.beginBatch();
+    p.add("b");
+    p.add("a");
+    p.commitBatch();
+    assertThat(p.get(), contains("a", "b"));
+    assertThat(changes.count, is(1));
+  }
+
   @Test
   public void derivedPropertiesAreTouchedOnCreationIfNeeded() {
     p.setTouched(true);
@@ -1222,6 +1376,15 @@ public class ListPropertyTest {
     }
   }
 
+  public static class CountingListChanges<P> implements ListChangedHandler<P> {
+    public int count;
+
+    @Override
+    public void onListChanged(ListChangedEvent<P> event) {
+      count++;
+    }
+  }
+
   public static class LastDiff<P> implements ListChangedHandler<P> {
     public ListDiff<P> lastDiff;
 
@@ -0,0 +1,101 @@
+package org.tessell.tests.model.properties;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.tessell.model.properties.NewProperty.longProperty;
+
+import org.junit.Test;
+import org.tessell.model.events.LongChangedEvent;
+import org.tessell.model.events.LongChangedHandler;
+import org.tessell.model.properties.LongProperty;
+import org.tessell.model.properties.Properties;
+
+public class LongPropertyTest {
+
+  @Test
+  public void setLongFiresBothChangeEvents() {
+    final LongProperty p = longProperty("p", 1L);
+    final long[] values = new long[2];
+    p.addLongChangedHandler(new LongChangedHandler() {
+      public void onLongChanged(LongChangedEvent event) {
+        values[0] = event.getOldValue();
+        values[1] = event.getNewValue();
+      }
+    });
+    CountChanges c = CountChanges.on(p);
+    p.setLong(2);
+    assertThat(p.getLong(), is(2L));
+    assertThat(p.get(), is(2L));
+    assertThat(p.isTouched(), is(true));
+    assertThat(c.changes, is(1));
+    assertThat(values[0], is(1L));
+    assertThat(values[1], is(2L));
+  }
+
+  @Test
+  public void setLongOnceTouchedOnlyFiresWhenChanged() {
+    final LongProperty p = longProperty("p", 1L);
+    p.setTouched(true);
+    final long[] fired = new long[3];
+    p.addLongChangedHandler(new LongChangedHandler() {
+      public void onLongChanged(LongChangedEvent event) {
+        fired[0]++;
+        fired[1] = event.getOldValue();
+        fired[2] = event.getNewValue();
+      }
+    });
+    p.setLong(1);
+    assertThat(fired[0], is(0L));
+    p.setLong(5000000000L);
+    p.setLong(5000000000L);
+    assertThat(fired[0], is(1L));
+    p.setLong(6000000000L);
+    assertThat(fired[0], is(2L));
+    assertThat(fired[1], is(5000000000L));
+    assertThat(fired[2], is(6000000000L));
+  }
+
+  @Test
+  public void setLongAndSetSeeEachOthersChanges() {
+    final LongProperty p = longProperty("p", 1L);
+    p.setTouched(true);
+    CountChanges c = CountChanges.on(p);
+    p.setLong(1000);
+    p.set(1000L);
+    assertThat(c.changes, is(1));
+    p.set(null);
+    p.setLong(0);
+    assertThat(c.changes, is(3));
+    p.setLong(0);
+    p.reassess();
+    assertThat(c.changes, is(3));
+  }
+
+  @Test
+  public void setLongWithinABatchFiresOnce() {
+    final LongProperty p = longProperty("p", 1L);
+    p.setTouched(true);
+    CountChanges c = CountChanges.on(p);
+    Properties.batch(new Runnable() {
+      public void run() {
+        p.setLong(2);
+        p.setLong(3);
+      }
+    });
+    assertThat(c.changes, is(1));
+    assertThat(p.getLong(), is(3L));
+  }
+
+  @Test
+  public void getLongTreatsNullAsZero() {
+    final LongProperty p = longProperty("p");
+    assertThat(p.get(), is(nullValue()));
+    assertThat(p.getLong(), is(0L));
+    p.setLong(0);
+    assertThat(p.get(), is(0L));
+    p.set(null);
+    assertThat(p.get(), is(nullValue()));
+  }
+
+}
@@ -0,0 +1,138 @@
+package org.tessell.tests.model.properties;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.tessell.model.properties.NewProperty.integerProperty;
+
+import org.junit.Test;
+import org.tessell.model.events.PropertyChangedEvent;
+import org.tessell.model.events.PropertyChangedHandler;
+import org.tessell.model.properties.IntegerProperty;
+import org.tessell.model.properties.Properties;
+import org.tessell.model.values.DerivedValue;
+
+public class PropertiesTest {
+
+  private final IntegerProperty a = integerProperty("a", 0);
+  private final IntegerProperty b = integerProperty("b", 0);
+  private final IntegerProperty sum = integerProperty(new DerivedValue<Integer>("sum") {
+    public Integer get() {
+      return a.get() + b.get();
+    }
+  });
+
+  @Test
+  public void withoutBatchEachSetFiresTheDerivedProperty() {
+    CountChanges c = CountChanges.on(sum);
+    a.set(1);
+    b.set(2);
+    assertThat(c.changes, is(2));
+  }
+
+  @Test
+  public void batchFiresTheDerivedPropertyOnce() {
+    CountChanges c = CountChanges.on(sum);
+    Properties.batch(new Runnable() {
+      public void run() {
+        a.set(1);
+        b.set(2);
+      }
+    });
+    assertThat(c.changes, is(1));
+    assertThat(sum.get(), is(3));
+  }
+
+  @Test
+  public void batchFiresChangesAfterTheGraphSettles() {
+    final CountChanges c = CountChanges.on(a);
+    final int[] sumSeenByA = { -1 };
+    a.addPropertyChangedHandler(new PropertyChangedHandler<Integer>() {
+      public void onPropertyChanged(PropertyChangedEvent<Integer> event) {
+        sumSeenByA[0] = sum.get();
+      }
+    });
+    Properties.batch(new Runnable() {
+      public void run() {
+        a.set(1);
+        assertThat(c.changes, is(0));
+        b.set(2);
+      }
+    });
+    assertThat(c.changes, is(1));
+    assertThat(sumSeenByA[0], is(3));
+  }
+
+  @Test
+  public void batchDoesNotFireIfTheValueEndsUpTheSame() {
+    a.set(1);
+    CountChanges c = CountChanges.on(a);
+    CountChanges s = CountChanges.on(sum);
+    Properties.batch(new Runnable() {
+      public void run() {
+        a.set(2);
+        a.set(1);
+      }
+    });
+    assertThat(c.changes, is(0));
+    assertThat(s.changes, is(0));
+  }
+
+  @Test
+  public void nestedBatchesSettleOnTheOutermost() {
+    final CountChanges c = CountChanges.on(sum);
+    Properties.batch(new Runnable() {
+      public void run() {
+        a.set(1);
+        Properties.batch(new Runnable() {
+          public void run() {
+            b.set(2);
+          }
+        });
+        assertThat(c.changes, is(0));
+      }
+    });
+    assertThat(c.changes, is(1));
+  }
+
+  @Test
+  public void diamondIsReassessedOnceInOrder() {
+    final IntegerProperty doubled = integerProperty(new DerivedValue<Integer>("doubled") {
+      public Integer get() {
+        return sum.get() * 2;
+      }
+    });
+    final IntegerProperty total = integerProperty(new DerivedValue<Integer>("total") {
+      public Integer get() {
+        return sum.get() + doubled.get();
+      }
+    });
+    CountChanges c = CountChanges.on(total);
+    Properties.batch(new Runnable() {
+      public void run() {
+        a.set(1);
+        b.set(2);
+      }
+    });
+    assertThat(c.changes, is(1));
+    assertThat(total.get(), is(9));
+  }
+
+  @Test
+  public void handlersCanSetPropertiesAfterTheBatch() {
+    final IntegerProperty c = integerProperty("c", 0);
+    sum.addPropertyChangedHandler(new PropertyChangedHandler<Integer>() {
+      public void onPropertyChanged(PropertyChangedEvent<Integer> event) {
+        c.set(event.getNewValue());
+      }
+    });
+    Properties.batch(new Runnable() {
+      public void run() {
+        a.set(1);
+        b.set(2);
+      }
+    });
+    assertThat(c.get(), is(3));
+    assertThat(Properties.isBatching(), is(false));
+  }
+
+}
@@ -0,0 +1,135 @@
+package org.tessell.tests.model.repository;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.tessell.model.properties.NewProperty.stringProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.tessell.dispatch.client.StubDispatchAsync;
+import org.tessell.model.AbstractDtoModel;
+import org.tessell.model.events.PropertyChangedEvent;
+import org.tessell.model.events.PropertyChangedHandler;
+import org.tessell.model.properties.StringProperty;
+import org.tessell.model.repository.AbstractRepository;
+
+public class AbstractRepositoryTest {
+
+  private final List<List<Integer>> loads = new ArrayList<List<Integer>>();
+  private final EmployeeRepository repo = new EmployeeRepository(0);
+
+  @Test
+  public void getReturnsTheSameModel() {
+    assertThat(repo.get(1) == repo.get(1), is(true));
+  }
+
+  @Test
+  public void getAllLoadsMissingIdsTogether() {
+    final EmployeeModel one = repo.get(1);
+    final List<EmployeeModel> models = repo.getAll(Arrays.asList(1, 2, 3, 2));
+    assertThat(models.size(), is(4));
+    assertThat(models.get(0) == one, is(true));
+    assertThat(models.get(1) == models.get(3), is(true));
+    assertThat(loads.size(), is(1));
+    assertThat(loads.get(0), is(Arrays.asList(2, 3)));
+  }
+
+  @Test
+  public void getAllDoesNotLoadIfNothingIsMissing() {
+    repo.getAll(Arrays.asList(1, 2));
+    repo.getAll(Arrays.asList(2, 1));
+    assertThat(loads.size(), is(1));
+  }
+
+  @Test
+  public void mergeAllFiresChangesAfterEveryModelIsUpdated() {
+    final EmployeeModel one = repo.get(1);
+    final EmployeeModel two = repo.get(2);
+    final String[] twoSeenByOne = { null };
+    one.name.addPropertyChangedHandler(new PropertyChangedHandler<String>() {
+      public void onPropertyChanged(PropertyChangedEvent<String> event) {
+        twoSeenByOne[0] = two.name.get();
+      }
+    });
+    final Map<Integer, String> dtos = new LinkedHashMap<Integer, String>();
+    dtos.put(1, "a");
+    dtos.put(2, "b");
+    dtos.put(3, "c");
+    final List<EmployeeModel> models = repo.mergeAll(dtos);
+    assertThat(twoSeenByOne[0], is("b"));
+    assertThat(models.get(0) == one, is(true));
+    assertThat(models.get(2).name.get(), is("c"));
+  }
+
+  @Test
+  public void leastRecentlyUsedModelsAreEvicted() {
+    final EmployeeRepository bounded = new EmployeeRepository(2);
+    final EmployeeModel one = bounded.get(1);
+    bounded.get(2);
+    bounded.get(1); // now 2 is the eldest
+    bounded.get(3);
+    assertThat(bounded.get(1) == one, is(true));
+    assertThat(bounded.size(), is(2));
+  }
+
+  @Test
+  public void getAllDoesNotEvictTheModelsItCreates() {
+    final EmployeeRepository bounded = new EmployeeRepository(2);
+    bounded.get(0);
+    final List<EmployeeModel> models = bounded.getAll(Arrays.asList(1, 2, 3));
+    assertThat(loads.get(0), is(Arrays.asList(1, 2, 3)));
+    // the response comes back, and should fill in the models we returned
+    final Map<Integer, String> dtos = new LinkedHashMap<Integer, String>();
+    dtos.put(1, "a");
+    dtos.put(2, "b");
+    dtos.put(3, "c");
+    bounded.mergeAll(dtos);
+    assertThat(models.get(0).name.get(), is("a"));
+    assertThat(models.get(1).name.get(), is("b"));
+    assertThat(models.get(2).name.get(), is("c"));
+    // 0 was evicted instead, and the next get brings us back within the bound
+    assertThat(bounded.size(), is(3));
+    bounded.get(4);
+    assertThat(bounded.size(), is(2));
+  }
+
+  private class EmployeeRepository extends AbstractRepository<Integer, String, EmployeeModel> {
+    private EmployeeRepository(int maxInstances) {
+      super(new StubDispatchAsync(), maxInstances);
+    }
+
+    @Override
+    protected EmployeeModel newModel(Integer id, String dto) {
+      return new EmployeeModel();
+    }
+
+    @Override
+    protected void loadAll(List<Integer> ids) {
+      loads.add(ids);
+    }
+
+    private int size() {
+      return instances.size();
+    }
+  }
+
+  private static class EmployeeModel extends AbstractDtoModel<String> {
+    private final StringProperty name = stringProperty("name");
+
+    @Override
+    public void merge(String dto) {
+      name.set(dto);
+    }
+
+    @Override
+    public String getDto() {
+      return name.get();
+    }
+  }
+
+}
@@ -0,0 +1,56 @@
+package org.tessell.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.tessell.bus.StubEventBus;
+import org.tessell.dispatch.client.GetTestAction;
+import org.tessell.dispatch.client.GetTestResult;
+import org.tessell.dispatch.client.StubDispatchAsync;
+import org.tessell.dispatch.client.SuccessCallback;
+import org.tessell.dispatch.client.events.DispatchUnhandledFailureEvent;
+import org.tessell.dispatch.client.util.StubOutstandingDispatchAsync;
+
+public class ActionCacheTest {
+
+  private final StubEventBus bus = new StubEventBus();
+  private final StubOutstandingDispatchAsync async = new StubOutstandingDispatchAsync(bus, new StubDispatchAsync());
+  private final ActionCache<GetTestAction, GetTestResult, String> cache = new ActionCache<GetTestAction, GetTestResult, String>(async) {
+    public String derive(GetTestResult result) {
+      return "derived";
+    }
+  };
+  private int called = 0;
+  private final SuccessCallback<String> onSuccess = new SuccessCallback<String>() {
+    public void onSuccess(String result) {
+      called++;
+    }
+  };
+
+  @Test
+  public void callsOnceAndQueuesCallbacks() {
+    cache.execute(new GetTestAction("a"), onSuccess);
+    cache.execute(new GetTestAction("a"), onSuccess);
+    assertThat(async.getCalls().size(), is(1));
+    async.getCallback(GetTestAction.class).onSuccess(new GetTestResult());
+    assertThat(called, is(2));
+
+    cache.execute(new GetTestAction("a"), onSuccess);
+    assertThat(called, is(3));
+    assertThat(async.getCalls().size(), is(1));
+  }
+
+  @Test
+  public void failureDropsTheCallbacksAndAllowsARetry() {
+    cache.execute(new GetTestAction("a"), onSuccess);
+    async.getCallback(GetTestAction.class).onFailure(new RuntimeException("failed"));
+    assertThat(bus.getEvents(DispatchUnhandledFailureEvent.class).size(), is(1));
+
+    cache.execute(new GetTestAction("a"), onSuccess);
+    assertThat(async.getCalls().size(), is(2));
+    async.getCallback(GetTestAction.class).onSuccess(new GetTestResult());
+    assertThat(called, is(1));
+  }
+
+}
@@ -0,0 +1,51 @@
+package org.tessell.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class LinkedIdentityMapTest {
+
+  @Test
+  public void keepsInsertionOrder() {
+    LinkedIdentityMap<String, Integer> m = new LinkedIdentityMap<String, Integer>();
+    m.put("c", 1);
+    m.put("a", 2);
+    m.put("b", 3);
+    m.put("a", 4);
+    assertThat(m.keys().toString(), is("[c, a, b]"));
+    assertThat(m.values().toString(), is("[1, 4, 3]"));
+  }
+
+  @Test
+  public void removesFromAnywhere() {
+    LinkedIdentityMap<String, Integer> m = new LinkedIdentityMap<String, Integer>();
+    m.put("a", 1);
+    m.put("b", 2);
+    m.put("c", 3);
+    assertThat(m.remove("b"), is(2));
+    assertThat(m.toString(), is("{a=1, c=3}"));
+    assertThat(m.remove("a"), is(1));
+    assertThat(m.remove("c"), is(3));
+    assertThat(m.isEmpty(), is(true));
+    m.put("d", 4);
+    assertThat(m.toString(), is("{d=4}"));
+  }
+
+  @Test
+  public void comparesKeysByIdentity() {
+    LinkedIdentityMap<String, Integer> m = new LinkedIdentityMap<String, Integer>();
+    String a1 = new String("a");
+    String a2 = new String("a");
+    m.put(a1, 1);
+    m.put(a2, 2);
+    assertThat(m.size(), is(2));
+    assertThat(m.get(a2), is(2));
+    assertThat(m.get("b"), is(nullValue()));
+    assertThat(m.remove(a1), is(1));
+    assertThat(m.containsKey(a2), is(true));
+  }
+
+}
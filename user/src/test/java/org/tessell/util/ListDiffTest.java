@@ -6,6 +6,7 @@ import static org.junit.Assert.assertThat;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -38,7 +39,8 @@ public class ListDiffTest {
   @Test
   public void testFindAdds() {
     ListDiff<String> d = ListDiff.of(list("3"), list("3", "3", "3"));
-    assertThat(d.added.toString(), is("[3@0, 3@0]"));
+    // the old 3 is matched to the first new 3
+    assertThat(d.added.toString(), is("[3@1, 3@2]"));
     assertThat(d.removed.size(), is(0));
     assertThat(d.moves.size(), is(0));
   }
@@ -46,7 +48,8 @@ public class ListDiffTest {
   @Test
   public void testFindRemoves() {
     ListDiff<String> d = ListDiff.of(list("3", "3", "3"), list("3"));
-    assertThat(d.removed.toString(), is("[3@0, 3@0]"));
+    // the first old 3 is matched to the new 3
+    assertThat(d.removed.toString(), is("[3@1, 3@1]"));
     assertThat(d.added.size(), is(0));
     assertThat(d.moves.size(), is(0));
   }
@@ -106,10 +109,73 @@ public class ListDiffTest {
     ListDiff<String> d = ListDiff.of(list("1", "2", "3", "3"), list("3", "3", "1", "2"));
     assertThat(d.removed.size(), is(0));
     assertThat(d.added.size(), is(0));
-    // the 2nd 3 here should really be "3@1", but, hey, if you're inserting these things
-    // as value objects, then it probably doesn't matter that you'll .add(0, "3"), .add(0, "3")
-    // twice.
-    assertThat(d.moves.toString(), is("[3@0, 1@2, 2@3]"));
+    assertThat(d.moves.toString(), is("[3@0, 3@1]"));
+    assertDiffIsRight(list("1", "2", "3", "3"), list("3", "3", "1", "2"));
+  }
+
+  @Test
+  public void testFindMoveWithAnInsertBeforeIt() {
+    ListDiff<String> d = ListDiff.of(list("1", "2"), list("2", "3", "1"));
+    assertThat(d.added.toString(), is("[3@1]"));
+    // moves are relative to the list after the add is applied
+    assertThat(d.moves.toString(), is("[2@0, 3@1]"));
+    assertDiffIsRight(list("1", "2"), list("2", "3", "1"));
+    assertDiffIsRight(list("1", "2"), list("2", "3", "1"), true);
+  }
+
+  @Test
+  public void testGreedyMovesEachElementUp() {
+    ListDiff<String> d = ListDiff.of(list("1", "2", "3", "4"), list("2", "3", "4", "1"));
+    assertThat(d.moves.toString(), is("[2@0, 3@1, 4@2]"));
+  }
+
+  @Test
+  public void testMinimalMovesOnlyMovesTheOneElement() {
+    ListDiff<String> d = ListDiff.of(list("1", "2", "3", "4"), list("2", "3", "4", "1"), true);
+    assertThat(d.removed.size(), is(0));
+    assertThat(d.added.size(), is(0));
+    assertThat(d.moves.toString(), is("[1@3]"));
+  }
+
+  @Test
+  public void testMinimalMovesWithAddsAndRemoves() {
+    ListDiff<String> d = ListDiff.of(list("1", "2", "3", "4", "5"), list("5", "2", "6", "3", "1"), true);
+    assertThat(d.removed.toString(), is("[4@3]"));
+    assertThat(d.added.toString(), is("[6@2]"));
+    assertThat(d.moves.size(), is(2));
+    assertDiffIsRight(list("1", "2", "3", "4", "5"), list("5", "2", "6", "3", "1"), true);
+  }
+
+  @Test
+  public void testIdentityDoesNotMatchEqualValues() {
+    String a1 = new String("a");
+    String a2 = new String("a");
+    ListDiff<String> d = ListDiff.ofIdentity(list(a1), list(a2));
+    assertThat(d.removed.toString(), is("[a@0]"));
+    assertThat(d.added.toString(), is("[a@0]"));
+  }
+
+  @Test
+  public void testKeyMatchesByTheMappedValue() {
+    ListDiff<String> d = ListDiff.ofKey(list("a1", "b1"), list("b2", "a2"), new ListDiff.Mapper<String, Character>() {
+      public Character map(String s) {
+        return s.charAt(0);
+      }
+    });
+    assertThat(d.removed.size(), is(0));
+    assertThat(d.added.size(), is(0));
+    assertThat(d.moves.toString(), is("[b2@0]"));
+  }
+
+  @Test
+  public void testRandomDiffs() {
+    Random random = new Random(1);
+    for (int i = 0; i < 500; i++) {
+      List<String> oldList = randomList(random);
+      List<String> newList = randomList(random);
+      assertDiffIsRight(oldList, newList);
+      assertDiffIsRight(oldList, newList, true);
+    }
   }
 
   @Test
@@ -127,8 +193,21 @@ public class ListDiffTest {
     assertDiffIsRight(list("1", "2", "3", "4", "5"), list("1", "2", "3", "!", "4", "5"));
   }
 
+  private static List<String> randomList(Random random) {
+    List<String> list = new ArrayList<String>();
+    int size = random.nextInt(12);
+    for (int i = 0; i < size; i++) {
+      list.add(Integer.toString(random.nextInt(10)));
+    }
+    return list;
+  }
+
   private static void assertDiffIsRight(List<String> oldList, List<String> newList) {
-    ListDiff<String> diff = ListDiff.of(oldList, newList);
+    assertDiffIsRight(oldList, newList, false);
+  }
+
+  private static void assertDiffIsRight(List<String> oldList, List<String> newList, boolean minimalMoves) {
+    ListDiff<String> diff = ListDiff.of(oldList, newList, minimalMoves);
     {
       // make a copy of old
       List<String> copy = new ArrayList<String>(oldList);
@@ -0,0 +1,52 @@
+package org.tessell.util;
+
+import static joist.util.Copy.list;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class ListSnapshotTest {
+
+  @Test
+  public void appendingLeavesTheOldSnapshotAlone() {
+    ListSnapshot<String> a = ListSnapshot.of(list("1", "2"));
+    ListSnapshot<String> b = a.with(2, "3");
+    ListSnapshot<String> c = b.withAll(list("4", "5"));
+    assertThat(a.toString(), is("[1, 2]"));
+    assertThat(b.toString(), is("[1, 2, 3]"));
+    assertThat(c.toString(), is("[1, 2, 3, 4, 5]"));
+  }
+
+  @Test
+  public void appendingToAnOlderSnapshotCopies() {
+    ListSnapshot<String> a = ListSnapshot.of(list("1"));
+    ListSnapshot<String> b = a.with(1, "2");
+    ListSnapshot<String> c = a.with(1, "3");
+    assertThat(b.toString(), is("[1, 2]"));
+    assertThat(c.toString(), is("[1, 3]"));
+    assertThat(a.without(0).with(0, "4").toString(), is("[4]"));
+    assertThat(b.toString(), is("[1, 2]"));
+  }
+
+  @Test
+  public void insertingAndRemoving() {
+    ListSnapshot<String> a = ListSnapshot.of(list("1", "2", "3"));
+    assertThat(a.with(1, "4").toString(), is("[1, 4, 2, 3]"));
+    assertThat(a.without(1).toString(), is("[1, 3]"));
+    assertThat(a.without(2).toString(), is("[1, 2]"));
+    assertThat(a.toString(), is("[1, 2, 3]"));
+  }
+
+  @Test
+  public void equalsOtherLists() {
+    assertThat(ListSnapshot.of(list("1", "2")).equals(list("1", "2")), is(true));
+    assertThat(list("1", "2").equals(ListSnapshot.of(list("1", "2"))), is(true));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void isReadOnly() {
+    ListSnapshot.of(list("1")).add("2");
+  }
+
+}
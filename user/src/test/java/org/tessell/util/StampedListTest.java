@@ -0,0 +1,53 @@
+package org.tessell.util;
+
+import static joist.util.Copy.list;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+public class StampedListTest {
+
+  private final StampedList<String> l = new StampedList<String>(list("1", "2", "3"));
+
+  @Test
+  public void setChangesTheStamp() {
+    int stamp = l.getStamp();
+    l.set(0, "4");
+    assertThat(l.getStamp(), is(not(stamp)));
+  }
+
+  @Test
+  public void iteratorRemoveChangesTheStamp() {
+    int stamp = l.getStamp();
+    Iterator<String> i = l.iterator();
+    i.next();
+    i.remove();
+    assertThat(l.getStamp(), is(not(stamp)));
+    assertThat(l.toString(), is("[2, 3]"));
+  }
+
+  @Test
+  public void sortChangesTheStamp() {
+    int stamp = l.getStamp();
+    Collections.sort(l, Collections.reverseOrder());
+    assertThat(l.getStamp(), is(not(stamp)));
+    assertThat(l.toString(), is("[3, 2, 1]"));
+  }
+
+  @Test
+  public void readingLeavesTheStampAlone() {
+    int stamp = l.getStamp();
+    l.get(0);
+    l.contains("2");
+    for (String s : l) {
+      s.length();
+    }
+    assertThat(l.getStamp(), is(stamp));
+  }
+
+}